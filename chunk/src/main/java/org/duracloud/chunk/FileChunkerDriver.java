@@ -175,6 +175,15 @@ public class FileChunkerDriver {
                                              "specified in the 'add' " +
                                              "option will be ignored.");
 
+        Option uploadThreads = new Option("t",
+                                          "upload-threads",
+                                          true,
+                                          "number of chunks of each file " +
+                                          "to upload to the cloud store " +
+                                          "concurrently, defaults to 1");
+        uploadThreads.setArgs(1);
+        uploadThreads.setArgName("threads");
+
         Options options = new Options();
         options.addOption(username);
         options.addOption(password);
@@ -185,6 +194,7 @@ public class FileChunkerDriver {
         options.addOption(cloud);
         options.addOption(excludeChunkMD5s);
         options.addOption(ignoreLargeFiles);
+        options.addOption(uploadThreads);
 
         return options;
     }
@@ -245,8 +255,13 @@ public class FileChunkerDriver {
                 mgr.login(credential);
             }
 
-            writer = new DuracloudContentWriter(mgr.getPrimaryContentStore(),
-                                                username);
+            DuracloudContentWriter cloudWriter =
+                new DuracloudContentWriter(mgr.getPrimaryContentStore(), username);
+            if (cmd.hasOption("upload-threads")) {
+                cloudWriter.setUploadThreads(
+                    Integer.parseInt(cmd.getOptionValue("upload-threads")));
+            }
+            writer = cloudWriter;
         } else {
             writer = new FilesystemContentWriter();
         }
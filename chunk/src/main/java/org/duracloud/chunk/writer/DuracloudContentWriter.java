@@ -9,15 +9,21 @@ package org.duracloud.chunk.writer;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import org.apache.commons.io.FileUtils;
 import org.duracloud.chunk.ChunkableContent;
@@ -52,8 +58,9 @@ public class DuracloudContentWriter implements ContentWriter {
 
     private ContentStore contentStore;
     private String username;
-    private Set<String> existingSpaces = new HashSet<String>();
-    private List<AddContentResult> results = new ArrayList<AddContentResult>();
+    private Set<String> existingSpaces = ConcurrentHashMap.newKeySet();
+    private List<AddContentResult> results =
+        Collections.synchronizedList(new ArrayList<AddContentResult>());
     private ChecksumUtil checksumUtil = new ChecksumUtil(ChecksumUtil.Algorithm.MD5);
 
     // if true, skip writing results and throw exception when errors occur
@@ -65,9 +72,14 @@ public class DuracloudContentWriter implements ContentWriter {
     private static int DEFAULT_MAX_RETRIES = 4;  //actual attempts will always equal MAX_RETRIES+1
     private static int DEFAULT_WAIT_IN_MS_BETWEEN_RETRIES = 1000;
 
+    private static int DEFAULT_UPLOAD_THREADS = 1;
+
     private int maxRetries = DEFAULT_MAX_RETRIES;
     private int waitInMsBetweenRetries = DEFAULT_MAX_RETRIES;
 
+    // number of chunks which may be uploaded concurrently
+    private int uploadThreads = DEFAULT_UPLOAD_THREADS;
+
     public DuracloudContentWriter(ContentStore contentStore, String username) {
         this(contentStore,
              username,
@@ -112,6 +124,24 @@ public class DuracloudContentWriter implements ContentWriter {
         return this.maxRetries;
     }
 
+    public int getUploadThreads() {
+        return uploadThreads;
+    }
+
+    /**
+     * Sets the number of chunks of a single content item which may be
+     * uploaded at the same time. When greater than one, the next chunk is
+     * read from the source stream while prior chunks are being uploaded.
+     *
+     * @param uploadThreads number of concurrent chunk uploads
+     */
+    public void setUploadThreads(int uploadThreads) {
+        if (uploadThreads < 1) {
+            throw new IllegalArgumentException("Upload threads must be at least 1");
+        }
+        this.uploadThreads = uploadThreads;
+    }
+
     public List<AddContentResult> getResults() {
         return results;
     }
@@ -149,10 +179,14 @@ public class DuracloudContentWriter implements ContentWriter {
         createSpaceIfNotExist(spaceId);
         boolean errorsExist = false;
         results.clear();
-        for (ChunkInputStream chunk : chunkable) {
-            writeChunk(spaceId, chunk);
-            if (errorsExist = errorsExist()) {
-                break;
+        if (uploadThreads > 1) {
+            errorsExist = writeChunksConcurrently(spaceId, chunkable);
+        } else {
+            for (ChunkInputStream chunk : chunkable) {
+                writeChunk(spaceId, chunk);
+                if (errorsExist = errorsExist()) {
+                    break;
+                }
             }
         }
 
@@ -182,15 +216,113 @@ public class DuracloudContentWriter implements ContentWriter {
 
     protected boolean errorsExist() {
         boolean containsErrors = false;
-        for (AddContentResult result : this.results) {
-            if (result.getState().equals(AddContentResult.State.ERROR)) {
-                containsErrors = true;
-                break;
+        synchronized (this.results) {
+            for (AddContentResult result : this.results) {
+                if (result.getState().equals(AddContentResult.State.ERROR)) {
+                    containsErrors = true;
+                    break;
+                }
             }
         }
         return containsErrors;
     }
 
+    /*
+     * Reads chunks in order, writing each to a temp file, and hands them off
+     * to a pool of upload threads. The number of chunks which have been read
+     * but not yet uploaded is limited to the number of upload threads, so
+     * the next chunk is read while prior chunks are uploading.
+     *
+     * Returns true if errors exist in the results
+     */
+    private boolean writeChunksConcurrently(String spaceId,
+                                            ChunkableContent chunkable) {
+        ExecutorService uploadPool = Executors.newFixedThreadPool(uploadThreads);
+        Semaphore pendingChunks = new Semaphore(uploadThreads);
+        List<Future<?>> uploads = new ArrayList<>();
+        try {
+            for (ChunkInputStream chunk : chunkable) {
+                pendingChunks.acquireUninterruptibly();
+                if (errorsExist() || uploadFailed(uploads)) {
+                    pendingChunks.release();
+                    break;
+                }
+
+                SpooledChunk spooled;
+                try {
+                    spooled = spoolChunk(chunk);
+                } catch (RuntimeException e) {
+                    pendingChunks.release();
+                    throw e;
+                }
+
+                File chunkFile = spooled.file;
+                String chunkChecksum = spooled.checksum;
+                String chunkId = chunk.getChunkId();
+                boolean md5Preserved = chunk.md5Preserved();
+                uploads.add(uploadPool.submit(() -> {
+                    try {
+                        uploadChunk(spaceId, chunkId, md5Preserved,
+                                    chunkFile, chunkChecksum);
+                    } finally {
+                        pendingChunks.release();
+                    }
+                }));
+            }
+        } finally {
+            // Allow uploads in progress to complete before returning
+            uploadPool.shutdown();
+            waitForUploads(uploads);
+        }
+        return errorsExist();
+    }
+
+    /*
+     * Determines if any completed upload ended with an exception
+     */
+    private boolean uploadFailed(List<Future<?>> uploads) {
+        for (Future<?> upload : uploads) {
+            if (upload.isDone()) {
+                try {
+                    upload.get();
+                } catch (ExecutionException | InterruptedException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Waits for all uploads to complete, then throws the first failure
+     */
+    private void waitForUploads(List<Future<?>> uploads) {
+        RuntimeException failure = null;
+        for (Future<?> upload : uploads) {
+            try {
+                upload.get();
+            } catch (ExecutionException e) {
+                if (null == failure) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        failure = (RuntimeException) cause;
+                    } else {
+                        failure = new DuraCloudRuntimeException(cause.getMessage(), cause);
+                    }
+                }
+            } catch (InterruptedException e) {
+                if (null == failure) {
+                    failure = new DuraCloudRuntimeException(
+                        "Interrupted waiting for chunk upload", e);
+                }
+            }
+        }
+
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
     /*
      * Writes chunk to DuraCloud if it does not already exist in DuraCloud with a
      * matching checksum. Retry failed transfers.
@@ -198,12 +330,44 @@ public class DuracloudContentWriter implements ContentWriter {
     private void writeChunk(String spaceId, ChunkInputStream chunk)
         throws NotFoundException {
         // Write chunk as a temp file
-        String chunkId = chunk.getChunkId();
-        File chunkFile = IOUtil.writeStreamToFile(chunk);
+        SpooledChunk spooled = spoolChunk(chunk);
+        uploadChunk(spaceId, chunk.getChunkId(), chunk.md5Preserved(),
+                    spooled.file, spooled.checksum);
+    }
+
+    /*
+     * Writes chunk to a temp file. The checksum is computed as the chunk is
+     * read, so the temp file does not need to be read again to determine it.
+     */
+    private SpooledChunk spoolChunk(ChunkInputStream chunk) {
+        DigestInputStream digestStream = null;
+        InputStream source = chunk;
+        if (!chunk.md5Preserved()) {
+            digestStream = ChecksumUtil.wrapStream(chunk, ChecksumUtil.Algorithm.MD5);
+            source = digestStream;
+        }
 
+        File chunkFile = IOUtil.writeStreamToFile(source);
         try {
-            String chunkChecksum = getChunkChecksum(chunkFile);
+            String chunkChecksum = chunk.md5Preserved() ? chunk.getMD5() :
+                                   getChunkChecksum(digestStream);
+            return new SpooledChunk(chunkFile, chunkChecksum);
+        } catch (RuntimeException e) {
+            FileUtils.deleteQuietly(chunkFile);
+            throw e;
+        }
+    }
 
+    /*
+     * Uploads a chunk which has been written to a temp file, then removes
+     * the temp file.
+     */
+    private void uploadChunk(String spaceId,
+                             String chunkId,
+                             boolean md5Preserved,
+                             File chunkFile,
+                             String chunkChecksum) {
+        try {
             // Write chunk if it is not already in storage (or jumpstart is enabled)
             if (jumpStart || !chunkInStorage(spaceId, chunkId, chunkChecksum)) {
                 try {
@@ -218,7 +382,7 @@ public class DuracloudContentWriter implements ContentWriter {
                                     new ChunkInputStream(chunkId,
                                                          chunkStream,
                                                          chunkFile.length(),
-                                                         chunk.md5Preserved());
+                                                         md5Preserved);
                                 writeSingle(spaceId, chunkChecksum, chunkFileStream, attempt == getMaxRetries() + 1);
                             }
                             return "";
@@ -240,15 +404,11 @@ public class DuracloudContentWriter implements ContentWriter {
     }
 
     /*
-     * Determine the checksum of the chunk file
+     * Determine the checksum of a chunk which has been fully read through
+     * the digest stream
      */
-    private String getChunkChecksum(File chunkFile) {
-        try {
-            return checksumUtil.generateChecksum(chunkFile);
-        } catch (IOException e) {
-            throw new DuraCloudRuntimeException("Unable to generate checksum for file " +
-                                                chunkFile + " due to: " + e.getMessage());
-        }
+    protected String getChunkChecksum(DigestInputStream digestStream) {
+        return ChecksumUtil.getChecksum(digestStream);
     }
 
     protected void setChecksumUtil(ChecksumUtil checksumUtil) {
@@ -514,4 +674,17 @@ public class DuracloudContentWriter implements ContentWriter {
         }
     }
 
-}
\ No newline at end of file
+    /*
+     * A chunk which has been written to a temp file, along with its checksum
+     */
+    private static class SpooledChunk {
+        private final File file;
+        private final String checksum;
+
+        SpooledChunk(File file, String checksum) {
+            this.file = file;
+            this.checksum = checksum;
+        }
+    }
+
+}
@@ -9,15 +9,18 @@ package org.duracloud.chunk.writer;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.duracloud.chunk.ChunkableContent;
 import org.duracloud.chunk.error.NotFoundException;
+import org.duracloud.chunk.manifest.ChunksManifest;
+import org.duracloud.chunk.manifest.ChunksManifestBean;
 import org.duracloud.chunk.stream.ChunkInputStream;
 import org.duracloud.client.ContentStore;
 import org.duracloud.common.error.DuraCloudRuntimeException;
@@ -274,15 +277,16 @@ public class DuracloudContentWriterTest {
     }
 
     private void doTestWrite(boolean validChecksum, boolean jumpStart) throws Exception {
-        DuracloudContentWriter writer =
-            new DuracloudContentWriter(contentStore, username, false, jumpStart);
+        DuracloudContentWriter writer;
         if (validChecksum) {
-            writer.setChecksumUtil(new ChecksumUtil(ChecksumUtil.Algorithm.MD5) {
+            writer = new DuracloudContentWriter(contentStore, username, false, jumpStart) {
                 @Override
-                public String generateChecksum(File file) throws IOException {
+                protected String getChunkChecksum(DigestInputStream digestStream) {
                     return checksum;
                 }
-            });
+            };
+        } else {
+            writer = new DuracloudContentWriter(contentStore, username, false, jumpStart);
         }
 
         replayMocks();
@@ -299,6 +303,106 @@ public class DuracloudContentWriterTest {
         EasyMock.verify(contentStore);
     }
 
+    /*
+     * Tests that the checksum computed while spooling a chunk matches
+     * the checksum of the chunk content
+     */
+    @Test
+    public void testWriteChunkChecksum() throws Exception {
+        createMockContentStore(true, true);
+        updateMockContentStoreContentCheck(false);
+        replayMocks();
+
+        List<String> chunkChecksums = new ArrayList<>();
+        DuracloudContentWriter writer =
+            new DuracloudContentWriter(contentStore, username, false, false) {
+                @Override
+                protected String getChunkChecksum(DigestInputStream digestStream) {
+                    String chunkChecksum = super.getChunkChecksum(digestStream);
+                    chunkChecksums.add(chunkChecksum);
+                    return chunkChecksum;
+                }
+            };
+
+        long contentSize = 1000;
+        ChunkableContent chunkable =
+            new ChunkableContent(contentId, createContentStream(contentSize),
+                                 contentSize, 1000);
+        writer.write(spaceId, chunkable);
+
+        ChecksumUtil checksumUtil = new ChecksumUtil(ChecksumUtil.Algorithm.MD5);
+        String expected =
+            checksumUtil.generateChecksum(createContentStream(contentSize));
+        Assert.assertEquals(1, chunkChecksums.size());
+        Assert.assertEquals(expected, chunkChecksums.get(0));
+        EasyMock.verify(contentStore);
+    }
+
+    /*
+     * Tests a write with chunks uploaded concurrently
+     */
+    @Test
+    public void testWriteConcurrentUploads() throws Exception {
+        createMockContentStore(true, true);
+        updateMockContentStoreContentCheck(false);
+        replayMocks();
+
+        DuracloudContentWriter writer =
+            new DuracloudContentWriter(contentStore, username, false, false);
+        writer.setUploadThreads(3);
+
+        long contentSize = 10000;
+        ChunkableContent chunkable =
+            new ChunkableContent(contentId, createContentStream(contentSize),
+                                 contentSize, 1000);
+        ChunksManifest manifest = writer.write(spaceId, chunkable);
+
+        // All chunks and the manifest are reported, manifest order is kept
+        Assert.assertEquals(11, writer.getResults().size());
+        Assert.assertFalse(writer.errorsExist());
+        List<ChunksManifestBean.ManifestEntry> entries = manifest.getEntries();
+        Assert.assertEquals(10, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Assert.assertEquals(i, entries.get(i).getIndex());
+        }
+
+        EasyMock.verify(contentStore);
+    }
+
+    @Test
+    public void testErrorOnWriteChunkConcurrentThrows() throws Exception {
+        int contentSize = 4000;
+        ChunkableContent chunkable =
+            new ChunkableContent(contentId, createContentStream(contentSize),
+                                 contentSize, 1000);
+
+        EasyMock.expect(contentStoreThrow.contentExists(EasyMock.isA(String.class),
+                                                        EasyMock.isA(String.class)))
+                .andReturn(false)
+                .anyTimes();
+        EasyMock.expect(contentStoreThrow.getSpaceACLs(EasyMock.isA(String.class)))
+                .andReturn(new HashMap<String, AclType>())
+                .anyTimes();
+        EasyMock.expect(contentStoreThrow.addContent(EasyMock.isA(String.class),
+                                                     EasyMock.isA(String.class),
+                                                     isChunkInputStream(),
+                                                     EasyMock.anyLong(),
+                                                     EasyMock.isA(String.class),
+                                                     EasyMock.isA(String.class),
+                                                     (Map) EasyMock.anyObject()))
+                .andThrow(new ContentStoreException("Expected addContent Error "))
+                .anyTimes();
+        replayMocks();
+
+        writerErrorThrow.setUploadThreads(2);
+        try {
+            writerErrorThrow.write(spaceId, chunkable);
+            Assert.fail("Exception expected");
+        } catch (DuraCloudRuntimeException expected) {
+            Assert.assertNotNull(expected);
+        }
+    }
+
     @Test
     public void testErrorOnWriteManifest() throws NotFoundException, ContentStoreException {
         int contentSize = 4000;
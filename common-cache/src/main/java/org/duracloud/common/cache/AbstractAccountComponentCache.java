@@ -29,6 +29,13 @@ public abstract class AbstractAccountComponentCache<T> implements AccountCompone
         this.cache.clear();
     }
 
+    /**
+     * @return the cached instance for the account, or null if there is none
+     */
+    protected T getIfPresent(String accountId) {
+        return this.cache.get(accountId);
+    }
+
     @Override
     public T get(String accountId) {
         T instance = this.cache.get(accountId);
@@ -8,14 +8,12 @@
 package org.duracloud.common.queue.aws;
 
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import java.util.Set;
 
 import com.amazonaws.AmazonServiceException;
@@ -45,7 +43,9 @@ import org.duracloud.common.queue.TaskException;
 import org.duracloud.common.queue.TaskNotFoundException;
 import org.duracloud.common.queue.TaskQueue;
 import org.duracloud.common.queue.TimeoutException;
+import org.duracloud.common.queue.task.PropertiesTaskCodec;
 import org.duracloud.common.queue.task.Task;
+import org.duracloud.common.queue.task.TaskCodec;
 import org.duracloud.common.retry.Retriable;
 import org.duracloud.common.retry.Retrier;
 import org.slf4j.Logger;
@@ -67,6 +67,7 @@ public class SQSTaskQueue implements TaskQueue {
     private String queueName;
     private String queueUrl;
     private Integer visibilityTimeout;  // in seconds
+    private TaskCodec taskCodec = new PropertiesTaskCodec();
 
     public enum MsgProp {
         MSG_ID, RECEIPT_HANDLE;
@@ -100,20 +101,10 @@ public class SQSTaskQueue implements TaskQueue {
     }
 
     protected Task marshallTask(Message msg) {
-        Properties props = new Properties();
         Task task = null;
         try {
-            props.load(new StringReader(msg.getBody()));
-
-            if (props.containsKey(Task.KEY_TYPE)) {
-                task = new Task();
-                for (final String key : props.stringPropertyNames()) {
-                    if (key.equals(Task.KEY_TYPE)) {
-                        task.setType(Task.Type.valueOf(props.getProperty(key)));
-                    } else {
-                        task.addProperty(key, props.getProperty(key));
-                    }
-                }
+            task = taskCodec.decode(msg.getBody());
+            if (null != task) {
                 task.addProperty(MsgProp.MSG_ID.name(), msg.getMessageId());
                 task.addProperty(MsgProp.RECEIPT_HANDLE.name(), msg.getReceiptHandle());
             } else {
@@ -127,24 +118,18 @@ public class SQSTaskQueue implements TaskQueue {
     }
 
     protected String unmarshallTask(Task task) {
-        Properties props = new Properties();
-        props.setProperty(Task.KEY_TYPE, task.getType().name());
-        for (String key : task.getProperties().keySet()) {
-            String value = task.getProperty(key);
-            if (null != value) {
-                props.setProperty(key, value);
-            }
-        }
-        StringWriter sw = new StringWriter();
-        String msgBody = null;
-        try {
-            props.store(sw, null);
-            msgBody = sw.toString();
-        } catch (IOException ioe) {
-            log.error("Error unmarshalling Task, queue: " + queueName +
-                      ", msgBody: " + msgBody, ioe);
-        }
-        return msgBody;
+        return taskCodec.encode(task);
+    }
+
+    /**
+     * Sets the codec used to encode tasks put on the queue, by default a
+     * PropertiesTaskCodec. Tasks taken from the queue are decoded using the
+     * same codec; both provided codecs decode either format.
+     *
+     * @param taskCodec
+     */
+    public void setTaskCodec(TaskCodec taskCodec) {
+        this.taskCodec = taskCodec;
     }
 
     @Override
@@ -171,15 +156,14 @@ public class SQSTaskQueue implements TaskQueue {
     }
 
     /**
-     * Convenience method that calls put(Set<Task>)
+     * Puts multiple tasks on the queue using batch puts. Unlike put(Set<Task>),
+     * tasks which are equal are each put on the queue.
      *
      * @param tasks
      */
     @Override
     public void put(Task... tasks) {
-        Set<Task> taskSet = new HashSet<>();
-        taskSet.addAll(Arrays.asList(tasks));
-        this.put(taskSet);
+        putBatches(Arrays.asList(tasks));
     }
 
     /**
@@ -191,6 +175,10 @@ public class SQSTaskQueue implements TaskQueue {
      */
     @Override
     public void put(Set<Task> tasks) {
+        putBatches(tasks);
+    }
+
+    private void putBatches(Collection<Task> tasks) {
         String msgBody = null;
         SendMessageBatchRequestEntry msgEntry = null;
         Set<SendMessageBatchRequestEntry> msgEntries = new HashSet<>();
@@ -0,0 +1,598 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.buffered;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.duracloud.common.queue.TaskException;
+import org.duracloud.common.queue.TaskNotFoundException;
+import org.duracloud.common.queue.TaskQueue;
+import org.duracloud.common.queue.TimeoutException;
+import org.duracloud.common.queue.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A TaskQueue decorator which accepts tasks into a bounded in-memory buffer
+ * and puts them on the target queue in batches from a background thread, so
+ * that callers of put() do not wait on the target queue.
+ *
+ * Tasks which cannot be buffered (because the buffer is full) or which could
+ * not be put on the target queue are appended to a spill file in the spill
+ * directory. Spilled tasks are put on the target queue once it is accepting
+ * tasks again, as are tasks in spill files left by an earlier process. When
+ * the JVM shuts down, the batch being put is allowed to finish and tasks
+ * remaining in the buffer are written to the spill file.
+ *
+ * A process locks the spill directory it uses. If the directory is locked by
+ * another running process, a numbered subdirectory which is not locked is
+ * used instead, so spill files are never replayed by two processes.
+ *
+ * The background thread stops when there has been no work for a time, and is
+ * started again by the next put. All operations other than puts are passed
+ * through to the target queue.
+ *
+ * @author agent
+ */
+public class BufferedTaskQueue implements TaskQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(BufferedTaskQueue.class);
+
+    public static final int DEFAULT_CAPACITY = 10000;
+    public static final int DEFAULT_BATCH_SIZE = 10;
+    public static final String SPILL_SUFFIX = ".spill";
+    private static final String REPLAY_SUFFIX = ".replay";
+    private static final String LOCK_FILE = ".lock";
+    private static final int MAX_SPILL_SUBDIRS = 100;
+
+    private static final long DEFAULT_RETRY_INTERVAL_MS = 30000;
+    private static final long IDLE_TIMEOUT_MS = 60000;
+    private static final long POLL_MS = 1000;
+    private static final long CLOSE_WAIT_MS = 10000;
+
+    // Open queues, which are closed on shutdown. Queues which are no longer
+    // referenced are dropped once their background thread stops.
+    private static final Set<BufferedTaskQueue> openQueues =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    // Spill directories locked by this process, keyed by the requested
+    // directory. The locks are held until the JVM exits.
+    private static final Map<File, File> lockedDirs = new HashMap<>();
+    private static final List<FileLock> dirLocks = new ArrayList<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(BufferedTaskQueue::closeAll, "buffered-task-queue-shutdown"));
+    }
+
+    private TaskQueue target;
+    private File spillDir;
+    private File spillFile;
+    private int batchSize;
+    private long retryIntervalMs = DEFAULT_RETRY_INTERVAL_MS;
+
+    private BlockingQueue<Task> buffer;
+    private final Object spillLock = new Object();
+    private DataOutputStream spillOut;
+    private volatile boolean spillPending = true;
+    private volatile long retryAfter = 0;
+    private volatile boolean closed = false;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Thread publisher;
+    private volatile List<Task> inFlight;
+
+    public BufferedTaskQueue(TaskQueue target, File spillDir) {
+        this(target, spillDir, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param target    the queue on which tasks are put
+     * @param spillDir  directory for tasks which cannot be buffered or put
+     * @param capacity  the maximum number of buffered tasks
+     * @param batchSize the maximum number of tasks in each put to the target
+     */
+    public BufferedTaskQueue(TaskQueue target,
+                             File spillDir,
+                             int capacity,
+                             int batchSize) {
+        this.target = target;
+        this.spillDir = lockSpillDir(spillDir.getAbsoluteFile());
+        this.batchSize = batchSize;
+        this.buffer = new LinkedBlockingQueue<>(capacity);
+
+        this.spillFile = new File(this.spillDir, "tasks-" + UUID.randomUUID() + SPILL_SUFFIX);
+        openQueues.add(this);
+
+        // Replay anything left by an earlier process
+        startPublisher();
+    }
+
+    /*
+     * Locks the requested spill directory, or the first numbered subdirectory
+     * of it which is not locked by another process, and returns the directory
+     * locked. Replay files left in the directory by a process which stopped
+     * during a replay are restored when the directory is first locked.
+     */
+    private static File lockSpillDir(File requestedDir) {
+        synchronized (lockedDirs) {
+            File lockedDir = lockedDirs.get(requestedDir);
+            if (null != lockedDir) {
+                return lockedDir;
+            }
+
+            for (int i = 0; i <= MAX_SPILL_SUBDIRS && null == lockedDir; i++) {
+                File dir = (i == 0) ? requestedDir : new File(requestedDir, String.valueOf(i));
+                dir.mkdirs();
+                if (lockDir(dir)) {
+                    lockedDir = dir;
+                }
+            }
+            if (null == lockedDir) {
+                log.warn("Unable to lock spill directory {} or a subdirectory, " +
+                         "it may be in use by another process",
+                         requestedDir.getAbsolutePath());
+                lockedDir = requestedDir;
+            } else {
+                restoreReplayFiles(lockedDir);
+            }
+            lockedDirs.put(requestedDir, lockedDir);
+            return lockedDir;
+        }
+    }
+
+    /*
+     * Returns true if the directory was locked, false if it is locked by
+     * another process
+     */
+    private static boolean lockDir(File dir) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(new File(dir, LOCK_FILE).toPath(),
+                                       StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (null != lock) {
+                dirLocks.add(lock);
+                return true;
+            }
+        } catch (IOException | OverlappingFileLockException e) {
+            log.debug("Unable to lock spill directory {}: {}",
+                      dir.getAbsolutePath(), e.getMessage());
+        }
+        if (null != channel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing lock file: {}", e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Intended to be used for testing
+     */
+    protected File getSpillDir() {
+        return spillDir;
+    }
+
+    /*
+     * Intended to be used for testing
+     */
+    protected void setRetryIntervalMs(long retryIntervalMs) {
+        this.retryIntervalMs = retryIntervalMs;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    /**
+     * Adds a task to the buffer, to be put on the target queue. If the buffer
+     * is full the task is spilled to disk.
+     *
+     * @param task
+     */
+    @Override
+    public void put(Task task) {
+        if (closed || !buffer.offer(task)) {
+            spill(Collections.singletonList(task));
+        }
+        startPublisher();
+    }
+
+    @Override
+    public void put(Task... tasks) {
+        for (Task task : tasks) {
+            put(task);
+        }
+    }
+
+    @Override
+    public void put(Set<Task> tasks) {
+        for (Task task : tasks) {
+            put(task);
+        }
+    }
+
+    /**
+     * @return the number of tasks waiting in the buffer
+     */
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    private void startPublisher() {
+        if (!closed && running.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::publish,
+                                       "buffered-task-queue-" + getName());
+            thread.setDaemon(true);
+            publisher = thread;
+            thread.start();
+        }
+    }
+
+    /*
+     * Puts buffered and spilled tasks on the target queue until closed or
+     * idle. After a failed put, nothing is put until the retry interval has
+     * passed.
+     */
+    private void publish() {
+        long lastWork = System.currentTimeMillis();
+        while (!closed) {
+            long waitMs = retryAfter - System.currentTimeMillis();
+            if (waitMs > 0) {
+                sleep(Math.min(waitMs, POLL_MS));
+                continue;
+            }
+
+            Task task;
+            try {
+                task = buffer.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            if (null != task) {
+                List<Task> batch = new ArrayList<>(batchSize);
+                batch.add(task);
+                buffer.drainTo(batch, batchSize - 1);
+                putBatch(batch);
+                lastWork = System.currentTimeMillis();
+            } else if (spillPending && replaySpilled()) {
+                lastWork = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - lastWork > IDLE_TIMEOUT_MS) {
+                running.set(false);
+                // A put may have arrived after the last poll
+                if (buffer.isEmpty() || !running.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+        running.set(false);
+    }
+
+    /*
+     * Puts a batch on the target queue, spilling it if the put fails.
+     * Returns true if the put succeeded.
+     */
+    private boolean putBatch(List<Task> batch) {
+        inFlight = batch;
+        try {
+            target.put(batch.toArray(new Task[batch.size()]));
+            return true;
+        } catch (Exception e) {
+            log.warn("Unable to put {} tasks on queue {}, spilling to {}: {}",
+                     batch.size(), getName(), spillDir.getAbsolutePath(),
+                     e.getMessage());
+            spill(batch);
+            retryAfter = System.currentTimeMillis() + retryIntervalMs;
+            return false;
+        } finally {
+            inFlight = null;
+        }
+    }
+
+    /*
+     * Appends tasks to this queue's spill file
+     */
+    private void spill(List<Task> tasks) {
+        synchronized (spillLock) {
+            try {
+                if (null == spillOut) {
+                    spillOut = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(spillFile, true)));
+                }
+                for (Task task : tasks) {
+                    writeTask(spillOut, task);
+                }
+                spillOut.flush();
+                spillPending = true;
+            } catch (IOException e) {
+                log.error("Unable to spill tasks to {}, tasks lost: {}. Error: {}",
+                          spillFile.getAbsolutePath(), tasks, e.getMessage());
+            }
+        }
+    }
+
+    private void closeSpill() {
+        synchronized (spillLock) {
+            if (null != spillOut) {
+                try {
+                    spillOut.close();
+                } catch (IOException e) {
+                    log.warn("Error closing spill file {}: {}",
+                             spillFile.getAbsolutePath(), e.getMessage());
+                }
+                spillOut = null;
+            }
+        }
+    }
+
+    /*
+     * Puts the tasks in spill files on the target queue. Only this queue's
+     * spill file and files which do not belong to an open queue are
+     * replayed. Returns true if any tasks were replayed.
+     */
+    private boolean replaySpilled() {
+        Set<String> otherFiles = new HashSet<>();
+        synchronized (openQueues) {
+            for (BufferedTaskQueue queue : openQueues) {
+                if (queue != this) {
+                    otherFiles.add(queue.spillFile.getName());
+                }
+            }
+        }
+
+        File[] files = spillDir.listFiles(
+            (dir, name) -> name.endsWith(SPILL_SUFFIX) && !otherFiles.contains(name));
+        if (null == files || files.length == 0) {
+            spillPending = false;
+            return false;
+        }
+
+        boolean replayed = false;
+        for (File file : files) {
+            File claimed = new File(spillDir, file.getName() + REPLAY_SUFFIX);
+            synchronized (spillLock) {
+                if (file.equals(spillFile)) {
+                    closeSpill();
+                }
+                if (!file.renameTo(claimed)) {
+                    continue;
+                }
+            }
+            replayed = true;
+            if (!replayFile(claimed)) {
+                return true;
+            }
+        }
+        return replayed;
+    }
+
+    /*
+     * Puts the tasks in a claimed spill file on the target queue, then
+     * removes the file. Tasks which are not put are spilled again. Returns
+     * false if a put failed.
+     */
+    private boolean replayFile(File file) {
+        List<Task> tasks = readTasks(file);
+        log.info("Replaying {} spilled tasks from {} to queue {}",
+                 tasks.size(), file.getAbsolutePath(), getName());
+
+        boolean success = true;
+        for (int i = 0; i < tasks.size(); i += batchSize) {
+            List<Task> batch = tasks.subList(i, Math.min(i + batchSize, tasks.size()));
+            if (closed || !putBatch(batch)) {
+                if (closed) {
+                    spill(batch);
+                }
+                spill(tasks.subList(i + batch.size(), tasks.size()));
+                success = false;
+                break;
+            }
+        }
+        file.delete();
+        return success;
+    }
+
+    /*
+     * Returns replay files left by a process which stopped during a replay to
+     * the set of spill files
+     */
+    private static void restoreReplayFiles(File spillDir) {
+        File[] files = spillDir.listFiles(
+            (dir, name) -> name.endsWith(SPILL_SUFFIX + REPLAY_SUFFIX));
+        if (null != files) {
+            for (File file : files) {
+                String name = file.getName();
+                file.renameTo(new File(spillDir, name.substring(
+                    0, name.length() - REPLAY_SUFFIX.length())));
+            }
+        }
+    }
+
+    /*
+     * Each record is: task type, property count, then each property key and
+     * value. Values are written as a length and UTF-8 bytes, as they may be
+     * longer than writeUTF allows, with a length of -1 for null.
+     */
+    private void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeUTF(task.getType().name());
+        Map<String, String> properties = task.getProperties();
+        out.writeInt(properties.size());
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            out.writeUTF(property.getKey());
+            String value = property.getValue();
+            if (null == value) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /*
+     * Reads the tasks in a spill file. A partially written final record is
+     * ignored.
+     */
+    private List<Task> readTasks(File file) {
+        List<Task> tasks = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                Task task = new Task();
+                task.setType(Task.Type.valueOf(in.readUTF()));
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    int length = in.readInt();
+                    String value = null;
+                    if (length >= 0) {
+                        byte[] bytes = new byte[length];
+                        in.readFully(bytes);
+                        value = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                    task.addProperty(key, value);
+                }
+                tasks.add(task);
+            }
+        } catch (EOFException e) {
+            // End of the spill file, or a partially written final record
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Unable to read spill file {}, only {} tasks were read: {}",
+                      file.getAbsolutePath(), tasks.size(), e.getMessage());
+        }
+        return tasks;
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops putting tasks on the target queue. A batch which is being put is
+     * allowed to finish, and is written to the spill file if it does not
+     * finish in time (in which case it may be put twice). Tasks remaining in
+     * the buffer, and any later puts, are written to the spill file.
+     */
+    public void close() {
+        closed = true;
+        Thread thread = publisher;
+        if (null != thread && thread != Thread.currentThread()) {
+            try {
+                thread.join(CLOSE_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<Task> batch = inFlight;
+            if (thread.isAlive() && null != batch) {
+                log.warn("Put of {} tasks on queue {} did not finish on close, " +
+                         "spilling them", batch.size(), getName());
+                spill(batch);
+            }
+        }
+
+        List<Task> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+            log.info("Spilled {} buffered tasks for queue {} on close",
+                     remaining.size(), getName());
+        }
+        closeSpill();
+        openQueues.remove(this);
+    }
+
+    private static void closeAll() {
+        List<BufferedTaskQueue> queues;
+        synchronized (openQueues) {
+            queues = new ArrayList<>(openQueues);
+        }
+        for (BufferedTaskQueue queue : queues) {
+            queue.close();
+        }
+    }
+
+    /*
+     * Operations other than puts are passed through to the target queue
+     */
+
+    @Override
+    public Task take() throws TimeoutException {
+        return target.take();
+    }
+
+    @Override
+    public Set<Task> take(int maxTasks) throws TimeoutException {
+        return target.take(maxTasks);
+    }
+
+    @Override
+    public void extendVisibilityTimeout(Task task) throws TaskNotFoundException {
+        target.extendVisibilityTimeout(task);
+    }
+
+    @Override
+    public void deleteTask(Task task) throws TaskNotFoundException {
+        target.deleteTask(task);
+    }
+
+    @Override
+    public void deleteTasks(Set<Task> tasks) throws TaskException {
+        target.deleteTasks(tasks);
+    }
+
+    @Override
+    public Integer size() {
+        return target.size();
+    }
+
+    @Override
+    public Integer sizeIncludingInvisibleAndDelayed() {
+        return target.sizeIncludingInvisibleAndDelayed();
+    }
+
+    @Override
+    public void requeue(Task task) {
+        target.requeue(task);
+    }
+
+}
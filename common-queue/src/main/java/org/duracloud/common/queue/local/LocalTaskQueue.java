@@ -9,12 +9,16 @@ package org.duracloud.common.queue.local;
 
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.duracloud.common.queue.TaskException;
 import org.duracloud.common.queue.TaskNotFoundException;
@@ -25,49 +29,69 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class implements a local, in-memory task queue. (It is intended to use
- * for testing purposes.)
+ * This class implements a local, in-memory task queue. It is intended for
+ * testing and for single node deployments, and behaves like the remote
+ * queues: takes wait for tasks to become available, and a task which is
+ * taken but not deleted within its visibility timeout is made visible again.
+ *
+ * Each task taken is a copy of the task put, carrying a receipt handle which
+ * identifies that delivery. Deleting, requeuing, or extending the visibility
+ * of a task after it has been redelivered fails as the task is not found.
  *
  * @author Daniel Bernstein Date: Oct 24, 2013
  */
 public class LocalTaskQueue implements TaskQueue {
-    private Queue<Task> queue;
+
+    public static final long DEFAULT_VISIBILITY_TIMEOUT_MS = 5 * 60 * 1000;
+    public static final long DEFAULT_TAKE_WAIT_MS = 1000;
+
+    public enum MsgProp {
+        RECEIPT_HANDLE;
+    }
+
     private Logger log = LoggerFactory.getLogger(LocalTaskQueue.class);
-    private List<Task> inprocess;
-    private long completedCount = 0;
+    private BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+    private Map<String, Lease> inprocess = new ConcurrentHashMap<>();
+    private DelayQueue<Lease> leases = new DelayQueue<>();
+    private AtomicLong completedCount = new AtomicLong(0);
+    private long visibilityTimeoutMs;
+    private long takeWaitMs;
     private String name = "local-task-queue-" + System.currentTimeMillis();
 
+    public LocalTaskQueue() {
+        this(DEFAULT_VISIBILITY_TIMEOUT_MS, DEFAULT_TAKE_WAIT_MS);
+    }
+
     /**
-     *
+     * @param visibilityTimeoutMs time a taken task remains invisible before it
+     *                            is made available to be taken again
+     * @param takeWaitMs          maximum time a take waits for a task
      */
+    public LocalTaskQueue(long visibilityTimeoutMs, long takeWaitMs) {
+        this.visibilityTimeoutMs = visibilityTimeoutMs;
+        this.takeWaitMs = takeWaitMs;
+    }
 
     @Override
     public String getName() {
         return this.name;
     }
 
-    public LocalTaskQueue() {
-        queue = new LinkedBlockingQueue<>();
-        inprocess = new LinkedList<>();
-    }
-
     /* (non-Javadoc)
      * @see org.duracloud.queue.TaskQueue#put(org.duracloud.queue.task.Task)
      */
     @Override
-    public synchronized void put(Task task) {
+    public void put(Task task) {
         queue.add(task);
     }
 
     @Override
-    public synchronized void put(Task... tasks) {
-        Set<Task> taskSet = new HashSet<>();
-        taskSet.addAll(Arrays.asList(tasks));
-        this.put(taskSet);
+    public void put(Task... tasks) {
+        queue.addAll(Arrays.asList(tasks));
     }
 
     @Override
-    public synchronized void put(Set<Task> tasks) {
+    public void put(Set<Task> tasks) {
         queue.addAll(tasks);
     }
 
@@ -75,14 +99,87 @@ public class LocalTaskQueue implements TaskQueue {
      * @see org.duracloud.queue.TaskQueue#take()
      */
     @Override
-    public synchronized Task take() throws TimeoutException {
+    public Task take() throws TimeoutException {
+        return take(1).iterator().next();
+    }
+
+    @Override
+    public Set<Task> take(int maxTasks) throws TimeoutException {
+        Task task = poll();
+        if (null == task) {
+            throw new TimeoutException("No tasks available from queue: " + name);
+        }
+
+        Set<Task> tasks = new HashSet<>();
+        tasks.add(deliver(task));
+        while (tasks.size() < maxTasks && null != (task = queue.poll())) {
+            tasks.add(deliver(task));
+        }
+        return tasks;
+    }
+
+    /*
+     * Waits up to the take wait time for a task, waking early to make visible
+     * any tasks whose visibility timeout expires in the meantime.
+     */
+    private Task poll() throws TimeoutException {
+        long end = System.currentTimeMillis() + takeWaitMs;
         try {
-            Task task = queue.remove();
-            inprocess.add(task);
-            return task;
-        } catch (NoSuchElementException ex) {
-            throw new TimeoutException(ex);
+            while (true) {
+                restoreExpired();
+                long wait = end - System.currentTimeMillis();
+                Lease next = leases.peek();
+                if (null != next) {
+                    wait = Math.min(wait, next.getDelay(TimeUnit.MILLISECONDS));
+                }
+                Task task = queue.poll(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+                if (null != task || System.currentTimeMillis() >= end) {
+                    return task;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException(e);
+        }
+    }
+
+    private void restoreExpired() {
+        Lease lease;
+        while (null != (lease = leases.poll())) {
+            if (lease.isExpired() && inprocess.remove(lease.receiptHandle, lease)) {
+                log.info("visibility timeout expired, making visible {}", lease.task);
+                queue.add(lease.task);
+            }
+        }
+    }
+
+    private Task deliver(Task task) {
+        Lease lease = new Lease(UUID.randomUUID().toString(), task,
+                                System.currentTimeMillis() + visibilityTimeoutMs);
+        inprocess.put(lease.receiptHandle, lease);
+        leases.add(lease);
+
+        Task delivered = copy(task);
+        delivered.addProperty(MsgProp.RECEIPT_HANDLE.name(), lease.receiptHandle);
+        delivered.setVisibilityTimeout((int) TimeUnit.MILLISECONDS.toSeconds(visibilityTimeoutMs));
+        return delivered;
+    }
+
+    private Task copy(Task task) {
+        Task copy = new Task();
+        copy.setType(task.getType());
+        copy.getProperties().putAll(task.getProperties());
+        return copy;
+    }
+
+    private Lease getLease(Task task) throws TaskNotFoundException {
+        String receiptHandle = task.getProperty(MsgProp.RECEIPT_HANDLE.name());
+        Lease lease = null == receiptHandle ? null : inprocess.get(receiptHandle);
+        if (null == lease) {
+            log.error("{} not found.", task);
+            throw new TaskNotFoundException("task not found:" + task.toString());
         }
+        return lease;
     }
 
     /* (non-Javadoc)
@@ -90,41 +187,55 @@ public class LocalTaskQueue implements TaskQueue {
      */
     @Override
     public void extendVisibilityTimeout(Task task) throws TaskNotFoundException {
-        log.info("extending visibility time on {}", task);
+        Lease lease = getLease(task);
+        Lease extended = new Lease(lease.receiptHandle, lease.task,
+                                   System.currentTimeMillis() + visibilityTimeoutMs);
+        if (!inprocess.replace(lease.receiptHandle, lease, extended)) {
+            throw new TaskNotFoundException("task not found:" + task.toString());
+        }
+        leases.add(extended);
+        log.info("extended visibility timeout {} ms for {}", visibilityTimeoutMs, task);
     }
 
     /* (non-Javadoc)
      * @see org.duracloud.queue.TaskQueue#deleteTask(org.duracloud.queue.task.Task)
      */
     @Override
-    public synchronized void deleteTask(Task task) throws TaskNotFoundException {
-        if (!this.inprocess.contains(task)) {
-            log.error("{} not found.", task);
-
+    public void deleteTask(Task task) throws TaskNotFoundException {
+        Lease lease = getLease(task);
+        if (!inprocess.remove(lease.receiptHandle, lease)) {
             throw new TaskNotFoundException("task not found:" + task.toString());
         }
-
-        this.inprocess.remove(task);
-        this.completedCount++;
+        this.completedCount.incrementAndGet();
         log.info("{} complete", task);
     }
 
+    @Override
+    public void deleteTasks(Set<Task> tasks) throws TaskException {
+        for (Task task : tasks) {
+            deleteTask(task);
+        }
+    }
+
     @Override
     public Integer size() {
+        restoreExpired();
         return queue.size();
     }
 
     public int getInprocessCount() {
+        restoreExpired();
         return this.inprocess.size();
     }
 
     public long getCompletedCount() {
-        return completedCount;
+        return completedCount.get();
     }
 
     @Override
     public Integer sizeIncludingInvisibleAndDelayed() {
-        return size();
+        restoreExpired();
+        return queue.size() + inprocess.size();
     }
 
     /* (non-Javadoc)
@@ -132,23 +243,50 @@ public class LocalTaskQueue implements TaskQueue {
      */
     @Override
     public void requeue(Task task) {
-        this.inprocess.remove(task);
         task.incrementAttempts();
-        this.queue.add(task);
+        try {
+            Lease lease = getLease(task);
+            inprocess.remove(lease.receiptHandle, lease);
+        } catch (TaskNotFoundException e) {
+            log.error("unable to delete " + task + " ignoring - requeuing anyway");
+        }
+
+        Task requeued = copy(task);
+        requeued.removeProperty(MsgProp.RECEIPT_HANDLE.name());
+        queue.add(requeued);
     }
 
-    @Override
-    public void deleteTasks(Set<Task> tasks) throws TaskException {
-        for (Task task : tasks) {
-            deleteTask(task);
+    /*
+     * A taken task along with the time at which it becomes visible again.
+     * Leases which are deleted or extended are left on the delay queue and
+     * ignored when they expire, as they are no longer in process.
+     */
+    private static class Lease implements Delayed {
+        private final String receiptHandle;
+        private final Task task;
+        private final long visibleAt;
+
+        Lease(String receiptHandle, Task task, long visibleAt) {
+            this.receiptHandle = receiptHandle;
+            this.task = task;
+            this.visibleAt = visibleAt;
         }
-    }
 
-    @Override
-    public Set<Task> take(int maxTasks) throws TimeoutException {
-        Set<Task> set = new HashSet<Task>(1);
-        set.add(this.take());
-        return set;
+        boolean isExpired() {
+            return System.currentTimeMillis() >= visibleAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(visibleAt - System.currentTimeMillis(),
+                                TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS),
+                                other.getDelay(TimeUnit.MILLISECONDS));
+        }
     }
 
 }
@@ -8,26 +8,35 @@
 package org.duracloud.common.queue.rabbitmq;
 
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
-import java.util.Properties;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
-import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ShutdownSignalException;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.duracloud.common.error.DuraCloudRuntimeException;
 import org.duracloud.common.queue.TaskException;
 import org.duracloud.common.queue.TaskNotFoundException;
 import org.duracloud.common.queue.TaskQueue;
 import org.duracloud.common.queue.TimeoutException;
+import org.duracloud.common.queue.task.PropertiesTaskCodec;
 import org.duracloud.common.queue.task.Task;
-import org.duracloud.common.retry.Retriable;
+import org.duracloud.common.queue.task.TaskCodec;
 import org.duracloud.common.retry.Retrier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,21 +45,46 @@ import org.slf4j.LoggerFactory;
  * RabbitMQ implementation of the TaskQueue
  * emulates the functionality of a queue.
  *
+ * Channels are not shared between threads. Tasks are published on channels
+ * taken from a pool, with each put (of one or many tasks) published in full
+ * before waiting once for the broker to confirm the whole batch. Tasks are
+ * taken from a consumer, started on the first take, which receives up to the
+ * prefetch count of messages ahead of the takes. Since delivery tags belong
+ * to the channel on which a message was delivered, tasks are acknowledged
+ * and rejected on the consumer channel.
+ *
  * @author Shibo Liu
  * Date: 07/03/19
  */
 public class RabbitmqTaskQueue implements TaskQueue {
     private static Logger log = LoggerFactory.getLogger(RabbitmqTaskQueue.class);
 
-    private Channel mqChannel;
+    public static final int DEFAULT_PUBLISH_CHANNELS = 4;
+    public static final int DEFAULT_PREFETCH = 10;
+    private static final long CONFIRM_TIMEOUT_MS = 30000;
+    private static final long TAKE_WAIT_MS = 1000;
+
+    private Connection connection;
     private String queueName;
     private Integer visibilityTimeout = -1;  // No such thing in RabbitmQ
-    private Integer unAcknowlededMesageCount = 0;
     private String queueUrl;
     private String exchangeName;
+    private TaskCodec taskCodec = new PropertiesTaskCodec();
+
+    // Idle publishing channels, up to maxPublishChannels are created
+    private BlockingQueue<Channel> publishChannels;
+    private AtomicInteger publishChannelCount = new AtomicInteger(0);
+    private int maxPublishChannels;
+
+    private int prefetch;
+    private final Object consumerLock = new Object();
+    private volatile Channel consumerChannel;
+    private volatile String consumerTag;
+    private BlockingQueue<Task> delivered = new LinkedBlockingQueue<>();
+    private AtomicInteger unacknowledgedCount = new AtomicInteger(0);
 
     public enum MsgProp {
-        DELIVERY_TAG, ROUTING_KEY, EXCHANGE
+        DELIVERY_TAG, ROUTING_KEY, EXCHANGE, CONSUMER_TAG
     }
 
     /**
@@ -60,18 +94,14 @@ public class RabbitmqTaskQueue implements TaskQueue {
     public RabbitmqTaskQueue(String host, Integer port, String vhost, String exchange, String username, String password,
                              String queueName) {
         try {
-            this.exchangeName = exchange;
             ConnectionFactory factory = new ConnectionFactory();
             factory.setUsername(username);
             factory.setPassword(password);
             factory.setVirtualHost(vhost);
             factory.setHost(host);
             factory.setPort(port);
-            Connection conn = factory.newConnection();
-            mqChannel = conn.createChannel();
-            mqChannel.queueBind(queueName, exchangeName, queueName);
-            queueUrl = "(RabbitMQ) " + conn.getAddress();
-            this.queueName = queueName;
+            init(factory.newConnection(), exchange, queueName,
+                 DEFAULT_PUBLISH_CHANNELS, DEFAULT_PREFETCH);
         } catch (Exception ex) {
             log.error("Failed to estabilish connection to RabbitMQ with queue name {} and URL {} because {}",
                       queueName, queueUrl, ex.getMessage());
@@ -80,12 +110,20 @@ public class RabbitmqTaskQueue implements TaskQueue {
     }
 
     public RabbitmqTaskQueue(Connection conn, String exchange, String queueName) {
+        this(conn, exchange, queueName, DEFAULT_PUBLISH_CHANNELS, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * @param conn            connection to the RabbitMQ server
+     * @param exchange        exchange bound to the queue
+     * @param queueName       name of the queue, also used as the routing key
+     * @param publishChannels the maximum number of channels used for puts
+     * @param prefetch        the number of messages delivered ahead of takes
+     */
+    public RabbitmqTaskQueue(Connection conn, String exchange, String queueName,
+                             int publishChannels, int prefetch) {
         try {
-            this.exchangeName = exchange;
-            mqChannel = conn.createChannel();
-            mqChannel.queueBind(queueName, exchange, queueName);
-            queueUrl = "(RabbitMQ) " + conn.getAddress();
-            this.queueName = queueName;
+            init(conn, exchange, queueName, publishChannels, prefetch);
         } catch (Exception ex) {
             log.error("Failed to estabilish connection to RabbitMQ with queue name {} and URL {} because {}",
                       queueName, queueUrl, ex.getMessage());
@@ -93,27 +131,36 @@ public class RabbitmqTaskQueue implements TaskQueue {
         }
     }
 
+    private void init(Connection conn, String exchange, String queueName,
+                      int publishChannels, int prefetch) throws IOException {
+        this.connection = conn;
+        this.exchangeName = exchange;
+        this.queueName = queueName;
+        this.maxPublishChannels = Math.max(publishChannels, 1);
+        this.publishChannels = new LinkedBlockingQueue<>(maxPublishChannels);
+        this.prefetch = prefetch;
+
+        Channel channel = borrowChannel();
+        boolean success = false;
+        try {
+            channel.queueBind(queueName, exchange, queueName);
+            success = true;
+        } finally {
+            releaseChannel(channel, success);
+        }
+        queueUrl = "(RabbitMQ) " + conn.getAddress();
+    }
+
     @Override
     public String getName() {
         return this.queueName;
     }
 
     protected Task marshallTask(byte[] msgBody, long deliveryTag, String routingKey, String exchange) {
-        Properties props = new Properties();
         Task task = null;
-        String msg = new String(msgBody);
         try {
-            props.load(new StringReader(msg));
-
-            if (props.containsKey(Task.KEY_TYPE)) {
-                task = new Task();
-                for (final String key : props.stringPropertyNames()) {
-                    if (key.equals(Task.KEY_TYPE)) {
-                        task.setType(Task.Type.valueOf(props.getProperty(key)));
-                    } else {
-                        task.addProperty(key, props.getProperty(key));
-                    }
-                }
+            task = taskCodec.decode(new String(msgBody, StandardCharsets.UTF_8));
+            if (null != task) {
                 task.addProperty(MsgProp.DELIVERY_TAG.name(), String.valueOf(deliveryTag));
                 task.addProperty(MsgProp.ROUTING_KEY.name(), routingKey);
                 task.addProperty(MsgProp.EXCHANGE.name(), exchange);
@@ -128,130 +175,233 @@ public class RabbitmqTaskQueue implements TaskQueue {
     }
 
     protected String unmarshallTask(Task task) {
-        Properties props = new Properties();
-        props.setProperty(Task.KEY_TYPE, task.getType().name());
-        for (String key : task.getProperties().keySet()) {
-            String value = task.getProperty(key);
-            if (null != value) {
-                props.setProperty(key, value);
+        return taskCodec.encode(task);
+    }
+
+    /**
+     * Sets the codec used to encode tasks put on the queue, by default a
+     * PropertiesTaskCodec. Tasks taken from the queue are decoded using the
+     * same codec; both provided codecs decode either format.
+     *
+     * @param taskCodec
+     */
+    public void setTaskCodec(TaskCodec taskCodec) {
+        this.taskCodec = taskCodec;
+    }
+
+    /*
+     * Takes an idle publishing channel, creating one if fewer than the
+     * maximum exist, or otherwise waiting for one to be released
+     */
+    private Channel borrowChannel() throws IOException {
+        Channel channel = publishChannels.poll();
+        if (null != channel) {
+            return channel;
+        }
+        if (publishChannelCount.incrementAndGet() <= maxPublishChannels) {
+            try {
+                channel = connection.createChannel();
+                channel.confirmSelect();
+                return channel;
+            } catch (IOException | RuntimeException e) {
+                publishChannelCount.decrementAndGet();
+                throw e;
             }
         }
-        StringWriter sw = new StringWriter();
-        String msgBody = null;
+        publishChannelCount.decrementAndGet();
         try {
-            props.store(sw, null);
-            msgBody = sw.toString();
-        } catch (IOException ioe) {
-            log.error("Error unmarshalling Task, queue: " + queueName +
-                      ", msgBody: " + msgBody, ioe);
+            return publishChannels.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a RabbitMQ channel", e);
+        }
+    }
+
+    /*
+     * Returns a channel to the pool. Channels which failed are closed and
+     * replaced as needed.
+     */
+    private void releaseChannel(Channel channel, boolean success) {
+        if (success && channel.isOpen()) {
+            publishChannels.offer(channel);
+            return;
+        }
+        publishChannelCount.decrementAndGet();
+        try {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+        } catch (Exception e) {
+            log.debug("Error closing RabbitMQ channel: {}", e.getMessage());
         }
-        return msgBody;
     }
 
     @Override
     public void put(final Task task) {
+        putBatch(Arrays.asList(task));
+    }
+
+    @Override
+    public void put(Task... tasks) {
+        putBatch(Arrays.asList(tasks));
+    }
+
+    @Override
+    public void put(Set<Task> tasks) {
+        putBatch(tasks);
+    }
+
+    /*
+     * Publishes all tasks on one channel, then waits for the broker to
+     * confirm them. If any is not confirmed, the batch is published again.
+     */
+    private void putBatch(Collection<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
         try {
-            String queueName = this.queueName;
-            final String msgBody = unmarshallTask(task);
-            byte[] messageBodyBytes = msgBody.getBytes();
-            new Retrier(4, 10000, 2).execute(new Retriable() {
-                @Override
-                public Object retry() throws Exception {
-                    mqChannel.basicPublish(exchangeName, queueName, null, messageBodyBytes);
-                    return null;
-                }
+            List<byte[]> messages = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                messages.add(unmarshallTask(task).getBytes(StandardCharsets.UTF_8));
+            }
+            new Retrier(4, 10000, 2).execute(() -> {
+                publish(messages);
+                return null;
             });
-            unAcknowlededMesageCount++;
-            log.info("RabbitMQ message successfully placed {} on queue - queue: {}",
-                     task, queueName);
-
+            log.info("{} RabbitMQ messages successfully placed on queue: {}",
+                     tasks.size(), queueName);
         } catch (Exception ex) {
-            log.error("failed to place {} on {} at {} due to {}", task, queueName, queueUrl, ex.getMessage());
+            log.error("failed to place {} on {} at {} due to {}", tasks, queueName, queueUrl, ex.getMessage());
             throw new DuraCloudRuntimeException(ex);
         }
     }
 
-    /**
-     * Convenience method that calls put(Set<Task>)
-     *
-     * @param tasks
+    private void publish(List<byte[]> messages) throws Exception {
+        AMQP.BasicProperties props =
+            new AMQP.BasicProperties.Builder().timestamp(new Date()).build();
+        Channel channel = borrowChannel();
+        boolean success = false;
+        try {
+            for (byte[] message : messages) {
+                channel.basicPublish(exchangeName, queueName, props, message);
+            }
+            channel.waitForConfirmsOrDie(CONFIRM_TIMEOUT_MS);
+            success = true;
+        } finally {
+            releaseChannel(channel, success);
+        }
+    }
+
+    /*
+     * Starts the consumer which receives messages for takes, unless it is
+     * already running
      */
-    @Override
-    public void put(Task... tasks) {
-        for (Task task : tasks) {
-            this.put(task);
+    private void startConsumer() throws IOException {
+        synchronized (consumerLock) {
+            if (null != consumerChannel && consumerChannel.isOpen()) {
+                return;
+            }
+            // Messages which were delivered to an earlier consumer are
+            // redelivered by the broker
+            unacknowledgedCount.set(0);
+            Channel channel = connection.createChannel();
+            channel.basicQos(prefetch);
+            consumerTag = channel.basicConsume(queueName, false, new DefaultConsumer(channel) {
+                @Override
+                public void handleDelivery(String tag, Envelope envelope,
+                                           AMQP.BasicProperties properties,
+                                           byte[] body) throws IOException {
+                    receive(getChannel(), tag, envelope, properties, body);
+                }
+
+                @Override
+                public void handleShutdownSignal(String tag, ShutdownSignalException sig) {
+                    log.warn("RabbitMQ consumer for queue {} at {} shut down: {}",
+                             queueName, queueUrl, sig.getMessage());
+                }
+            });
+            consumerChannel = channel;
         }
     }
 
-    @Override
-    public void put(Set<Task> tasks) {
-        for (Task task : tasks) {
-            this.put(task);
+    /*
+     * Handles a message delivered to the consumer
+     */
+    private void receive(Channel channel, String tag, Envelope envelope,
+                         AMQP.BasicProperties properties, byte[] body)
+        throws IOException {
+        long deliveryTag = envelope.getDeliveryTag();
+        Task task = marshallTask(body, deliveryTag, envelope.getRoutingKey(),
+                                 envelope.getExchange());
+        if (null == task) {
+            // Not a task, so it cannot be processed
+            synchronized (consumerLock) {
+                channel.basicReject(deliveryTag, false);
+            }
+            return;
         }
+        task.addProperty(MsgProp.CONSUMER_TAG.name(), tag);
+        task.setVisibilityTimeout(visibilityTimeout);
+
+        if (null != properties && null != properties.getTimestamp()) {
+            long preworkQueueTime =
+                System.currentTimeMillis() - properties.getTimestamp().getTime();
+            log.info("RabbitMQ message received - queue: {}, queueUrl: {}, deliveryTag: {}, preworkQueueTime: {}",
+                     queueName, queueUrl, deliveryTag,
+                     DurationFormatUtils.formatDuration(preworkQueueTime, "HH:mm:ss,SSS"));
+        }
+        unacknowledgedCount.incrementAndGet();
+        delivered.add(task);
+    }
+
+    /*
+     * Returns the next delivered task from the current consumer, waiting up
+     * to the given time. Tasks delivered to an earlier consumer are dropped,
+     * as they will be redelivered.
+     */
+    private Task nextDelivered(long waitMs) throws InterruptedException {
+        long end = System.currentTimeMillis() + waitMs;
+        Task task = delivered.poll(waitMs, TimeUnit.MILLISECONDS);
+        while (null != task && !isCurrentConsumer(task)) {
+            task = delivered.poll(Math.max(end - System.currentTimeMillis(), 0),
+                                  TimeUnit.MILLISECONDS);
+        }
+        return task;
+    }
+
+    private boolean isCurrentConsumer(Task task) {
+        return task.getProperty(MsgProp.CONSUMER_TAG.name()).equals(consumerTag);
     }
 
     @Override
     public Set<Task> take(int maxTasks) throws TimeoutException {
-        Integer size = size();
-        if (size > 0) {
-            if (size < maxTasks) {
-                size = maxTasks;
+        try {
+            startConsumer();
+            Task task = nextDelivered(TAKE_WAIT_MS);
+            if (null == task) {
+                throw new TimeoutException("No tasks available from queue: " +
+                                           queueName + ", queueUrl: " + queueUrl);
             }
             Set<Task> tasks = new HashSet<>();
-            try {
-                for (int i = 0; i < size; i++) {
-                    Task task = take();
-                    tasks.add(task);
-                }
-                return tasks;
-            } catch (Exception e) {
-                for (Task task : tasks) {
-                    requeue(task);
-                }
-                throw new TimeoutException("Failed to get at least one message from queue: " +
-                                           queueName + ", queueUrl: " + queueUrl);
+            tasks.add(task);
+            while (tasks.size() < maxTasks && null != (task = nextDelivered(0))) {
+                tasks.add(task);
             }
-        } else {
+            return tasks;
+        } catch (IOException ex) {
+            log.error("failed to take task from " + queueName + " due to " + ex.getMessage(), ex);
             throw new TimeoutException("No tasks available from queue: " +
                                        queueName + ", queueUrl: " + queueUrl);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted taking from queue: " +
+                                       queueName + ", queueUrl: " + queueUrl);
         }
     }
 
     @Override
     public Task take() throws TimeoutException {
-        Integer size = size();
-        if (size > 0) {
-            try {
-                GetResponse response = mqChannel.basicGet(queueName, false);
-                if (response == null) {
-                    throw new TimeoutException("No tasks available from queue: " +
-                                               queueName + ", queueUrl: " + queueUrl);
-                } else {
-                    AMQP.BasicProperties properties = response.getProps();
-                    Envelope envelope = response.getEnvelope();
-                    byte[] body = response.getBody();
-                    String routingKey = envelope.getRoutingKey();
-                    String exchange = envelope.getExchange();
-                    long deliveryTag = envelope.getDeliveryTag();
-                    Long sentTime = properties.getTimestamp().getTime();
-                    Long preworkQueueTime = System.currentTimeMillis() - sentTime;
-                    log.info(
-                        "RabbitMQ message received - queue: {}, queueUrl: {}, deliveryTag: {}, preworkQueueTime: {}"
-                        , queueName, queueUrl, deliveryTag
-                        , DurationFormatUtils.formatDuration(preworkQueueTime, "HH:mm:ss,SSS"));
-                    Task task = marshallTask(body, deliveryTag, routingKey, exchange);
-                    task.setVisibilityTimeout(visibilityTimeout);
-                    return task;
-                }
-            } catch (Exception ex) {
-                log.error("failed to take task from " + queueName + " due to " + ex.getMessage(), ex);
-                throw new TimeoutException("No tasks available from queue: " +
-                                           queueName + ", queueUrl: " + queueUrl);
-            }
-        } else {
-            throw new TimeoutException("No tasks available from queue: " +
-                                       queueName + ", queueUrl: " + queueUrl);
-        }
+        return take(1).iterator().next();
     }
 
 
@@ -262,12 +412,30 @@ public class RabbitmqTaskQueue implements TaskQueue {
     public void extendVisibilityTimeout(Task task) throws TaskNotFoundException {
     }
 
+    /*
+     * Returns the consumer channel if the task was delivered on it
+     */
+    private Channel getDeliveryChannel(Task task) throws IOException {
+        Channel channel = consumerChannel;
+        if (null == channel || !channel.isOpen() || !isCurrentConsumer(task)) {
+            throw new IOException("The channel on which the task was delivered " +
+                                  "is closed, the message will be redelivered");
+        }
+        return channel;
+    }
+
+    private long getDeliveryTag(Task task) {
+        return Long.parseLong(task.getProperty(MsgProp.DELIVERY_TAG.name()));
+    }
+
     @Override
     public void deleteTask(Task task) throws TaskNotFoundException {
         try {
-            mqChannel.basicAck(Long.parseLong(task.getProperty(MsgProp.DELIVERY_TAG.name())), false);
+            synchronized (consumerLock) {
+                getDeliveryChannel(task).basicAck(getDeliveryTag(task), false);
+            }
             log.info("successfully deleted {}", task);
-            unAcknowlededMesageCount--;
+            unacknowledgedCount.decrementAndGet();
 
         } catch (Exception e) {
             log.error("failed to delete task " + task + ": " + e.getMessage(), e);
@@ -301,11 +469,29 @@ public class RabbitmqTaskQueue implements TaskQueue {
     public void requeue(Task task) {
         int attempts = task.getAttempts();
         task.incrementAttempts();
+        boolean rejected = false;
         try {
-            mqChannel.basicReject(Long.parseLong(task.getProperty(MsgProp.DELIVERY_TAG.name())), true);
-            unAcknowlededMesageCount--;
+            synchronized (consumerLock) {
+                Channel channel;
+                try {
+                    channel = getDeliveryChannel(task);
+                } catch (IOException e) {
+                    // The broker redelivers messages which were not
+                    // acknowledged before their channel closed, so putting
+                    // the task again would duplicate it
+                    log.warn("not requeueing {}: {}", task, e.getMessage());
+                    return;
+                }
+                channel.basicReject(getDeliveryTag(task), true);
+                rejected = true;
+            }
         } catch (Exception e) {
             log.error("unable to reject message {}, re-put message instead ", task);
+        }
+
+        if (rejected) {
+            unacknowledgedCount.decrementAndGet();
+        } else {
             put(task);
         }
 
@@ -315,18 +501,30 @@ public class RabbitmqTaskQueue implements TaskQueue {
 
     @Override
     public Integer size() {
+        Channel channel = null;
+        boolean success = false;
         try {
-            Long sizeLong = mqChannel.messageCount(queueName);
+            channel = borrowChannel();
+            Long sizeLong = channel.messageCount(queueName);
+            success = true;
             return sizeLong.intValue();
         } catch (Exception e) {
             return 0;
+        } finally {
+            if (null != channel) {
+                releaseChannel(channel, success);
+            }
         }
     }
 
+    /**
+     * @return The number of messages waiting on the broker, plus those which
+     * have been delivered to this queue and not yet acknowledged or rejected
+     */
     @Override
     public Integer sizeIncludingInvisibleAndDelayed() {
 
-        return size() + unAcknowlededMesageCount;
+        return size() + unacknowledgedCount.get();
     }
 
     private Integer getVisibilityTimeout() {
@@ -0,0 +1,145 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.task;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Encodes tasks in a compact, versioned format. The version and task type
+ * are followed by one line per property, with the key and value separated
+ * by a tab. Backslashes, tabs and line feeds within keys and values are
+ * escaped with a backslash; nothing else is escaped:
+ *
+ * ~1[tab]AUDIT[lf]spaceId[tab]my-space[lf]contentId[tab]file
+ *
+ * Message bodies in the java.util.Properties format are also decoded, as are
+ * compact bodies by PropertiesTaskCodec, so either codec can read a queue
+ * holding both formats. Consumers must be able to decode this format before
+ * producers write it.
+ *
+ * @author agent
+ */
+public class CompactTaskCodec implements TaskCodec {
+
+    public static final int VERSION = 1;
+
+    private static final char MARKER = '~';
+    private static final char ESCAPE = '\\';
+    private static final char SEPARATOR = '\t';
+    private static final char END = '\n';
+    private static final String PREFIX = MARKER + String.valueOf(VERSION) + SEPARATOR;
+
+    private final TaskCodec legacyCodec = new PropertiesTaskCodec();
+
+    @Override
+    public String encode(Task task) {
+        Map<String, String> properties = task.getProperties();
+        StringBuilder body = new StringBuilder(16 + properties.size() * 32);
+        body.append(PREFIX).append(task.getType().name());
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            if (null != property.getValue()) {
+                body.append(END);
+                append(body, property.getKey());
+                body.append(SEPARATOR);
+                append(body, property.getValue());
+            }
+        }
+        return body.toString();
+    }
+
+    private void append(StringBuilder body, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ESCAPE) {
+                body.append(ESCAPE).append(ESCAPE);
+            } else if (c == SEPARATOR) {
+                body.append(ESCAPE).append('t');
+            } else if (c == END) {
+                body.append(ESCAPE).append('n');
+            } else {
+                body.append(c);
+            }
+        }
+    }
+
+    /**
+     * @param body message body
+     * @return true if the message body is in the compact format
+     */
+    public static boolean isCompact(String body) {
+        return !body.isEmpty() && body.charAt(0) == MARKER;
+    }
+
+    @Override
+    public Task decode(String body) throws IOException {
+        if (!isCompact(body)) {
+            return legacyCodec.decode(body);
+        }
+        if (!body.startsWith(PREFIX)) {
+            throw new IOException("Unsupported task encoding: " +
+                                  body.substring(0, Math.min(body.length(), 8)));
+        }
+
+        int typeEnd = body.indexOf(END);
+        if (typeEnd < 0) {
+            typeEnd = body.length();
+        }
+        Task task = new Task();
+        try {
+            task.setType(Task.Type.valueOf(body.substring(PREFIX.length(), typeEnd)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown task type in: " + body, e);
+        }
+
+        int start = typeEnd + 1;
+        while (start <= body.length() && typeEnd < body.length()) {
+            int end = body.indexOf(END, start);
+            if (end < 0) {
+                end = body.length();
+            }
+            int separator = body.indexOf(SEPARATOR, start);
+            if (separator < 0 || separator > end) {
+                throw new IOException("Missing value at " + start + " in: " + body);
+            }
+            int extra = body.indexOf(SEPARATOR, separator + 1);
+            if (extra >= 0 && extra < end) {
+                throw new IOException("Unexpected separator at " + extra + " in: " + body);
+            }
+            task.addProperty(unescape(body, start, separator),
+                             unescape(body, separator + 1, end));
+            start = end + 1;
+        }
+        return task;
+    }
+
+    private String unescape(String body, int start, int end) throws IOException {
+        int escape = body.indexOf(ESCAPE, start);
+        if (escape < 0 || escape >= end) {
+            return body.substring(start, end);
+        }
+
+        StringBuilder value = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = body.charAt(i);
+            if (c != ESCAPE) {
+                value.append(c);
+            } else if (++i < end && body.charAt(i) == ESCAPE) {
+                value.append(ESCAPE);
+            } else if (i < end && body.charAt(i) == 't') {
+                value.append(SEPARATOR);
+            } else if (i < end && body.charAt(i) == 'n') {
+                value.append(END);
+            } else {
+                throw new IOException("Invalid escape at " + (i - 1) + " in: " + body);
+            }
+        }
+        return value.toString();
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.task;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+
+import org.duracloud.common.error.DuraCloudRuntimeException;
+
+/**
+ * Encodes tasks in the java.util.Properties format, the format originally
+ * used for all task queue messages. Message bodies in the compact format
+ * (see CompactTaskCodec) are also decoded.
+ *
+ * @author agent
+ */
+public class PropertiesTaskCodec implements TaskCodec {
+
+    @Override
+    public String encode(Task task) {
+        Properties props = new Properties();
+        props.setProperty(Task.KEY_TYPE, task.getType().name());
+        for (String key : task.getProperties().keySet()) {
+            String value = task.getProperty(key);
+            if (null != value) {
+                props.setProperty(key, value);
+            }
+        }
+        StringWriter sw = new StringWriter();
+        try {
+            props.store(sw, null);
+        } catch (IOException ioe) {
+            throw new DuraCloudRuntimeException("Error encoding task " + task, ioe);
+        }
+        return sw.toString();
+    }
+
+    @Override
+    public Task decode(String body) throws IOException {
+        if (CompactTaskCodec.isCompact(body)) {
+            return new CompactTaskCodec().decode(body);
+        }
+
+        Properties props = new Properties();
+        props.load(new StringReader(body));
+        if (!props.containsKey(Task.KEY_TYPE)) {
+            return null;
+        }
+
+        Task task = new Task();
+        for (final String key : props.stringPropertyNames()) {
+            if (key.equals(Task.KEY_TYPE)) {
+                task.setType(Task.Type.valueOf(props.getProperty(key)));
+            } else {
+                task.addProperty(key, props.getProperty(key));
+            }
+        }
+        return task;
+    }
+
+}
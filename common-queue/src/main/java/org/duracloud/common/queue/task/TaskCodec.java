@@ -0,0 +1,38 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.task;
+
+import java.io.IOException;
+
+/**
+ * Converts tasks to and from the message bodies placed on task queues.
+ * Message bodies are text, as required by SQS.
+ *
+ * @author agent
+ */
+public interface TaskCodec {
+
+    /**
+     * Encodes a task as a message body. Properties with null values are not
+     * included.
+     *
+     * @param task
+     * @return message body
+     */
+    public String encode(Task task);
+
+    /**
+     * Decodes a message body into a task.
+     *
+     * @param body message body
+     * @return the task, or null if the message body does not include a task type
+     * @throws IOException if the message body cannot be read
+     */
+    public Task decode(String body) throws IOException;
+
+}
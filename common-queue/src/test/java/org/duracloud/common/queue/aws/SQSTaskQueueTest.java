@@ -34,7 +34,6 @@ import org.easymock.EasyMockRunner;
 import org.easymock.EasyMockSupport;
 import org.easymock.Mock;
 import org.junit.After;
-import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -112,9 +111,13 @@ public class SQSTaskQueueTest extends EasyMockSupport {
         task.addProperty("key3", "value3");
         String msgBody = queue.unmarshallTask(task);
 
-        Assert.assertTrue(msgBody.contains("key1=value1"));
-        Assert.assertTrue(msgBody.contains("key2=value2"));
-        Assert.assertTrue(msgBody.contains("key3=value3"));
+        Message msg = new Message();
+        msg.setBody(msgBody);
+        Task result = queue.marshallTask(msg);
+        assertThat(result.getType(), is(equalTo(Task.Type.DUP)));
+        assertThat(result.getProperty("key1"), is(equalTo("value1")));
+        assertThat(result.getProperty("key2"), is(equalTo("value2")));
+        assertThat(result.getProperty("key3"), is(equalTo("value3")));
 
     }
 
@@ -0,0 +1,201 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.buffered;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.duracloud.common.queue.local.LocalTaskQueue;
+import org.duracloud.common.queue.task.Task;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author agent
+ */
+public class BufferedTaskQueueTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Test
+    public void testPutBatches() throws Exception {
+        RecordingQueue target = new RecordingQueue();
+        BufferedTaskQueue queue =
+            new BufferedTaskQueue(target, tempDir.newFolder(), 100, 10);
+
+        for (int i = 0; i < 25; i++) {
+            queue.put(createTask(i));
+        }
+        waitFor(() -> target.size() == 25);
+
+        assertTrue(target.getBatchSizes().stream().allMatch(size -> size <= 10));
+        queue.close();
+    }
+
+    @Test
+    public void testSpillWhenFull() throws Exception {
+        RecordingQueue target = new RecordingQueue();
+        target.setFailing(true);
+        File spillDir = tempDir.newFolder();
+        BufferedTaskQueue queue = new BufferedTaskQueue(target, spillDir, 2, 10);
+        queue.setRetryIntervalMs(100);
+
+        // Tasks beyond the buffer capacity, and tasks which fail to be put,
+        // are spilled until the target accepts them
+        for (int i = 0; i < 10; i++) {
+            queue.put(createTask(i));
+        }
+        assertTrue(getSpillFiles(spillDir).length > 0);
+
+        target.setFailing(false);
+        waitFor(() -> target.size() == 10);
+        waitFor(() -> getSpillFiles(spillDir).length == 0);
+        queue.close();
+    }
+
+    @Test
+    public void testReplayAfterClose() throws Exception {
+        RecordingQueue failingTarget = new RecordingQueue();
+        failingTarget.setFailing(true);
+        File spillDir = tempDir.newFolder();
+        BufferedTaskQueue queue = new BufferedTaskQueue(failingTarget, spillDir);
+        for (int i = 0; i < 5; i++) {
+            queue.put(createTask(i));
+        }
+        queue.close();
+        assertEquals(0, queue.getBufferedCount());
+        assertEquals(1, getSpillFiles(spillDir).length);
+
+        // A later queue using the same spill directory replays the tasks
+        RecordingQueue target = new RecordingQueue();
+        BufferedTaskQueue nextQueue = new BufferedTaskQueue(target, spillDir);
+        waitFor(() -> target.size() == 5);
+        waitFor(() -> getSpillFiles(spillDir).length == 0);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(target.take().getProperty("id"));
+        }
+        Collections.sort(ids);
+        assertEquals("[0, 1, 2, 3, 4]", ids.toString());
+        nextQueue.close();
+    }
+
+    @Test
+    public void testCloseWaitsForPut() throws Exception {
+        RecordingQueue target = new RecordingQueue();
+        target.setPutDelayMs(500);
+        File spillDir = tempDir.newFolder();
+        BufferedTaskQueue queue = new BufferedTaskQueue(target, spillDir);
+        queue.put(createTask(0));
+        waitFor(() -> target.isPutting());
+
+        // The batch being put is not lost when the queue is closed
+        queue.close();
+        assertEquals(1, target.size().intValue());
+        assertEquals(0, getSpillFiles(spillDir).length);
+    }
+
+    @Test
+    public void testSpillDirLockedByAnotherProcess() throws Exception {
+        File spillDir = tempDir.newFolder();
+        File replayFile = new File(spillDir, "tasks-other.spill.replay");
+        replayFile.createNewFile();
+
+        try (FileChannel channel = FileChannel.open(
+            new File(spillDir, ".lock").toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            // The files of the process holding the lock are left alone
+            BufferedTaskQueue queue =
+                new BufferedTaskQueue(new RecordingQueue(), spillDir);
+            assertNotEquals(spillDir, queue.getSpillDir());
+            assertEquals(spillDir, queue.getSpillDir().getParentFile());
+            assertTrue(replayFile.exists());
+            queue.close();
+        }
+    }
+
+    private Task createTask(int id) {
+        Task task = new Task();
+        task.setType(Task.Type.AUDIT);
+        task.addProperty("id", String.valueOf(id));
+        task.addProperty("empty", null);
+        return task;
+    }
+
+    private File[] getSpillFiles(File spillDir) {
+        return spillDir.listFiles(
+            (dir, name) -> name.endsWith(BufferedTaskQueue.SPILL_SUFFIX));
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting", System.currentTimeMillis() < end);
+            Thread.sleep(50);
+        }
+    }
+
+    /*
+     * Records the size of each batch put, and fails or delays puts when
+     * set to
+     */
+    private static class RecordingQueue extends LocalTaskQueue {
+        private volatile boolean failing = false;
+        private volatile long putDelayMs = 0;
+        private volatile boolean putting = false;
+        private List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        void setFailing(boolean failing) {
+            this.failing = failing;
+        }
+
+        void setPutDelayMs(long putDelayMs) {
+            this.putDelayMs = putDelayMs;
+        }
+
+        boolean isPutting() {
+            return putting;
+        }
+
+        List<Integer> getBatchSizes() {
+            return batchSizes;
+        }
+
+        @Override
+        public synchronized void put(Task... tasks) {
+            putting = true;
+            if (putDelayMs > 0) {
+                try {
+                    Thread.sleep(putDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing) {
+                throw new RuntimeException("Unable to put tasks");
+            }
+            batchSizes.add(tasks.length);
+            super.put(tasks);
+        }
+    }
+
+}
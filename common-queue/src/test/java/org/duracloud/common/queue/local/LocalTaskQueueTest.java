@@ -0,0 +1,186 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.duracloud.common.queue.TaskNotFoundException;
+import org.duracloud.common.queue.TimeoutException;
+import org.duracloud.common.queue.task.Task;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class LocalTaskQueueTest {
+
+    @Test
+    public void testTakeWaits() throws Exception {
+        LocalTaskQueue queue = new LocalTaskQueue(60000, 200);
+
+        long start = System.currentTimeMillis();
+        try {
+            queue.take();
+            fail("Exception expected");
+        } catch (TimeoutException e) {
+            assertTrue(System.currentTimeMillis() - start >= 200);
+        }
+
+        // A task put while waiting is taken
+        new Thread(() -> {
+            sleep(50);
+            queue.put(createTask(1));
+        }).start();
+        assertEquals("1", queue.take().getProperty("id"));
+    }
+
+    @Test
+    public void testTakeBatch() throws Exception {
+        LocalTaskQueue queue = new LocalTaskQueue(60000, 0);
+        queue.put(createTask(1), createTask(2), createTask(3));
+
+        Set<Task> tasks = queue.take(2);
+        assertEquals(2, tasks.size());
+        assertEquals(1, queue.size().intValue());
+        assertEquals(2, queue.getInprocessCount());
+        assertEquals(3, queue.sizeIncludingInvisibleAndDelayed().intValue());
+
+        queue.deleteTasks(tasks);
+        assertEquals(0, queue.getInprocessCount());
+        assertEquals(2, queue.getCompletedCount());
+        assertEquals(1, queue.take(10).size());
+    }
+
+    @Test
+    public void testDeleteTask() throws Exception {
+        LocalTaskQueue queue = new LocalTaskQueue(60000, 0);
+        queue.put(createTask(1));
+
+        Task task = queue.take();
+        queue.deleteTask(task);
+        try {
+            queue.deleteTask(task);
+            fail("Exception expected");
+        } catch (TaskNotFoundException e) {
+            // Expected
+        }
+        try {
+            queue.deleteTask(createTask(1));
+            fail("Exception expected");
+        } catch (TaskNotFoundException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testVisibilityTimeout() throws Exception {
+        LocalTaskQueue queue = new LocalTaskQueue(200, 1000);
+        queue.put(createTask(1));
+
+        Task task = queue.take();
+        queue.extendVisibilityTimeout(task);
+
+        // The task is redelivered once its visibility timeout expires
+        long start = System.currentTimeMillis();
+        Task redelivered = queue.take();
+        assertTrue(System.currentTimeMillis() - start >= 100);
+        assertEquals("1", redelivered.getProperty("id"));
+        assertNotEquals(task.getProperty(LocalTaskQueue.MsgProp.RECEIPT_HANDLE.name()),
+                        redelivered.getProperty(LocalTaskQueue.MsgProp.RECEIPT_HANDLE.name()));
+
+        // The earlier delivery can no longer be deleted
+        try {
+            queue.deleteTask(task);
+            fail("Exception expected");
+        } catch (TaskNotFoundException e) {
+            // Expected
+        }
+        queue.deleteTask(redelivered);
+        assertEquals(0, queue.sizeIncludingInvisibleAndDelayed().intValue());
+    }
+
+    @Test
+    public void testRequeue() throws Exception {
+        LocalTaskQueue queue = new LocalTaskQueue(60000, 0);
+        queue.put(createTask(1));
+
+        Task task = queue.take();
+        queue.requeue(task);
+        assertEquals(0, queue.getInprocessCount());
+
+        Task requeued = queue.take();
+        assertEquals(1, requeued.getAttempts());
+    }
+
+    @Test
+    public void testConcurrentPutAndTake() throws Exception {
+        LocalTaskQueue queue = new LocalTaskQueue(60000, 100);
+        int producers = 4;
+        int tasksPerProducer = 500;
+        Set<String> taken = ConcurrentHashMap.newKeySet();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    queue.put(createTask(producer * tasksPerProducer + i));
+                }
+            }));
+            threads.add(new Thread(() -> {
+                while (true) {
+                    try {
+                        Set<Task> tasks = queue.take(10);
+                        for (Task task : tasks) {
+                            taken.add(task.getProperty("id"));
+                        }
+                        queue.deleteTasks(tasks);
+                    } catch (TimeoutException e) {
+                        return;
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * tasksPerProducer, taken.size());
+        assertEquals(producers * tasksPerProducer, queue.getCompletedCount());
+        assertEquals(0, queue.sizeIncludingInvisibleAndDelayed().intValue());
+    }
+
+    private Task createTask(int id) {
+        Task task = new Task();
+        task.setType(Task.Type.AUDIT);
+        task.addProperty("id", String.valueOf(id));
+        return task;
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.rabbitmq;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import org.duracloud.common.queue.task.Task;
+
+/**
+ * Measures the rate at which tasks are put on a RabbitmqTaskQueue by several
+ * threads, comparing single task puts (one confirm wait per task) with
+ * batched puts (one confirm wait per batch).
+ *
+ * In place of a broker, channels are stand-ins on which publishing costs
+ * nothing and each wait for confirms takes the given round trip time. This
+ * reflects a broker on the network, where publishes are sent without waiting
+ * and the confirm wait is a round trip.
+ *
+ * This is not run as part of the test suite. To run:
+ * java -cp [test classpath] org.duracloud.common.queue.rabbitmq.RabbitmqTaskQueueBenchmark
+ * [task count] [threads] [batch size] [round trip ms] [publish channels]
+ *
+ * @author agent
+ */
+public class RabbitmqTaskQueueBenchmark {
+
+    private static final int RUNS = 3;
+
+    private RabbitmqTaskQueueBenchmark() {
+        // Run via main()
+    }
+
+    public static void main(String[] args) throws Exception {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long roundTripMs = args.length > 3 ? Long.parseLong(args[3]) : 2;
+        int channels = args.length > 4 ? Integer.parseInt(args[4]) :
+                       RabbitmqTaskQueue.DEFAULT_PUBLISH_CHANNELS;
+
+        AtomicLong published = new AtomicLong(0);
+        RabbitmqTaskQueue queue =
+            new RabbitmqTaskQueue(createConnection(roundTripMs, published),
+                                  "exchange", "queue", channels,
+                                  RabbitmqTaskQueue.DEFAULT_PREFETCH);
+
+        // The first run warms up the JVM and is not reported
+        for (int run = 0; run <= RUNS; run++) {
+            for (int size : new int[] {1, batchSize}) {
+                published.set(0);
+                long elapsed = runOnce(queue, taskCount, threads, size);
+                if (run > 0) {
+                    System.out.println("Run " + run + ": " + published.get() +
+                                       " tasks, " + threads + " threads, " +
+                                       channels + " channels, batch size " +
+                                       size + ": " + elapsed + " ms (" +
+                                       (published.get() * 1000L / Math.max(elapsed, 1)) +
+                                       " tasks/s)");
+                }
+            }
+        }
+    }
+
+    private static long runOnce(RabbitmqTaskQueue queue,
+                                int taskCount,
+                                int threads,
+                                int batchSize) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            workers.add(new Thread(() -> {
+                await(start);
+                List<Task> batch = new ArrayList<>(batchSize);
+                for (int i = thread; i < taskCount; i += threads) {
+                    batch.add(createTask(i));
+                    if (batch.size() == batchSize) {
+                        put(queue, batch);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    put(queue, batch);
+                }
+            }));
+        }
+
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        long startTime = System.currentTimeMillis();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private static void put(RabbitmqTaskQueue queue, List<Task> batch) {
+        if (batch.size() == 1) {
+            queue.put(batch.get(0));
+        } else {
+            queue.put(batch.toArray(new Task[batch.size()]));
+        }
+        batch.clear();
+    }
+
+    private static Task createTask(int id) {
+        Task task = new Task();
+        task.setType(Task.Type.AUDIT);
+        task.addProperty("id", String.valueOf(id));
+        task.addProperty("spaceId", "benchmark-space");
+        task.addProperty("contentId", "dir-" + (id % 100) + "/file-" + id);
+        return task;
+    }
+
+    private static Connection createConnection(long roundTripMs,
+                                               AtomicLong published) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "createChannel":
+                        return createChannel(roundTripMs, published);
+                    case "getAddress":
+                        return InetAddress.getLoopbackAddress();
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            });
+    }
+
+    private static Channel createChannel(long roundTripMs,
+                                         AtomicLong published) {
+        return (Channel) Proxy.newProxyInstance(
+            Channel.class.getClassLoader(),
+            new Class<?>[] {Channel.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "basicPublish":
+                        published.incrementAndGet();
+                        return null;
+                    case "waitForConfirmsOrDie":
+                        Thread.sleep(roundTripMs);
+                        return null;
+                    case "isOpen":
+                        return true;
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            });
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        Class<?> type = method.getReturnType();
+        if (method.getName().equals("equals")) {
+            return proxy == args[0];
+        } else if (method.getName().equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        } else if (method.getName().equals("toString")) {
+            return "broker stand-in";
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == int.class) {
+            return 0;
+        }
+        return null;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
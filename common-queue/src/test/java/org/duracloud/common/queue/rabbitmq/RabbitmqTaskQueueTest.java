@@ -7,27 +7,35 @@
  */
 package org.duracloud.common.queue.rabbitmq;
 
+import static org.easymock.EasyMock.anyLong;
 import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.newCapture;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
 
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
 import com.rabbitmq.client.impl.AMQImpl;
 import org.duracloud.common.queue.task.Task;
 import org.duracloud.common.queue.task.Task.Type;
+import org.easymock.Capture;
 import org.easymock.EasyMockRunner;
 import org.easymock.EasyMockSupport;
 import org.junit.After;
-import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -55,11 +63,19 @@ public class RabbitmqTaskQueueTest extends EasyMockSupport {
         InetAddress address = InetAddress.getByName("127.0.0.1");
 
         expect(connection.createChannel()).andReturn(channel);
+        expect(channel.confirmSelect()).andReturn(new AMQImpl.Confirm.SelectOk());
+        expect(channel.isOpen()).andReturn(true).anyTimes();
         expect(channel.queueBind(queueName, exchange, queueName)).andReturn(new AMQImpl.Queue.BindOk());
         expect(connection.getAddress()).andReturn(address);
-        channel.basicPublish(anyObject(String.class), anyObject(String.class),
+    }
+
+    private void expectPublish(int messages) throws Exception {
+        channel.basicPublish(eq(exchange), eq(queueName),
                              anyObject(null), anyObject(byte[].class));
-        expectLastCall().anyTimes();
+        expectLastCall().times(messages);
+        // The broker confirms all messages in a put at once
+        channel.waitForConfirmsOrDie(anyLong());
+        expectLastCall().once();
     }
 
     @After
@@ -108,14 +124,18 @@ public class RabbitmqTaskQueueTest extends EasyMockSupport {
         task.addProperty("key3", "value3");
         String msgBody = queue.unmarshallTask(task);
 
-        Assert.assertTrue(msgBody.contains("key1=value1"));
-        Assert.assertTrue(msgBody.contains("key2=value2"));
-        Assert.assertTrue(msgBody.contains("key3=value3"));
+        Task result = queue.marshallTask(msgBody.getBytes(StandardCharsets.UTF_8),
+                                         0, queueName, exchange);
+        assertThat(result.getType(), is(equalTo(Task.Type.DUP)));
+        assertThat(result.getProperty("key1"), is(equalTo("value1")));
+        assertThat(result.getProperty("key2"), is(equalTo("value2")));
+        assertThat(result.getProperty("key3"), is(equalTo("value3")));
     }
 
     @Test
-    public void testPut() throws IOException {
+    public void testPut() throws Exception {
         setupRabbitmqClient();
+        expectPublish(1);
         replayAll();
         createSubject();
 
@@ -131,8 +151,9 @@ public class RabbitmqTaskQueueTest extends EasyMockSupport {
     }
 
     @Test
-    public void testPutMuliple() throws IOException {
+    public void testPutMuliple() throws Exception {
         setupRabbitmqClient();
+        expectPublish(11);
         replayAll();
         createSubject();
         Set<Task> tasks = new HashSet<>();
@@ -142,4 +163,64 @@ public class RabbitmqTaskQueueTest extends EasyMockSupport {
         }
         this.queue.put(tasks);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTake() throws Exception {
+        setupRabbitmqClient();
+        String consumerTag = "consumer-tag";
+        Capture<Consumer> consumer = newCapture();
+
+        // Consumer channel
+        expect(connection.createChannel()).andReturn(channel);
+        channel.basicQos(RabbitmqTaskQueue.DEFAULT_PREFETCH);
+        expectLastCall().once();
+        expect(channel.basicConsume(eq(queueName), eq(false), capture(consumer)))
+            .andAnswer(() -> {
+                for (long tag = 1; tag <= 2; tag++) {
+                    String message = Task.KEY_TYPE + "=" + Type.DUP.name() + "\n" +
+                                     "id=" + tag;
+                    consumer.getValue().handleDelivery(
+                        consumerTag, new Envelope(tag, false, exchange, queueName),
+                        null, message.getBytes());
+                }
+                return consumerTag;
+            });
+        expect(channel.messageCount(queueName)).andReturn(3L).times(2);
+        channel.basicAck(1L, false);
+        expectLastCall().once();
+        channel.basicReject(2L, true);
+        expectLastCall().once();
+        replayAll();
+        createSubject();
+
+        Set<Task> tasks = queue.take(5);
+        assertEquals(2, tasks.size());
+        // Delivered tasks are counted until acknowledged or rejected
+        assertEquals(5, queue.sizeIncludingInvisibleAndDelayed().intValue());
+
+        for (Task task : tasks) {
+            assertEquals(consumerTag,
+                         task.getProperty(RabbitmqTaskQueue.MsgProp.CONSUMER_TAG.name()));
+            if ("1".equals(task.getProperty("id"))) {
+                queue.deleteTask(task);
+            } else {
+                queue.requeue(task);
+            }
+        }
+        assertEquals(3, queue.sizeIncludingInvisibleAndDelayed().intValue());
+    }
+
+    @Test
+    public void testRequeueAfterChannelClosed() throws Exception {
+        // No publish is expected, as the broker redelivers the message
+        setupRabbitmqClient();
+        replayAll();
+        createSubject();
+
+        Task task = createSampleAuditTask(System.currentTimeMillis());
+        task.addProperty(RabbitmqTaskQueue.MsgProp.CONSUMER_TAG.name(), "closed-consumer");
+        task.addProperty(RabbitmqTaskQueue.MsgProp.DELIVERY_TAG.name(), "1");
+        queue.requeue(task);
+        assertEquals(1, task.getAttempts());
+    }
+}
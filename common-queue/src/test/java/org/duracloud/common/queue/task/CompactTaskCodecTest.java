@@ -0,0 +1,92 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class CompactTaskCodecTest {
+
+    private TaskCodec codec = new CompactTaskCodec();
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        Task task = new Task();
+        task.setType(Task.Type.AUDIT);
+        task.addProperty("spaceId", "space-id");
+        // Values may contain separators, escapes and non-ASCII characters
+        task.addProperty("contentId", "dir/a:b=c\td\n~1\\n\\é中\\");
+        task.addProperty("key\twith\nseparators", "value");
+        task.addProperty("empty", "");
+        task.addProperty("null", null);
+
+        String body = codec.encode(task);
+        assertTrue(body.startsWith("~1\tAUDIT\n"));
+
+        Task result = codec.decode(body);
+        assertEquals(Task.Type.AUDIT, result.getType());
+        assertEquals("space-id", result.getProperty("spaceId"));
+        assertEquals("dir/a:b=c\td\n~1\\n\\é中\\", result.getProperty("contentId"));
+        assertEquals("value", result.getProperty("key\twith\nseparators"));
+        assertEquals("", result.getProperty("empty"));
+        assertFalse(result.getProperties().containsKey("null"));
+        assertEquals(4, result.getProperties().size());
+    }
+
+    @Test
+    public void testPropertiesCodecDecodesCompact() throws Exception {
+        Task task = new Task();
+        task.setType(Task.Type.AUDIT);
+        task.addProperty("contentId", "a\tb\nc");
+
+        // Consumers using the properties codec read compact messages, so
+        // producers and consumers may be upgraded in any order
+        TaskCodec propertiesCodec = new PropertiesTaskCodec();
+        assertEquals(task, propertiesCodec.decode(codec.encode(task)));
+        assertEquals(task, propertiesCodec.decode(propertiesCodec.encode(task)));
+    }
+
+    @Test
+    public void testDecodeProperties() throws Exception {
+        Task task = new Task();
+        task.setType(Task.Type.DUP);
+        task.addProperty("key1", "value:1");
+        task.addProperty("key2", "é");
+
+        // Messages written in the properties format are still decoded
+        Task result = codec.decode(new PropertiesTaskCodec().encode(task));
+        assertEquals(task, result);
+
+        assertNull(codec.decode("key1=value1"));
+    }
+
+    @Test
+    public void testDecodeInvalid() throws Exception {
+        for (String body : new String[] {"~2\tAUDIT", "~1\tUNKNOWN", "~1\tAUDIT\nkey",
+                                         "~1\tAUDIT\nkey\tvalue\tmore",
+                                         "~1\tAUDIT\nkey\tval\\ue"}) {
+            try {
+                codec.decode(body);
+                fail("Exception expected decoding " + body);
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.queue.task;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the encode and decode rates, and the encoded message sizes, of
+ * the task codecs using typical audit tasks.
+ *
+ * This is not run as part of the test suite. To run:
+ * java -cp [test classpath] org.duracloud.common.queue.task.TaskCodecBenchmark
+ * [iterations]
+ *
+ * @author agent
+ */
+public class TaskCodecBenchmark {
+
+    private static final int RUNS = 3;
+
+    // Prevents the results of encoding and decoding from being optimized away
+    private static long sink = 0;
+
+    private TaskCodecBenchmark() {
+        // Run via main()
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Task task = createAuditTask();
+
+        TaskCodec[] codecs = {new PropertiesTaskCodec(), new CompactTaskCodec()};
+        for (TaskCodec codec : codecs) {
+            String name = codec.getClass().getSimpleName();
+            String body = codec.encode(task);
+            System.out.println(name + " message size: " +
+                               body.getBytes(StandardCharsets.UTF_8).length + " bytes");
+
+            // The first run warms up the JVM and is not reported
+            for (int run = 0; run <= RUNS; run++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += codec.encode(task).length();
+                }
+                long encodeNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += codec.decode(body).getProperties().size();
+                }
+                long decodeNanos = System.nanoTime() - start;
+
+                if (run > 0) {
+                    System.out.println(name + " run " + run + ": encode " +
+                                       rate(iterations, encodeNanos) + " tasks/s, decode " +
+                                       rate(iterations, decodeNanos) + " tasks/s");
+                }
+            }
+        }
+        System.out.println("(" + sink + ")");
+    }
+
+    private static long rate(int iterations, long nanos) {
+        return iterations * 1000000000L / Math.max(nanos, 1);
+    }
+
+    private static Task createAuditTask() {
+        Task task = new Task();
+        task.setType(Task.Type.AUDIT);
+        task.addProperty("account", "account-name");
+        task.addProperty("store-id", "1");
+        task.addProperty("space-id", "space-name");
+        task.addProperty("content-id", "path/to/some/content/file-name.dat");
+        task.addProperty("action", "ADD_CONTENT");
+        task.addProperty("content-checksum", "4a5c8f2d7e1b3a6c9d0e2f4a6b8c0d1e");
+        task.addProperty("content-mimetype", "application/octet-stream");
+        task.addProperty("content-size", "1048576");
+        task.addProperty("content-properties",
+                         "{\"creator\":\"user@example.org\",\"tags\":\"a|b|c\"}");
+        task.addProperty("space-acls", "{\"acl-user\":\"WRITE\"}");
+        task.addProperty("source-space-id", "");
+        task.addProperty("source-content-id", "");
+        task.addProperty("date-time", "2026-10-18T13:50:19.593");
+        task.addProperty("username", "user@example.org");
+        return task;
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.common.web;
+
+/**
+ * Settings for the pooled HTTP connections held by a {@link RestHttpHelper}.
+ * The defaults are sized for the multi-threaded client tools (sync tool,
+ * retrieval tool) which direct all of their requests to a single host.
+ *
+ * @author agent
+ */
+public class HttpConnectionPoolConfig {
+
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final int DEFAULT_MAX_PER_ROUTE = 100;
+    public static final long DEFAULT_KEEP_ALIVE_MS = 15000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 30000;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MS = 2000;
+
+    private int maxTotal = DEFAULT_MAX_TOTAL;
+    private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private long keepAliveMs = DEFAULT_KEEP_ALIVE_MS;
+    private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+    private int validateAfterInactivityMs = DEFAULT_VALIDATE_AFTER_INACTIVITY_MS;
+
+    /**
+     * @return the maximum number of connections held across all hosts
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    /**
+     * @return the maximum number of connections held to any one host
+     */
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    /**
+     * @return the time a connection is kept open for reuse when the server
+     * does not specify a keep-alive timeout. Server provided values larger
+     * than this are also capped to this value.
+     */
+    public long getKeepAliveMs() {
+        return keepAliveMs;
+    }
+
+    public void setKeepAliveMs(long keepAliveMs) {
+        this.keepAliveMs = keepAliveMs;
+    }
+
+    /**
+     * @return the time after which unused pooled connections are closed
+     */
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * @return the period of inactivity after which a pooled connection is
+     * checked for staleness before it is reused
+     */
+    public int getValidateAfterInactivityMs() {
+        return validateAfterInactivityMs;
+    }
+
+    public void setValidateAfterInactivityMs(int validateAfterInactivityMs) {
+        this.validateAfterInactivityMs = validateAfterInactivityMs;
+    }
+
+}
@@ -7,6 +7,7 @@
  */
 package org.duracloud.common.web;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -14,6 +15,8 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.Charsets;
 import org.apache.http.Header;
@@ -34,6 +37,7 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.SocketConfig;
 import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
@@ -42,10 +46,13 @@ import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicStatusLine;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.duracloud.common.model.Credential;
 import org.duracloud.common.util.IOUtil;
@@ -57,7 +64,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Bill Branan
  */
-public class RestHttpHelper {
+public class RestHttpHelper implements Closeable {
 
     protected final Logger log = LoggerFactory.getLogger(RestHttpHelper.class);
 
@@ -65,6 +72,20 @@ public class RestHttpHelper {
 
     private int socketTimeoutMs = -1;
 
+    private HttpConnectionPoolConfig poolConfig;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    // Both clients share the connection pool, HEAD requests are made without
+    // content compression
+    private CloseableHttpClient httpClient;
+    private CloseableHttpClient headHttpClient;
+
+    // Holds the preemptive basic auth scheme for each target host
+    private AuthCache authCache;
+
+    private final AtomicLong lastIdleCheck = new AtomicLong();
+
     public RestHttpHelper() {
         this(null);
     }
@@ -82,15 +103,71 @@ public class RestHttpHelper {
     }
 
     public RestHttpHelper(Credential credential, int socketTimeoutMs) {
+        this(credential, socketTimeoutMs, new HttpConnectionPoolConfig());
+    }
+
+    /**
+     * Constructor
+     * @param credential user credential, may be null for anonymous access
+     * @param socketTimeoutMs A socket timeout of less than zero indicates "no timeout".
+     * @param poolConfig settings for the pool of connections shared by all
+     *                   requests made through this helper
+     */
+    public RestHttpHelper(Credential credential,
+                          int socketTimeoutMs,
+                          HttpConnectionPoolConfig poolConfig) {
+        this(credential, socketTimeoutMs, poolConfig,
+             createConnectionManager(socketTimeoutMs, poolConfig));
+    }
+
+    private RestHttpHelper(Credential credential,
+                           int socketTimeoutMs,
+                           HttpConnectionPoolConfig poolConfig,
+                           PoolingHttpClientConnectionManager connectionManager) {
         if (credential != null) {
             credsProvider = new BasicCredentialsProvider();
             credsProvider.setCredentials(
                 new AuthScope(AuthScope.ANY_HOST, AuthScope.ANY_PORT),
                 new UsernamePasswordCredentials(credential.getUsername(),
                                                 credential.getPassword()));
+            authCache = new BasicAuthCache();
         }
 
         this.socketTimeoutMs = socketTimeoutMs;
+        this.poolConfig = poolConfig;
+        this.connectionManager = connectionManager;
+
+        httpClient = buildClient(false);
+        headHttpClient = buildClient(true);
+    }
+
+    private static PoolingHttpClientConnectionManager createConnectionManager(
+        int socketTimeoutMs,
+        HttpConnectionPoolConfig poolConfig) {
+        PoolingHttpClientConnectionManager connectionManager =
+            new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(poolConfig.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(poolConfig.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(
+            poolConfig.getValidateAfterInactivityMs());
+        if (socketTimeoutMs > -1) {
+            connectionManager.setDefaultSocketConfig(
+                SocketConfig.custom().setSoTimeout(socketTimeoutMs).build());
+        }
+        return connectionManager;
+    }
+
+    /**
+     * Creates a helper which makes requests with the given credential over
+     * the connection pool of this helper. Closing either helper closes the
+     * shared pool.
+     *
+     * @param credential user credential, may be null for anonymous access
+     * @return helper sharing the connection pool of this helper
+     */
+    public RestHttpHelper withCredential(Credential credential) {
+        return new RestHttpHelper(credential, socketTimeoutMs, poolConfig,
+                                  connectionManager);
     }
 
     private enum Method {
@@ -294,34 +371,37 @@ public class RestHttpHelper {
             log.debug(loggingRequestText(url, method, requestEntity, headers));
         }
 
-        org.apache.http.HttpResponse response;
-        if (null != credsProvider) {
+        evictIdleConnections();
 
-            HttpClientBuilder builder = HttpClients.custom()
-                       .setDefaultCredentialsProvider(credsProvider);
-
-            if (socketTimeoutMs > -1) {
-                BasicHttpClientConnectionManager cm = new BasicHttpClientConnectionManager();
-                cm.setSocketConfig(SocketConfig.custom().setSoTimeout(socketTimeoutMs).build());
-                builder.setConnectionManager(cm);
-            }
-
-            CloseableHttpClient httpClient = buildClient(builder, method);
+        CloseableHttpClient client =
+            method.equals(Method.HEAD) ? headHttpClient : httpClient;
 
+        org.apache.http.HttpResponse response;
+        if (null != credsProvider) {
             // Use preemptive basic auth
             URI requestUri = httpRequest.getURI();
             HttpHost target = new HttpHost(requestUri.getHost(),
                                            requestUri.getPort(),
                                            requestUri.getScheme());
-            AuthCache authCache = new BasicAuthCache();
-            BasicScheme basicAuth = new BasicScheme();
-            authCache.put(target, basicAuth);
+            if (null == authCache.get(target)) {
+                authCache.put(target, new BasicScheme());
+            }
             HttpClientContext localContext = HttpClientContext.create();
             localContext.setAuthCache(authCache);
-            response = httpClient.execute(httpRequest, localContext);
+            response = client.execute(httpRequest, localContext);
         } else {
-            CloseableHttpClient httpClient = buildClient(HttpClients.custom(), method);
-            response = httpClient.execute(httpRequest);
+            response = client.execute(httpRequest);
+        }
+
+        // Only GET responses are streamed back to the caller. All other
+        // response bodies are small, so they are read in full here, which
+        // returns the connection to the pool even when the caller never
+        // reads the body.
+        if (!method.equals(Method.GET)) {
+            HttpEntity entity = response.getEntity();
+            if (null != entity && entity.isStreaming()) {
+                response.setEntity(new BufferedHttpEntity(entity));
+            }
         }
 
         HttpResponse httpResponse = new HttpResponse(response);
@@ -333,15 +413,81 @@ public class RestHttpHelper {
         return httpResponse;
     }
 
-    private CloseableHttpClient buildClient(HttpClientBuilder builder,
-                                            Method method) {
-        if (method.equals(Method.HEAD)) {
+    private CloseableHttpClient buildClient(boolean head) {
+        HttpClientBuilder builder =
+            HttpClients.custom()
+                       .setConnectionManager(connectionManager)
+                       .setConnectionManagerShared(true)
+                       .setKeepAliveStrategy(new CappedKeepAliveStrategy(
+                           poolConfig.getKeepAliveMs()));
+        if (null != credsProvider) {
+            builder.setDefaultCredentialsProvider(credsProvider);
+        }
+        if (head) {
             builder.disableContentCompression();
         }
-
         return builder.build();
     }
 
+    /**
+     * Closes pooled connections which have expired or which have been idle
+     * longer than the configured idle timeout. This is done inline (at most
+     * once per idle timeout period) rather than on a background thread so
+     * that discarded helpers do not leave threads behind.
+     */
+    private void evictIdleConnections() {
+        long idleTimeout = poolConfig.getIdleTimeoutMs();
+        long now = System.currentTimeMillis();
+        long lastCheck = lastIdleCheck.get();
+        if (now - lastCheck >= idleTimeout &&
+            lastIdleCheck.compareAndSet(lastCheck, now)) {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout,
+                                                   TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return totals for the connections held in the pool shared by all
+     * requests made through this helper
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Closes all pooled connections. This helper cannot be used after
+     * being closed.
+     */
+    @Override
+    public void close() {
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Uses the keep-alive timeout provided by the server, capped to the
+     * configured maximum, or the configured maximum when none is provided.
+     */
+    private static class CappedKeepAliveStrategy
+        extends DefaultConnectionKeepAliveStrategy {
+
+        private final long maxKeepAliveMs;
+
+        public CappedKeepAliveStrategy(long maxKeepAliveMs) {
+            this.maxKeepAliveMs = maxKeepAliveMs;
+        }
+
+        @Override
+        public long getKeepAliveDuration(org.apache.http.HttpResponse response,
+                                         HttpContext context) {
+            long keepAlive = super.getKeepAliveDuration(response, context);
+            if (keepAlive < 0 || keepAlive > maxKeepAliveMs) {
+                keepAlive = maxKeepAliveMs;
+            }
+            return keepAlive;
+        }
+    }
+
     private void addHeaders(HttpRequestBase httpRequest, Map<String, String> headers) {
         Iterator<String> headerIt = headers.keySet().iterator();
         while (headerIt.hasNext()) {
@@ -20,6 +20,7 @@ import java.util.Map;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.pool.PoolStats;
 import org.duracloud.common.model.Credential;
 import org.duracloud.common.web.RestHttpHelper.HttpResponse;
 import org.eclipse.jetty.server.Server;
@@ -152,6 +153,22 @@ public class RestHttpHelperTest {
         file.delete();
     }
 
+    @Test
+    public void testConnectionReuse() throws Exception {
+        Credential credential = new Credential("joeUser", "joesPassword");
+        helper = new RestHttpHelper(credential);
+
+        for (int i = 0; i < 5; i++) {
+            verifyResponse(helper.put(getUrl(), "<x>junk</x>", headers));
+            verifyResponse(helper.delete(getUrl()));
+        }
+
+        PoolStats stats = helper.getPoolStats();
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getAvailable());
+        helper.close();
+    }
+
     private String getUrl() {
         return "http://" + host + ":" + port + context;
     }
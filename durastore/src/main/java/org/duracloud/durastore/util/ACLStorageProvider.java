@@ -15,6 +15,15 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.duracloud.common.changenotifier.AccountChangeNotifier;
 import org.duracloud.common.error.NoUserLoggedInException;
@@ -24,6 +33,7 @@ import org.duracloud.security.context.SecurityContextUtil;
 import org.duracloud.security.impl.DuracloudUserDetails;
 import org.duracloud.storage.domain.RetrievedContent;
 import org.duracloud.storage.domain.StorageProviderType;
+import org.duracloud.storage.error.NotFoundException;
 import org.duracloud.storage.error.StorageException;
 import org.duracloud.storage.provider.StorageProvider;
 import org.slf4j.Logger;
@@ -35,21 +45,45 @@ import org.springframework.security.core.GrantedAuthority;
  * of the currently logged-in user. Additionally, caching of space ACLs and
  * access-type (opened/closed) is performed in this class.
  *
+ * The ACLs of all spaces are loaded in the background on a pool shared by all
+ * instances. Each instance loads a few spaces at a time, and queues the load
+ * of its next space behind those of other instances, so that one account
+ * with many spaces does not hold up the others. Requests for the ACLs of a
+ * single space do not wait for the background load, the space is loaded on
+ * demand by the requesting thread instead. Cached ACLs older than the TTL
+ * are returned while being refreshed in the background.
+ *
  * @author Andrew Woods
  * Date: 11/22/11
  */
 public class ACLStorageProvider implements StorageProvider {
 
+    public static final long DEFAULT_ACL_TTL_MS = 10 * 60 * 1000;
+    private static final int LOADER_THREADS = 8;
+    // Spaces of one instance which are loaded in parallel in the background
+    private static final int LOADS_PER_PROVIDER = 2;
+
+    private static final ExecutorService loader =
+        Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "acl-cache-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
     private final Logger log =
         LoggerFactory.getLogger(ACLStorageProvider.class);
 
     private final StorageProvider targetProvider;
     private SecurityContextUtil securityContextUtil;
 
-    private Map<String, Map<String, AclType>> spaceACLMap;
-    private boolean loaded;
-
-    private Thread cacheLoaderThread = null;
+    private Map<String, CachedACLs> spaceACLMap = new ConcurrentHashMap<>();
+    // Loads underway, used to avoid loading the same space more than once
+    private Map<String, CompletableFuture<Map<String, AclType>>> pendingLoads =
+        new ConcurrentHashMap<>();
+    private volatile CompletableFuture<Void> cacheLoad;
+    // Loads started before this time are not cached
+    private volatile long invalidatedAt = System.nanoTime();
+    private long aclTtlMs;
 
     private AccountChangeNotifier notifier;
 
@@ -68,6 +102,15 @@ public class ACLStorageProvider implements StorageProvider {
                               SecurityContextUtil securityContextUtil,
                               AccountChangeNotifier notifier,
                               DuraCloudRequestContextUtil requestContextUtil) {
+        this(targetProvider, securityContextUtil, notifier, requestContextUtil,
+             DEFAULT_ACL_TTL_MS);
+    }
+
+    public ACLStorageProvider(StorageProvider targetProvider,
+                              SecurityContextUtil securityContextUtil,
+                              AccountChangeNotifier notifier,
+                              DuraCloudRequestContextUtil requestContextUtil,
+                              long aclTtlMs) {
         assert targetProvider != null;
         assert securityContextUtil != null;
         assert notifier != null;
@@ -75,68 +118,228 @@ public class ACLStorageProvider implements StorageProvider {
 
         this.targetProvider = targetProvider;
         this.securityContextUtil = securityContextUtil;
-        this.spaceACLMap = new HashMap<String, Map<String, AclType>>();
-        this.loaded = false;
         this.notifier = notifier;
         this.requestContextUtil = requestContextUtil;
-        ensureCacheLoaderThreadIsRunning();
+        this.aclTtlMs = aclTtlMs;
+        startCacheLoad();
     }
 
-    private void ensureCacheLoaderThreadIsRunning() {
-        if (this.cacheLoaderThread == null || !this.cacheLoaderThread.isAlive()) {
-            log.info("cacheLoaderThread was not running. Starting it up...");
-            this.cacheLoaderThread = new Thread(new CacheLoader());
-            this.cacheLoaderThread.start();
-            log.info("cacheLoaderThread has been started");
-        } else {
-            log.debug("cacheLoaderThread is already running.");
+    /**
+     * Space ACLs along with the time at which they were loaded
+     */
+    private static class CachedACLs {
+        private final Map<String, AclType> acls;
+        private final long loadedAt;
+
+        CachedACLs(Map<String, AclType> acls, long loadedAt) {
+            this.acls = acls;
+            this.loadedAt = loadedAt;
         }
     }
 
-    /**
-     * This nested class loads the cache of space ACLs and AccessTypes.
+    /*
+     * Lists the spaces and loads the ACLs of each in parallel. Spaces for
+     * which ACLs cannot be retrieved are cached with no ACLs.
      */
-    private class CacheLoader implements Runnable {
-        public void run() {
-            try {
+    private synchronized void startCacheLoad() {
+        log.info("Loading space ACLs of {}", targetProvider.getClass().getName());
+        cacheLoad = CompletableFuture.supplyAsync(this::listSpaces, loader)
+                                     .thenCompose(this::loadAll);
+    }
 
-                Iterator<String> spaces = targetProvider.getSpaces();
-                while (spaces.hasNext()) {
-                    String space = spaces.next();
-                    spaceACLMap.put(space, getSpaceACLs(space));
-                }
-                loaded = true;
-            } catch (Exception ex) {
-                log.error("Failed to complete the run of the CacheLoader", ex);
-            }
+    private List<String> listSpaces() {
+        List<String> spaces = new ArrayList<>();
+        targetProvider.getSpaces().forEachRemaining(spaces::add);
+        return spaces;
+    }
+
+    private CompletableFuture<Void> loadAll(List<String> spaces) {
+        long started = System.nanoTime();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (spaces.isEmpty()) {
+            done.complete(null);
+            return done;
         }
 
-        private Map<String, AclType> getSpaceACLs(String space) {
-            try {
-                return targetProvider.getSpaceACLs(space);
+        Queue<String> remaining = new ConcurrentLinkedQueue<>(spaces);
+        AtomicInteger outstanding = new AtomicInteger(spaces.size());
+        for (int i = 0; i < Math.min(LOADS_PER_PROVIDER, spaces.size()); i++) {
+            loader.execute(() -> loadNext(remaining, outstanding, done, started));
+        }
+        return done;
+    }
+
+    /*
+     * Loads the next space of a background load, then queues the load of the
+     * space after it. A space is not claimed until its load starts, so that
+     * an on-demand load of a space which has not been reached runs at once.
+     * A load which has been replaced by invalidating the cache is stopped.
+     */
+    private void loadNext(Queue<String> remaining,
+                          AtomicInteger outstanding,
+                          CompletableFuture<Void> done,
+                          long started) {
+        if (started < invalidatedAt) {
+            remaining.clear();
+            done.complete(null);
+            return;
+        }
 
-            } catch (StorageException e) {
+        String space = remaining.poll();
+        if (null == space) {
+            return;
+        }
+        loadSpaceACLs(space, false, true).whenComplete((acls, e) -> {
+            if (null != e) {
                 log.warn("Error getting space acls: {}, err: {}", space, e);
-                return new HashMap<String, AclType>();
+                cache(space, new HashMap<>(), started);
+            }
+            if (outstanding.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        });
+        if (!remaining.isEmpty()) {
+            loader.execute(() -> loadNext(remaining, outstanding, done, started));
+        }
+    }
+
+    /*
+     * Loads the ACLs of a space into the cache, joining a load of the space
+     * which is already underway. Unless refreshing, ACLs which are already
+     * cached are not loaded again. The load is run by the calling thread
+     * when inline, otherwise by the loader pool.
+     */
+    private CompletableFuture<Map<String, AclType>> loadSpaceACLs(String spaceId,
+                                                                  boolean refresh,
+                                                                  boolean inline) {
+        CompletableFuture<Map<String, AclType>> load = new CompletableFuture<>();
+        CompletableFuture<Map<String, AclType>> existing =
+            pendingLoads.putIfAbsent(spaceId, load);
+        if (null != existing) {
+            return existing;
+        }
+
+        // Checked after claiming the load, as a load which completed in the
+        // meantime caches its ACLs before it is no longer pending
+        CachedACLs cached = spaceACLMap.get(spaceId);
+        if (!refresh && null != cached) {
+            pendingLoads.remove(spaceId, load);
+            load.complete(cached.acls);
+            return load;
+        }
+
+        long started = System.nanoTime();
+        Runnable task = () -> {
+            try {
+                Map<String, AclType> acls = targetProvider.getSpaceACLs(spaceId);
+                cache(spaceId, acls, started);
+                load.complete(acls);
+            } catch (Throwable e) {
+                load.completeExceptionally(e);
+            } finally {
+                pendingLoads.remove(spaceId, load);
             }
+        };
+        if (inline) {
+            task.run();
+        } else {
+            loader.execute(task);
+        }
+        return load;
+    }
+
+    /*
+     * Caches ACLs loaded from the target provider, unless the cache has been
+     * invalidated or updated since the load started.
+     */
+    private void cache(String spaceId, Map<String, AclType> acls, long started) {
+        if (started < invalidatedAt) {
+            return;
         }
+        spaceACLMap.compute(spaceId, (space, cached) -> {
+            if (null != cached && cached.loadedAt > started) {
+                return cached;
+            }
+            return new CachedACLs(acls, System.nanoTime());
+        });
     }
 
-    private void waitForCache() {
+    /*
+     * Returns the cached ACLs of a space, loading them if not yet cached.
+     */
+    private Map<String, AclType> getCachedACLs(String spaceId) {
+        CachedACLs cached = spaceACLMap.get(spaceId);
+        if (null != cached) {
+            refreshIfExpired(spaceId, cached);
+            return cached.acls;
+        }
 
-        while (!loaded) {
+        try {
+            return loadSpaceACLs(spaceId, false, true).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new StorageException("Error getting space acls: " + spaceId,
+                                       e.getCause());
+        }
+    }
 
-            ensureCacheLoaderThreadIsRunning();
+    /*
+     * Refreshes ACLs older than the TTL in the background. Spaces which no
+     * longer exist are removed from the cache.
+     */
+    private void refreshIfExpired(String spaceId, CachedACLs cached) {
+        if (System.nanoTime() - cached.loadedAt <= TimeUnit.MILLISECONDS.toNanos(aclTtlMs)) {
+            return;
+        }
+        loadSpaceACLs(spaceId, true, false).exceptionally(e -> {
+            if (e instanceof NotFoundException ||
+                e.getCause() instanceof NotFoundException) {
+                spaceACLMap.remove(spaceId, cached);
+            } else {
+                log.warn("Error refreshing space acls: {}, err: {}", spaceId, e);
+            }
+            return null;
+        });
+    }
 
-            log.debug("waiting: {}", targetProvider.getClass().getName());
+    /**
+     * Waits for the ACLs of all spaces to be loaded. A failed load is
+     * started again.
+     */
+    protected void waitForCache() {
+        CompletableFuture<Void> load = cacheLoad;
+        try {
+            load.join();
+        } catch (CompletionException e) {
+            synchronized (this) {
+                if (cacheLoad == load) {
+                    log.warn("Loading space ACLs failed, trying again: {}", e.getMessage());
+                    startCacheLoad();
+                }
+            }
             try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                // do nothing
+                cacheLoad.join();
+            } catch (CompletionException ce) {
+                throw new StorageException("Unable to load space ACLs", ce.getCause());
             }
         }
     }
 
+    /**
+     * Discards all cached ACLs and loads them again, for use when ACLs are
+     * known to have been changed elsewhere.
+     */
+    public void invalidateCache() {
+        log.info("Invalidating space ACL cache of {}",
+                 targetProvider.getClass().getName());
+        invalidatedAt = System.nanoTime();
+        spaceACLMap.clear();
+        pendingLoads.clear();
+        startCacheLoad();
+    }
+
     @Override
     public StorageProviderType getStorageProviderType() {
         return targetProvider.getStorageProviderType();
@@ -159,10 +362,10 @@ public class ACLStorageProvider implements StorageProvider {
         waitForCache();
 
         List<String> spaces = new ArrayList<String>();
-        for (String space : spaceACLMap.keySet()) {
-            Map<String, AclType> acls = spaceACLMap.get(space);
-            if (userHasAccess(user, acls) && !spaces.contains(space)) {
-                spaces.add(space);
+        for (Map.Entry<String, CachedACLs> entry : spaceACLMap.entrySet()) {
+            refreshIfExpired(entry.getKey(), entry.getValue());
+            if (userHasAccess(user, entry.getValue().acls)) {
+                spaces.add(entry.getKey());
             }
         }
 
@@ -239,8 +442,6 @@ public class ACLStorageProvider implements StorageProvider {
 
     @Override
     public void createSpace(String spaceId) {
-        waitForCache();
-
         targetProvider.createSpace(spaceId);
 
         // Update the cache to contain current user privileges for new space, if
@@ -250,14 +451,12 @@ public class ACLStorageProvider implements StorageProvider {
             Map<String, AclType> acl = new HashMap<String, AclType>();
             acl.put(PROPERTIES_SPACE_ACL + userDetails.getUsername(),
                     AclType.WRITE);
-            spaceACLMap.put(spaceId, acl);
+            spaceACLMap.put(spaceId, new CachedACLs(acl, System.nanoTime()));
         }
     }
 
     @Override
     public void deleteSpace(String spaceId) {
-        waitForCache();
-
         StorageException storageException = null;
         try {
             targetProvider.deleteSpace(spaceId);
@@ -270,11 +469,7 @@ public class ACLStorageProvider implements StorageProvider {
         // clear and reload cache if deleting: "aclstorageprovider-cache"
         if ((getClass().getSimpleName() + "-cache").equalsIgnoreCase(spaceId)) {
             log.info("cycling cache.");
-
-            this.spaceACLMap.clear();
-            this.loaded = false;
-
-            new Thread(new CacheLoader()).start();
+            invalidateCache();
         }
 
         if (null != storageException) {
@@ -289,32 +484,16 @@ public class ACLStorageProvider implements StorageProvider {
 
     @Override
     public Map<String, AclType> getSpaceACLs(String spaceId) {
-        DuracloudUserDetails user = getCurrentUserDetails();
-        if (isAdmin(user) && !loaded) {
-            return targetProvider.getSpaceACLs(spaceId);
-        }
-
-        waitForCache();
-
-        if (spaceACLMap.containsKey(spaceId)) {
-            return spaceACLMap.get(spaceId);
-
-        } else {
-            Map<String, AclType> acls = targetProvider.getSpaceACLs(spaceId);
-            spaceACLMap.put(spaceId, acls);
-            return acls;
-        }
+        return getCachedACLs(spaceId);
     }
 
     @Override
     public void setSpaceACLs(String spaceId, Map<String, AclType> spaceACLs) {
-        waitForCache();
-
         targetProvider.setSpaceACLs(spaceId, spaceACLs);
 
         if (null != spaceACLs) {
             // update cache
-            this.spaceACLMap.put(spaceId, spaceACLs);
+            this.spaceACLMap.put(spaceId, new CachedACLs(spaceACLs, System.nanoTime()));
         }
 
         sendCacheChangedNotification();
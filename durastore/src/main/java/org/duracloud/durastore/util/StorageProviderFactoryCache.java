@@ -60,15 +60,29 @@ public class StorageProviderFactoryCache extends AbstractAccountComponentCache<S
         EventType eventType = event.getEventType();
         if (accountId != null) {
             if (eventType.equals(EventType.STORAGE_PROVIDERS_CHANGED) ||
-                eventType.equals(EventType.ACCOUNT_CHANGED) ||
-                isAnotherNode(event)) {
+                eventType.equals(EventType.ACCOUNT_CHANGED)) {
                 remove(accountId);
+            } else if (isAnotherNode(event)) {
+                invalidateSpaceACLs(accountId);
             }
         } else if (eventType.equals(EventType.ALL_ACCOUNTS_CHANGED)) {
             removeAll();
         }
     }
 
+    /*
+     * Space ACLs changed on another node are reloaded, without discarding
+     * the storage providers of the account
+     */
+    private void invalidateSpaceACLs(String accountId) {
+        StorageProviderFactory factory = getIfPresent(accountId);
+        if (factory instanceof StorageProviderFactoryImpl) {
+            ((StorageProviderFactoryImpl) factory).invalidateSpaceACLs();
+        } else if (null != factory) {
+            remove(accountId);
+        }
+    }
+
     private boolean isAnotherNode(AccountChangeEvent event) {
         if (event.getEventType()
                  .equals(EventType.STORAGE_PROVIDER_CACHE_ON_NODE_CHANGED)) {
@@ -7,6 +7,7 @@
  */
 package org.duracloud.durastore.util;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -18,8 +19,12 @@ import org.duracloud.common.changenotifier.AccountChangeNotifier;
 import org.duracloud.common.queue.QueueType;
 import org.duracloud.common.queue.TaskQueue;
 import org.duracloud.common.queue.aws.SQSTaskQueue;
+import org.duracloud.common.queue.buffered.BufferedTaskQueue;
 import org.duracloud.common.queue.noop.NoopTaskQueue;
 import org.duracloud.common.queue.rabbitmq.RabbitmqTaskQueue;
+import org.duracloud.common.queue.task.CompactTaskCodec;
+import org.duracloud.common.queue.task.PropertiesTaskCodec;
+import org.duracloud.common.queue.task.TaskCodec;
 import org.duracloud.common.rest.DuraCloudRequestContextUtil;
 import org.duracloud.common.util.UserUtil;
 import org.duracloud.durastore.test.MockRetryStorageProvider;
@@ -53,11 +58,20 @@ import org.slf4j.LoggerFactory;
 public class StorageProviderFactoryImpl extends ProviderFactoryBase
     implements StorageProviderFactory {
 
+    // System property naming the directory in which audit tasks are kept
+    // when they cannot be put on the audit queue
+    public static final String AUDIT_SPILL_DIR_PROP = "duracloud.audit.spill.dir";
+
+    // System property which, when "true", writes audit tasks in the compact
+    // task encoding. Only set once all audit queue consumers decode it.
+    public static final String AUDIT_COMPACT_TASKS_PROP = "duracloud.audit.compact.tasks";
+
     private Logger log =
         LoggerFactory.getLogger(StorageProviderFactoryImpl.class);
 
     private StatelessStorageProvider statelessProvider;
     private Map<String, StorageProvider> storageProviders;
+    private Map<String, ACLStorageProvider> aclProviders = new ConcurrentHashMap<>();
     private UserUtil userUtil;
     private TaskQueue auditQueue;
     private boolean cacheStorageProvidersOnInit = false;
@@ -140,6 +154,8 @@ public class StorageProviderFactoryImpl extends ProviderFactoryBase
                 this.auditQueue = new NoopTaskQueue();
             } else {
                 QueueType queueType = auditConfig.getQueueType();
+                TaskQueue queue;
+                TaskCodec taskCodec = getAuditTaskCodec();
                 if (queueType == QueueType.RABBITMQ) {
                     //RabbitMQ
                     String host = auditConfig.getRabbitmqHost();
@@ -150,15 +166,40 @@ public class StorageProviderFactoryImpl extends ProviderFactoryBase
                     String password = auditConfig.getRabbitmqPassword();
                     log.info("Configuring Audit queue with host: {}, port: {}, vhost: {}, exchange: {}, queue: {}",
                              host, port, vhost, exchange, queueName);
-                    this.auditQueue = new RabbitmqTaskQueue(host, port, vhost, exchange, username, password, queueName);
+                    RabbitmqTaskQueue rabbitmqQueue =
+                        new RabbitmqTaskQueue(host, port, vhost, exchange, username, password, queueName);
+                    rabbitmqQueue.setTaskCodec(taskCodec);
+                    queue = rabbitmqQueue;
                 } else {
                     //AWS - SQS
-                    this.auditQueue = new SQSTaskQueue(queueName);
+                    SQSTaskQueue sqsQueue = new SQSTaskQueue(queueName);
+                    sqsQueue.setTaskCodec(taskCodec);
+                    queue = sqsQueue;
                 }
+                // Audit tasks are put on the queue in the background, so
+                // that writes do not wait on the queue
+                this.auditQueue = new BufferedTaskQueue(queue, getAuditSpillDir());
             }
         }
     }
 
+    private TaskCodec getAuditTaskCodec() {
+        if (Boolean.parseBoolean(System.getProperty(AUDIT_COMPACT_TASKS_PROP))) {
+            log.info("Audit tasks will be written in the compact task encoding");
+            return new CompactTaskCodec();
+        }
+        return new PropertiesTaskCodec();
+    }
+
+    private File getAuditSpillDir() {
+        String spillDir = System.getProperty(AUDIT_SPILL_DIR_PROP);
+        if (null == spillDir) {
+            spillDir = new File(System.getProperty("java.io.tmpdir"),
+                                "duracloud-audit-spill").getAbsolutePath();
+        }
+        return new File(spillDir);
+    }
+
     @Override
     public TaskQueue getAuditQueue() {
         return this.auditQueue;
@@ -266,7 +307,8 @@ public class StorageProviderFactoryImpl extends ProviderFactoryBase
             ((StorageProviderBase) storageProvider).setWrappedStorageProvider(auditProvider);
         }
 
-        StorageProvider aclProvider = new ACLStorageProvider(auditProvider, notifier, contextUtil);
+        ACLStorageProvider aclProvider =
+            new ACLStorageProvider(auditProvider, notifier, contextUtil);
         StorageProvider brokeredProvider =
             new BrokeredStorageProvider(statelessProvider,
                                         aclProvider,
@@ -274,6 +316,7 @@ public class StorageProviderFactoryImpl extends ProviderFactoryBase
                                         storageAccountId);
 
         storageProviders.put(storageAccountId, brokeredProvider);
+        aclProviders.put(storageAccountId, aclProvider);
         return brokeredProvider;
     }
 
@@ -296,6 +339,17 @@ public class StorageProviderFactoryImpl extends ProviderFactoryBase
 
         log.info("Expiring storage provider connection!  Storage account id: {}", storageAccountId);
         storageProviders.remove(storageAccountId);
+        aclProviders.remove(storageAccountId);
+    }
+
+    /**
+     * Discards the space ACLs cached by each storage provider, which are then
+     * loaded again. Used when space ACLs have been changed on another node.
+     */
+    public void invalidateSpaceACLs() {
+        for (ACLStorageProvider aclProvider : aclProviders.values()) {
+            aclProvider.invalidateCache();
+        }
     }
 
 }
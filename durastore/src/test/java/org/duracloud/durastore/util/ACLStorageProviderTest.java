@@ -11,6 +11,7 @@ import static org.duracloud.storage.provider.StorageProvider.PROPERTIES_SPACE_AC
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.makeThreadSafe;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 
@@ -20,6 +21,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.duracloud.common.changenotifier.AccountChangeNotifier;
 import org.duracloud.common.model.AclType;
@@ -77,6 +80,10 @@ public class ACLStorageProviderTest {
 
     @After
     public void tearDown() throws Exception {
+        // ACLs are loaded in the background
+        if (null != provider) {
+            provider.waitForCache();
+        }
         verify(mockProvider, context);
         SecurityContextHolder.clearContext();
     }
@@ -252,6 +259,37 @@ public class ACLStorageProviderTest {
         Assert.assertEquals(origAcls, acls);
     }
 
+    @Test(timeout = 5000)
+    public void testGetSpaceACLsDuringSlowLoad() throws Exception {
+        NUM_SPACES = 20;
+        String spaceId = spacePrefix + (NUM_SPACES - 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        mockProvider = createMock("StorageProvider", StorageProvider.class);
+        // calls are not to wait on the calls of the held up load
+        makeThreadSafe(mockProvider, false);
+        expect(mockProvider.getSpaces()).andReturn(allSpaces().iterator());
+        for (String space : allSpaces()) {
+            if (space.equals(spaceId)) {
+                expect(mockProvider.getSpaceACLs(space)).andReturn(createSpaceACLs());
+            } else {
+                expect(mockProvider.getSpaceACLs(space)).andAnswer(() -> {
+                    release.await(10, TimeUnit.SECONDS);
+                    return new HashMap<>();
+                });
+            }
+        }
+        replayMocks();
+
+        // the background load is held up, the space is loaded on demand
+        provider = createProvider();
+        try {
+            Assert.assertEquals(createSpaceACLs(), provider.getSpaceACLs(spaceId));
+        } finally {
+            release.countDown();
+        }
+    }
+
     private Map<String, AclType> createSpaceACLs() {
         Map<String, AclType> acls = new HashMap<String, AclType>();
         acls.put(PROPERTIES_SPACE_ACL + username, AclType.WRITE);
@@ -272,6 +310,7 @@ public class ACLStorageProviderTest {
 
         // method under test
         provider = createProvider();
+        provider.waitForCache();
         provider.setSpaceACLs(spaceId, origAcls);
 
         // getting ACLs should only hit the cache.
@@ -294,10 +333,29 @@ public class ACLStorageProviderTest {
 
         // method under test
         provider = createProvider();
+        provider.waitForCache();
         provider.deleteSpace(spaceId);
 
         // wait for cache to be cleared and reloaded.
         provider.getSpaceACLs(spaceId);
     }
 
+    @Test
+    public void testInvalidateCache() throws Exception {
+        String spaceId = spacePrefix + 1;
+        createMockStorageProvider(2);
+        replayMocks();
+
+        provider = createProvider();
+        provider.waitForCache();
+        Assert.assertTrue(provider.getSpaceACLs(spaceId)
+                                  .containsKey(StorageProvider.PROPERTIES_SPACE_ACL_PUBLIC));
+
+        // all ACLs are loaded again
+        provider.invalidateCache();
+        provider.waitForCache();
+        Assert.assertTrue(provider.getSpaceACLs(spaceId)
+                                  .containsKey(StorageProvider.PROPERTIES_SPACE_ACL_PUBLIC));
+    }
+
 }
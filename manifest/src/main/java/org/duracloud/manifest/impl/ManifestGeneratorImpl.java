@@ -106,7 +106,10 @@ public class ManifestGeneratorImpl implements ManifestGenerator {
         StorageProvider store =
             this.storageProviderFactory.getStorageProvider(storeId);
         try {
-            store.getSpaceProperties(spaceId);
+            // Reading the space ACLs is a simple check that the space exists,
+            // which (unlike reading space properties) does not count the
+            // items in the space
+            store.getSpaceACLs(spaceId);
         } catch (NotFoundException ex) {
             throw new ManifestNotFoundException("there is no manifest for space: " + spaceId
                                                 + " where storeId = " + storeId
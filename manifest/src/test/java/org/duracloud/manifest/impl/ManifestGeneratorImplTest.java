@@ -24,6 +24,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.duracloud.common.constant.ManifestFormat;
+import org.duracloud.common.model.AclType;
 import org.duracloud.manifest.error.ManifestArgumentException;
 import org.duracloud.manifest.error.ManifestNotFoundException;
 import org.duracloud.mill.db.model.ManifestItem;
@@ -101,7 +102,7 @@ public class ManifestGeneratorImplTest extends AbstractTestBase {
         expect(storageAccount.getId()).andReturn(storeId);
         StorageProvider store = createMock(StorageProvider.class);
         expect(storageProviderFactory.getStorageProvider(storeId)).andReturn(store);
-        expect(store.getSpaceProperties(eq(spaceId))).andReturn(new HashMap<String, String>());
+        expect(store.getSpaceACLs(eq(spaceId))).andReturn(new HashMap<String, AclType>());
     }
 
     @Test
@@ -96,6 +96,9 @@ public class RetrievalTool {
                                           outWriter,
                                           createSpaceDir,
                                           applyTimestamps);
+        retManager.setRangedRetrieval(
+            retConfig.getRangedRetrievalSize() * 1024L * 1024L,
+            retConfig.getRangedRetrievalThreads());
 
         executor.execute(retManager);
     }
@@ -114,7 +117,8 @@ public class RetrievalTool {
                     retSource = new DuraStoreSpecifiedRetrievalSource(
                         contentStore,
                         retConfig.getSpaces(),  // this list should only contain 1 space ID, length 1
-                        specifiedIds.iterator());
+                        specifiedIds.iterator(),
+                        retConfig.getChunkPrefetchCount());
                 } catch (FileNotFoundException fnfe) {
                     String error = "Error: file of content IDs specified using '-f' option does not exist.\n" +
                                    "Error Message: " + fnfe.getMessage();
@@ -127,7 +131,8 @@ public class RetrievalTool {
             } else {
                 retSource = new DuraStoreStitchingRetrievalSource(contentStore,
                                                                   retConfig.getSpaces(),
-                                                                  retConfig.isAllSpaces());
+                                                                  retConfig.isAllSpaces(),
+                                                                  retConfig.getChunkPrefetchCount());
             }
         }
         return retSource;
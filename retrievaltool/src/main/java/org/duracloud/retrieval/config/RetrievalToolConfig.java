@@ -35,6 +35,9 @@ public class RetrievalToolConfig implements Serializable {
     private boolean applyTimestamps;
     private boolean listOnly;
     private File listFile;
+    private int rangedRetrievalSize;
+    private int rangedRetrievalThreads;
+    private int chunkPrefetchCount;
 
     public String getPrintableConfig() {
         StringBuilder config = new StringBuilder();
@@ -81,6 +84,16 @@ public class RetrievalToolConfig implements Serializable {
             config.append(listFile.getAbsolutePath()).append("\n");
         }
 
+        if (rangedRetrievalSize > 0) {
+            config.append("Retrieval Tool Ranged Retrieval Size (MB): ");
+            config.append(getRangedRetrievalSize()).append("\n");
+            config.append("Retrieval Tool Ranged Retrieval Threads: ");
+            config.append(getRangedRetrievalThreads()).append("\n");
+        }
+
+        config.append("Retrieval Tool Chunk Prefetch Count: ");
+        config.append(getChunkPrefetchCount()).append("\n");
+
         config.append("--------------------------------------\n");
 
         return config.toString();
@@ -210,4 +223,28 @@ public class RetrievalToolConfig implements Serializable {
         this.listFile = listFile;
     }
 
+    public int getRangedRetrievalSize() {
+        return rangedRetrievalSize;
+    }
+
+    public void setRangedRetrievalSize(int rangedRetrievalSize) {
+        this.rangedRetrievalSize = rangedRetrievalSize;
+    }
+
+    public int getRangedRetrievalThreads() {
+        return rangedRetrievalThreads;
+    }
+
+    public void setRangedRetrievalThreads(int rangedRetrievalThreads) {
+        this.rangedRetrievalThreads = rangedRetrievalThreads;
+    }
+
+    public int getChunkPrefetchCount() {
+        return chunkPrefetchCount;
+    }
+
+    public void setChunkPrefetchCount(int chunkPrefetchCount) {
+        this.chunkPrefetchCount = chunkPrefetchCount;
+    }
+
 }
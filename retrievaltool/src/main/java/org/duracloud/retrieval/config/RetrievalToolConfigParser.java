@@ -31,6 +31,8 @@ public class RetrievalToolConfigParser {
 
     protected static final int DEFAULT_PORT = 443;
     protected static final int DEFAULT_NUM_THREADS = 3;
+    protected static final int DEFAULT_RANGED_RETRIEVAL_THREADS = 4;
+    protected static final int DEFAULT_CHUNK_PREFETCH_COUNT = 2;
     protected static final String DEFAULT_CONTEXT = "durastore";
 
     private Options cmdOptions;
@@ -158,6 +160,39 @@ public class RetrievalToolConfigParser {
                        "operate on one space at a time.");
         listFile.setRequired(false);
         cmdOptions.addOption(listFile);
+
+        Option rangedRetrievalSize =
+            new Option("g", "ranged-retrieval-size", true,
+                       "content items of this size (in MB) or larger are " +
+                       "retrieved as byte ranges which are downloaded in " +
+                       "parallel, using the number of threads specified by " +
+                       "the ranged-retrieval-threads (-n) option. A failed " +
+                       "retrieval resumes with the ranges which were not " +
+                       "completed. (optional, not set by default)");
+        rangedRetrievalSize.setRequired(false);
+        cmdOptions.addOption(rangedRetrievalSize);
+
+        Option rangedRetrievalThreads =
+            new Option("n", "ranged-retrieval-threads", true,
+                       "the number of byte ranges of a single content item " +
+                       "which are downloaded in parallel when ranged " +
+                       "retrieval (-g) is enabled. Each of the threads (-t) " +
+                       "may use this many connections. (optional, default " +
+                       "value is " + DEFAULT_RANGED_RETRIEVAL_THREADS + ")");
+        rangedRetrievalThreads.setRequired(false);
+        cmdOptions.addOption(rangedRetrievalThreads);
+
+        Option chunkPrefetchCount =
+            new Option("k", "chunk-prefetch-count", true,
+                       "the number of chunks of a chunked content item " +
+                       "which are downloaded ahead of the chunk being " +
+                       "written to the local file. Each of the threads (-t) " +
+                       "may use this many additional connections; a value " +
+                       "of 0 downloads one chunk at a time. (optional, " +
+                       "default value is " + DEFAULT_CHUNK_PREFETCH_COUNT +
+                       ")");
+        chunkPrefetchCount.setRequired(false);
+        cmdOptions.addOption(chunkPrefetchCount);
     }
 
     /**
@@ -324,6 +359,40 @@ public class RetrievalToolConfigParser {
             }
         }
 
+        if (cmd.hasOption("g")) {
+            try {
+                config.setRangedRetrievalSize(
+                    Integer.valueOf(cmd.getOptionValue("g")));
+            } catch (NumberFormatException e) {
+                throw new ParseException("The value for ranged retrieval " +
+                                         "size (-g) must be a number.");
+            }
+        }
+
+        if (cmd.hasOption("n")) {
+            try {
+                config.setRangedRetrievalThreads(
+                    Integer.valueOf(cmd.getOptionValue("n")));
+            } catch (NumberFormatException e) {
+                throw new ParseException("The value for ranged retrieval " +
+                                         "threads (-n) must be a number.");
+            }
+        } else {
+            config.setRangedRetrievalThreads(DEFAULT_RANGED_RETRIEVAL_THREADS);
+        }
+
+        if (cmd.hasOption("k")) {
+            try {
+                config.setChunkPrefetchCount(
+                    Integer.valueOf(cmd.getOptionValue("k")));
+            } catch (NumberFormatException e) {
+                throw new ParseException("The value for chunk prefetch " +
+                                         "count (-k) must be a number.");
+            }
+        } else {
+            config.setChunkPrefetchCount(DEFAULT_CHUNK_PREFETCH_COUNT);
+        }
+
         return config;
     }
 
@@ -0,0 +1,296 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.retrieval.mgmt;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.duracloud.common.model.ContentItem;
+import org.duracloud.common.retry.Retrier;
+import org.duracloud.common.util.ChecksumUtil;
+import org.duracloud.retrieval.source.RetrievalSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Retrieves a single large content item as a set of byte ranges which are
+ * downloaded in parallel and written into place in a preallocated file.
+ *
+ * The content is written to a partial file alongside the local file, and the
+ * ranges which have been completed are recorded in a progress file. If the
+ * retrieval fails, a later retrieval of the same content item resumes by
+ * downloading only the ranges which were not completed. Once all ranges are
+ * in place the checksum of the partial file is verified, after which it is
+ * moved to the local file.
+ *
+ * @author agent
+ */
+public class RangedRetriever {
+
+    private final Logger logger = LoggerFactory.getLogger(RangedRetriever.class);
+
+    public static final long DEFAULT_RANGE_SIZE = 64 * 1024 * 1024; // 64 MB
+    public static final String PART_SUFFIX = ".part";
+    public static final String PROGRESS_SUFFIX = ".ranges";
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int RANGE_ATTEMPTS = 5;
+
+    private ContentItem contentItem;
+    private RetrievalSource source;
+    private File localFile;
+    private long size;
+    private String checksum;
+    private int threads;
+    private long rangeSize;
+
+    private File partFile;
+    private File progressFile;
+    private DataOutputStream progress;
+    private FileChannel channel;
+
+    /**
+     * @param contentItem the content item to retrieve
+     * @param source      the source of the content
+     * @param localFile   the file to which the content is written
+     * @param size        the size of the content item
+     * @param checksum    the MD5 checksum of the content item
+     * @param threads     the number of ranges to download at once
+     * @param rangeSize   the size of each range
+     */
+    public RangedRetriever(ContentItem contentItem,
+                           RetrievalSource source,
+                           File localFile,
+                           long size,
+                           String checksum,
+                           int threads,
+                           long rangeSize) {
+        this.contentItem = contentItem;
+        this.source = source;
+        this.localFile = localFile;
+        this.size = size;
+        this.checksum = checksum;
+        this.threads = Math.max(threads, 1);
+        this.rangeSize = rangeSize;
+        this.partFile = new File(localFile.getParentFile(),
+                                 localFile.getName() + PART_SUFFIX);
+        this.progressFile = new File(localFile.getParentFile(),
+                                     localFile.getName() + PROGRESS_SUFFIX);
+    }
+
+    /**
+     * Retrieves the content item to the local file.
+     *
+     * @throws IOException if any range cannot be retrieved or the checksum of
+     *                     the retrieved content does not match
+     */
+    public void retrieve() throws IOException {
+        int rangeCount = (int) ((size + rangeSize - 1) / rangeSize);
+        BitSet completed = readProgress();
+        boolean resume = null != completed;
+        if (!resume) {
+            completed = new BitSet();
+        }
+        logger.info("Retrieving {} in {} ranges, {} of which are already " +
+                    "complete", contentItem, rangeCount, completed.cardinality());
+
+        try (RandomAccessFile file = new RandomAccessFile(partFile, "rw")) {
+            file.setLength(size);
+            channel = file.getChannel();
+            progress = new DataOutputStream(
+                new FileOutputStream(progressFile, true));
+            try {
+                if (!resume) {
+                    writeProgressHeader();
+                }
+                downloadRanges(rangeCount, completed);
+            } finally {
+                progress.close();
+            }
+        }
+
+        if (!checksum.equals(getChecksum(partFile))) {
+            cleanup();
+            throw new IOException("Calculated checksum value for retrieved " +
+                                  "file does not match properties checksum.");
+        }
+        Files.move(partFile.toPath(), localFile.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING);
+        progressFile.delete();
+    }
+
+    private void downloadRanges(int rangeCount, BitSet completed)
+        throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = completed.nextClearBit(0);
+                 i < rangeCount;
+                 i = completed.nextClearBit(i + 1)) {
+                final int index = i;
+                results.add(executor.submit(() -> {
+                    getRetrier().execute(() -> {
+                        downloadRange(index);
+                        return null;
+                    });
+                    recordRange(index);
+                    return null;
+                }));
+            }
+
+            IOException failure = null;
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    if (null == failure) {
+                        failure = new IOException("Unable to retrieve " +
+                                                  contentItem + ": " +
+                                                  e.getCause().getMessage(),
+                                                  e.getCause());
+                        // Ranges which have not started are left for a
+                        // later attempt
+                        for (Future<?> pending : results) {
+                            pending.cancel(false);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted retrieving " +
+                                          contentItem, e);
+                } catch (CancellationException e) {
+                    // Cancelled following an earlier failure
+                }
+            }
+            if (null != failure) {
+                throw failure;
+            }
+        } finally {
+            // Ranges already underway are allowed to finish, as they write
+            // to the partial file
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.HOURS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+     * Downloads a single range, writing it into place in the partial file
+     */
+    private void downloadRange(int index) throws IOException {
+        long start = index * rangeSize;
+        long end = Math.min(start + rangeSize, size) - 1;
+        long position = start;
+
+        try (InputStream stream =
+                 source.getSourceContentRange(contentItem, start, end)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while (position <= end && (read = stream.read(buffer)) != -1) {
+                int length = (int) Math.min(read, end - position + 1);
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes, position);
+                }
+            }
+        }
+
+        if (position <= end) {
+            throw new IOException("Range " + start + "-" + end + " of " +
+                                  contentItem + " ended at byte " + position);
+        }
+    }
+
+    /*
+     * Records a range as complete once its bytes have reached the disk
+     */
+    private synchronized void recordRange(int index) throws IOException {
+        channel.force(false);
+        progress.writeInt(index);
+        progress.flush();
+    }
+
+    private void writeProgressHeader() throws IOException {
+        progress.writeLong(size);
+        progress.writeLong(rangeSize);
+        progress.writeUTF(checksum);
+        progress.flush();
+    }
+
+    /*
+     * Reads the ranges completed by an earlier retrieval. If there is no
+     * earlier retrieval of the same content, any leftover files are removed
+     * and null is returned.
+     */
+    private BitSet readProgress() {
+        if (progressFile.exists() && partFile.exists() &&
+            partFile.length() == size) {
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(progressFile)))) {
+                if (in.readLong() == size && in.readLong() == rangeSize &&
+                    in.readUTF().equals(checksum)) {
+                    BitSet completed = new BitSet();
+                    try {
+                        while (true) {
+                            completed.set(in.readInt());
+                        }
+                    } catch (EOFException e) {
+                        // End of recorded ranges
+                    }
+                    return completed;
+                }
+            } catch (IOException e) {
+                logger.warn("Unable to read retrieval progress for " +
+                            contentItem + ", retrieving all ranges: " +
+                            e.getMessage());
+            }
+        }
+        cleanup();
+        return null;
+    }
+
+    private void cleanup() {
+        partFile.delete();
+        progressFile.delete();
+    }
+
+    protected Retrier getRetrier() {
+        return new Retrier(RANGE_ATTEMPTS, 1000, 2);
+    }
+
+    protected String getChecksum(File file) throws IOException {
+        ChecksumUtil checksumUtil =
+            new ChecksumUtil(ChecksumUtil.Algorithm.MD5);
+        return checksumUtil.generateChecksum(file);
+    }
+
+}
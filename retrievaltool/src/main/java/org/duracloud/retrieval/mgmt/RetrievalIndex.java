@@ -0,0 +1,267 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.retrieval.mgmt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.duracloud.common.model.ContentItem;
+import org.duracloud.common.util.ChecksumUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the content items which have been retrieved, so that a later run
+ * of the retrieval tool can compare the checksum of a local file with the
+ * checksum of the content item without reading the local file.
+ *
+ * Each record holds the content item, the path of the local file and the
+ * size, last modified time and MD5 checksum of the local file when the
+ * retrieval completed. The recorded checksum is used while the size and
+ * last modified time of the local file match the record.
+ *
+ * Records are appended to the index file as retrievals complete. If the
+ * tool stops while writing a record, that record is discarded when the
+ * index is next loaded. Records which have been replaced by later records
+ * for the same content item are removed when the index is loaded.
+ *
+ * @author agent
+ */
+public class RetrievalIndex {
+
+    private final Logger logger = LoggerFactory.getLogger(RetrievalIndex.class);
+
+    private static final int MD5_LENGTH = 16;
+
+    private File indexFile;
+    private Map<String, IndexEntry> entries;
+    private DataOutputStream out;
+
+    /**
+     * Reads the records in the index file, if it exists, and opens the file
+     * for further records to be added.
+     *
+     * @param indexFile the file holding the index
+     */
+    public RetrievalIndex(File indexFile) {
+        this.indexFile = indexFile;
+        this.entries = new ConcurrentHashMap<>();
+        if (indexFile.exists()) {
+            long records = readEntries();
+            if (records > entries.size()) {
+                compact();
+            }
+            logger.info("Loaded {} completed retrievals from {}",
+                        entries.size(), indexFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Determines if the content item has been retrieved to the given local
+     * file, and the local file has not changed since.
+     *
+     * @param contentItem the content item
+     * @param localFile   the local file
+     * @return the MD5 checksum of the content item if it has been retrieved,
+     * null otherwise
+     */
+    public String getRetrievedChecksum(ContentItem contentItem, File localFile) {
+        IndexEntry entry = entries.get(getKey(contentItem));
+        if (null != entry &&
+            entry.path.equals(localFile.getAbsolutePath()) &&
+            entry.size == localFile.length() &&
+            entry.lastModified == localFile.lastModified()) {
+            return ChecksumUtil.checksumBytesToString(entry.md5);
+        }
+        return null;
+    }
+
+    /**
+     * Records the retrieval of a content item to a local file.
+     *
+     * @param contentItem the content item
+     * @param localFile   the local file, which is complete
+     * @param checksum    the MD5 checksum of the content item
+     */
+    public void addRetrieved(ContentItem contentItem,
+                             File localFile,
+                             String checksum) {
+        if (null == checksum || checksum.length() != MD5_LENGTH * 2) {
+            return;
+        }
+
+        IndexEntry entry = new IndexEntry(localFile.getAbsolutePath(),
+                                          localFile.length(),
+                                          localFile.lastModified(),
+                                          ChecksumUtil.hexStringToByteArray(checksum));
+        String key = getKey(contentItem);
+        if (!entry.equals(entries.put(key, entry))) {
+            appendEntry(contentItem, entry);
+        }
+    }
+
+    private synchronized void appendEntry(ContentItem contentItem,
+                                          IndexEntry entry) {
+        try {
+            if (null == out) {
+                out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(indexFile, true)));
+            }
+            writeEntry(out, getKey(contentItem), entry);
+            out.flush();
+        } catch (IOException e) {
+            logger.warn("Unable to add " + contentItem + " to retrieval " +
+                        "index " + indexFile.getAbsolutePath() + ": " +
+                        e.getMessage());
+        }
+    }
+
+    /*
+     * Each record is: content item key, local path, size, last modified
+     * time, MD5 bytes
+     */
+    private void writeEntry(DataOutputStream output, String key, IndexEntry entry)
+        throws IOException {
+        output.writeUTF(key);
+        output.writeUTF(entry.path);
+        output.writeLong(entry.size);
+        output.writeLong(entry.lastModified);
+        output.write(entry.md5);
+    }
+
+    /*
+     * Reads the records in the index file, returning the number of records
+     * read. Anything following the last complete record is removed.
+     */
+    private long readEntries() {
+        long records = 0;
+        long validLength = 0;
+        try (CountingInputStream counter = new CountingInputStream(
+            new BufferedInputStream(new FileInputStream(indexFile)));
+             DataInputStream in = new DataInputStream(counter)) {
+            while (true) {
+                String key = in.readUTF();
+                IndexEntry entry = new IndexEntry(in.readUTF(),
+                                                  in.readLong(),
+                                                  in.readLong(),
+                                                  new byte[MD5_LENGTH]);
+                in.readFully(entry.md5);
+                entries.put(key, entry);
+                records++;
+                validLength = counter.getByteCount();
+            }
+        } catch (EOFException e) {
+            // End of the index, or a partially written final record
+        } catch (IOException e) {
+            logger.warn("Unable to read retrieval index " +
+                        indexFile.getAbsolutePath() + ", only " +
+                        entries.size() + " records were loaded: " +
+                        e.getMessage());
+        }
+
+        if (validLength < indexFile.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+                file.setLength(validLength);
+            } catch (IOException e) {
+                logger.warn("Unable to truncate retrieval index: " +
+                            e.getMessage());
+            }
+        }
+        return records;
+    }
+
+    /*
+     * Rewrites the index file with only the current record for each item
+     */
+    private void compact() {
+        File tempFile = new File(indexFile.getParentFile(),
+                                 indexFile.getName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            for (Map.Entry<String, IndexEntry> entry : entries.entrySet()) {
+                writeEntry(output, entry.getKey(), entry.getValue());
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to compact retrieval index: " + e.getMessage());
+            tempFile.delete();
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), indexFile.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Unable to replace retrieval index with compacted " +
+                        "index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the index file.
+     */
+    public synchronized void close() {
+        if (null != out) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.warn("Error closing retrieval index: " + e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    private String getKey(ContentItem contentItem) {
+        return contentItem.getSpaceId() + "/" + contentItem.getContentId();
+    }
+
+    private static class IndexEntry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final byte[] md5;
+
+        IndexEntry(String path, long size, long lastModified, byte[] md5) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof IndexEntry)) {
+                return false;
+            }
+            IndexEntry other = (IndexEntry) obj;
+            return path.equals(other.path) &&
+                   size == other.size &&
+                   lastModified == other.lastModified &&
+                   Arrays.equals(md5, other.md5);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified, Arrays.hashCode(md5));
+        }
+    }
+
+}
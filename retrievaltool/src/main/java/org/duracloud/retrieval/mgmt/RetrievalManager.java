@@ -8,10 +8,12 @@
 package org.duracloud.retrieval.mgmt;
 
 import java.io.File;
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.duracloud.common.model.ContentItem;
 import org.duracloud.common.retry.Retrier;
@@ -23,6 +25,11 @@ import org.slf4j.LoggerFactory;
  * The RetreivalManager manages the retrieval of files from DuraCloud to the
  * local file system.
  *
+ * Content items are handed to the worker threads through a bounded queue,
+ * so that a worker which completes a retrieval can begin the next one
+ * immediately. When the queue is full, listing of further content items
+ * waits until a retrieval completes.
+ *
  * @author: Bill Branan
  * Date: Oct 12, 2010
  */
@@ -31,14 +38,26 @@ public class RetrievalManager implements Runnable {
     private final Logger logger =
         LoggerFactory.getLogger(RetrievalManager.class);
 
+    // Content items queued for each worker thread, beyond the item
+    // the thread is retrieving
+    private static final int QUEUED_ITEMS_PER_THREAD = 2;
+
+    public static final String RETRIEVAL_INDEX_FILE = "retrieval-index";
+
     private RetrievalSource source;
     private File contentDir;
     private File workDir;
     private boolean overwrite;
     private ThreadPoolExecutor workerPool;
+    // Permits for content items which have been handed to the worker pool
+    // but not yet completed
+    private Semaphore workSlots;
+    private RetrievalIndex retrievalIndex;
     private OutputWriter outWriter;
     private boolean createSpaceDir;
     private boolean applyTimestamps;
+    private long rangedRetrievalSize = 0;
+    private int rangedRetrievalThreads = 1;
     private boolean complete;
 
     public RetrievalManager(RetrievalSource source,
@@ -59,13 +78,35 @@ public class RetrievalManager implements Runnable {
         this.applyTimestamps = applyTimestamps;
 
         // Create thread pool for retrieval workers
+        AtomicInteger threadCount = new AtomicInteger(0);
+        ThreadFactory threadFactory = runnable -> {
+            return new Thread(runnable,
+                              "retrieval-worker-" + threadCount.incrementAndGet());
+        };
         workerPool =
             new ThreadPoolExecutor(threads,
                                    threads,
                                    Long.MAX_VALUE,
                                    TimeUnit.NANOSECONDS,
-                                   new SynchronousQueue(),
-                                   new ThreadPoolExecutor.AbortPolicy());
+                                   new LinkedBlockingQueue<>(),
+                                   threadFactory);
+        workSlots = new Semaphore(threads * (1 + QUEUED_ITEMS_PER_THREAD));
+
+        retrievalIndex = new RetrievalIndex(new File(workDir, RETRIEVAL_INDEX_FILE));
+    }
+
+    /**
+     * Enables retrieval of large content items as byte ranges which are
+     * downloaded in parallel.
+     *
+     * @param minSize content items of at least this size (in bytes) are
+     *                retrieved as ranges, 0 disables ranged retrieval
+     * @param threads the number of ranges of each content item to download
+     *                at once
+     */
+    public void setRangedRetrieval(long minSize, int threads) {
+        this.rangedRetrievalSize = minSize;
+        this.rangedRetrievalThreads = threads;
     }
 
     /**
@@ -83,9 +124,7 @@ public class RetrievalManager implements Runnable {
                 if (contentItem == null) {
                     break;
                 }
-                while (!retrieveContent(contentItem)) {
-                    sleep(1000);
-                }
+                retrieveContent(contentItem);
             }
 
         } catch (Exception ex) {
@@ -95,15 +134,13 @@ public class RetrievalManager implements Runnable {
         }
     }
 
-    private void sleep(long millis) {
-        try {
-            Thread.sleep(millis);
-        } catch (InterruptedException e) {
-            // Exit sleep on interruption
-        }
-    }
-
-    private boolean retrieveContent(ContentItem contentItem) {
+    /*
+     * Hands the content item to the worker pool, waiting for a retrieval to
+     * complete if the queue of pending items is full
+     */
+    private void retrieveContent(ContentItem contentItem)
+        throws InterruptedException {
+        workSlots.acquire();
         try {
             logger.debug("contentItem={}", contentItem);
             RetrievalWorker worker = new RetrievalWorker(contentItem,
@@ -113,10 +150,18 @@ public class RetrievalManager implements Runnable {
                                                          outWriter,
                                                          createSpaceDir,
                                                          applyTimestamps);
-            workerPool.execute(worker);
-            return true;
-        } catch (RejectedExecutionException e) {
-            return false;
+            worker.setRangedRetrieval(rangedRetrievalSize, rangedRetrievalThreads);
+            worker.setRetrievalIndex(retrievalIndex);
+            workerPool.execute(() -> {
+                try {
+                    worker.run();
+                } finally {
+                    workSlots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            workSlots.release();
+            throw e;
         }
     }
 
@@ -133,6 +178,7 @@ public class RetrievalManager implements Runnable {
         } catch (InterruptedException e) {
             // Exit wait on interruption
         }
+        retrievalIndex.close();
 
         complete = true;
     }
@@ -57,6 +57,10 @@ public class RetrievalWorker implements Runnable {
     private int attempts;
     private File localFile;
     private ContentStream contentStream;
+    private long rangedRetrievalSize = 0;
+    private int rangedRetrievalThreads = 1;
+    private long retrievedBytes = 0;
+    private RetrievalIndex retrievalIndex;
 
     private StatusManager statusManager;
 
@@ -81,12 +85,40 @@ public class RetrievalWorker implements Runnable {
         this.attempts = 0;
     }
 
+    /**
+     * Enables retrieval of large content items as byte ranges which are
+     * downloaded in parallel.
+     *
+     * @param minSize content items of at least this size (in bytes) are
+     *                retrieved as ranges, 0 disables ranged retrieval
+     * @param threads the number of ranges to download at once
+     */
+    public void setRangedRetrieval(long minSize, int threads) {
+        this.rangedRetrievalSize = minSize;
+        this.rangedRetrievalThreads = threads;
+    }
+
+    /**
+     * Sets the index in which completed retrievals are recorded, and which
+     * is used to avoid reading unchanged local files when comparing them
+     * with the content in DuraCloud.
+     *
+     * @param retrievalIndex the index, may be null
+     */
+    public void setRetrievalIndex(RetrievalIndex retrievalIndex) {
+        this.retrievalIndex = retrievalIndex;
+    }
+
     public void run() {
+        long startTime = System.currentTimeMillis();
         try {
             statusManager.startingWork();
             retrieveFile();
         } catch (Throwable e) {
             logger.error(e.getMessage(), e);
+        } finally {
+            statusManager.recordRetrieval(retrievedBytes,
+                                          System.currentTimeMillis() - startTime);
         }
     }
 
@@ -101,8 +133,9 @@ public class RetrievalWorker implements Runnable {
         try {
             if (localFile.exists()) { // File already exists
                 props = getContentProperties();
-                if (checksumsMatch(localFile,
-                                   props.get(ContentStore.CONTENT_CHECKSUM))) {
+                if (localFileMatches(localFile,
+                                     props.get(ContentStore.CONTENT_CHECKSUM))) {
+                    addRetrieved(localFile, props);
                     noChangeNeeded(localFile.getAbsolutePath());
                 } else { // Different file in DuraStore
                     if (overwrite) {
@@ -110,7 +143,8 @@ public class RetrievalWorker implements Runnable {
                     } else {
                         renameFile(localFile);
                     }
-                    props = retrieveToFile(localFile, listener);
+                    props = retrieveToFile(localFile, listener, props);
+                    addRetrieved(localFile, props);
                     succeed(localFile.getAbsolutePath());
                 }
             } else { // File does not exist
@@ -120,6 +154,7 @@ public class RetrievalWorker implements Runnable {
                     parentDir.setWritable(true);
                 }
                 props = retrieveToFile(localFile, listener);
+                addRetrieved(localFile, props);
                 succeed(localFile.getAbsolutePath());
             }
         } catch (MissingContentException mce) {
@@ -162,6 +197,40 @@ public class RetrievalWorker implements Runnable {
         return this.localFile;
     }
 
+    /*
+     * Gets the checksum recorded in the retrieval index if the local file
+     * was retrieved by an earlier run and has not changed since
+     */
+    private String getRetrievedChecksum(File localFile) {
+        if (null == retrievalIndex) {
+            return null;
+        }
+        return retrievalIndex.getRetrievedChecksum(contentItem, localFile);
+    }
+
+    /*
+     * Checks to see if the local file matches the remote checksum. When the
+     * local file was retrieved by an earlier run and has not changed since,
+     * the checksum recorded in the retrieval index is compared rather than
+     * reading the local file.
+     */
+    private boolean localFileMatches(File localFile, String remoteChecksum)
+        throws IOException {
+        String retrievedChecksum = getRetrievedChecksum(localFile);
+        if (null != retrievedChecksum &&
+            null != remoteChecksum && !"".equals(remoteChecksum)) {
+            return retrievedChecksum.equals(remoteChecksum);
+        }
+        return checksumsMatch(localFile, remoteChecksum);
+    }
+
+    private void addRetrieved(File localFile, Map<String, String> props) {
+        if (null != retrievalIndex && null != props) {
+            retrievalIndex.addRetrieved(contentItem, localFile,
+                                        props.get(ContentStore.CONTENT_CHECKSUM));
+        }
+    }
+
     protected boolean checksumsMatch(File localFile) throws IOException {
         return checksumsMatch(localFile, null);
     }
@@ -234,6 +303,30 @@ public class RetrievalWorker implements Runnable {
      * otherwise an IOException is thrown.
      */
     protected Map<String, String> retrieveToFile(File localFile, RetrievalListener listener) throws IOException {
+        return retrieveToFile(localFile, listener, null);
+    }
+
+    /**
+     * Transfers the remote file stream to the local file, making use of
+     * content properties which have already been retrieved (may be null).
+     * When ranged retrieval is enabled and the size of the content item is
+     * not yet known, its properties are retrieved to determine the size.
+     */
+    protected Map<String, String> retrieveToFile(File localFile,
+                                                 RetrievalListener listener,
+                                                 Map<String, String> knownProps)
+        throws IOException {
+        if (rangedRetrievalSize > 0 &&
+            !new ChunkUtil().isChunkManifest(contentItem.getContentId())) {
+            Map<String, String> props = knownProps;
+            if (null == props || null == props.get(ContentStore.CONTENT_SIZE)) {
+                props = getContentProperties();
+            }
+            String size = props.get(ContentStore.CONTENT_SIZE);
+            if (null != size && Long.parseLong(size) >= rangedRetrievalSize) {
+                return retrieveRangesToFile(localFile, props);
+            }
+        }
 
         try {
             contentStream = new Retrier(5, 4000, 3).execute(() -> {
@@ -273,6 +366,27 @@ public class RetrievalWorker implements Runnable {
         return contentStream.getProperties();
     }
 
+    /*
+     * Transfers the remote file to the local file as byte ranges which are
+     * retrieved in parallel
+     */
+    protected Map<String, String> retrieveRangesToFile(File localFile,
+                                                       Map<String, String> props)
+        throws IOException {
+        new RangedRetriever(contentItem,
+                            source,
+                            localFile,
+                            Long.parseLong(props.get(ContentStore.CONTENT_SIZE)),
+                            props.get(ContentStore.CONTENT_CHECKSUM),
+                            rangedRetrievalThreads,
+                            RangedRetriever.DEFAULT_RANGE_SIZE).retrieve();
+
+        if (applyTimestamps) {
+            applyTimestamps(new ContentStream(null, props), localFile);
+        }
+        return props;
+    }
+
     /*
      * Applies timestamps which are found in the content item's properties
      * to the retrieved file
@@ -334,6 +448,7 @@ public class RetrievalWorker implements Runnable {
             logger.debug("Successfully retrieved " + contentItem.toString() +
                          " to local file " + localFilePath);
         }
+        retrievedBytes += new File(localFilePath).length();
         outWriter.writeSuccess(contentItem, localFilePath, attempts);
         statusManager.successfulCompletion();
     }
@@ -10,6 +10,10 @@ package org.duracloud.retrieval.mgmt;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Singleton class which tracks the status of the retrieval activity
@@ -29,6 +33,7 @@ public class StatusManager {
     private long missing;
     private String startTime;
     private String version;
+    private Map<String, ThreadStatus> threadStatus;
 
     private static StatusManager instance;
 
@@ -53,6 +58,7 @@ public class StatusManager {
         failed = 0;
         missing = 0;
         startTime = DATE_FORMAT.format(new Date());
+        threadStatus = new ConcurrentHashMap<>();
     }
 
     public synchronized void startingWork() {
@@ -79,6 +85,25 @@ public class StatusManager {
         inWork--;
     }
 
+    /**
+     * Records a completed retrieval against the current thread, used to
+     * report the throughput of each worker thread.
+     *
+     * @param bytes     the number of bytes retrieved
+     * @param elapsedMs the time spent on the retrieval
+     */
+    public void recordRetrieval(long bytes, long elapsedMs) {
+        String threadName = Thread.currentThread().getName();
+        ThreadStatus status = threadStatus.get(threadName);
+        if (null == status) {
+            threadStatus.putIfAbsent(threadName, new ThreadStatus());
+            status = threadStatus.get(threadName);
+        }
+        status.items.incrementAndGet();
+        status.bytes.addAndGet(bytes);
+        status.elapsedMs.addAndGet(elapsedMs);
+    }
+
     public long getInWork() {
         return inWork;
     }
@@ -116,8 +141,29 @@ public class StatusManager {
         status.append("No Change Needed: " + getNoChange() + "\n");
         status.append("Failed Retrievals: " + getFailed() + "\n");
         status.append("Missing files: " + getMissing() + "\n");
+        if (!threadStatus.isEmpty()) {
+            status.append("Worker Throughput:\n");
+            for (Map.Entry<String, ThreadStatus> entry :
+                new TreeMap<>(threadStatus).entrySet()) {
+                status.append("  " + entry.getKey() + ": " +
+                              entry.getValue().toString() + "\n");
+            }
+        }
         status.append("--------------------------------------\n");
         return status.toString();
     }
 
+    private static class ThreadStatus {
+        private final AtomicLong items = new AtomicLong(0);
+        private final AtomicLong bytes = new AtomicLong(0);
+        private final AtomicLong elapsedMs = new AtomicLong(0);
+
+        @Override
+        public String toString() {
+            long millis = Math.max(elapsedMs.get(), 1);
+            return items.get() + " files, " + (bytes.get() / 1024) + " KB, " +
+                   (bytes.get() * 1000 / millis / 1024) + " KB/s";
+        }
+    }
+
 }
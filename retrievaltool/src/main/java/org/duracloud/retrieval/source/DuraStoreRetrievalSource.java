@@ -7,12 +7,14 @@
  */
 package org.duracloud.retrieval.source;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
+import org.duracloud.client.ContentIterator;
 import org.duracloud.client.ContentStore;
 import org.duracloud.common.error.DuraCloudRuntimeException;
 import org.duracloud.common.model.ContentItem;
@@ -85,22 +87,22 @@ public class DuraStoreRetrievalSource implements RetrievalSource {
 
     @Override
     public synchronized ContentItem getNextContentItem() {
-        if (currentContentList != null && currentContentList.hasNext()) {
-            return new ContentItem(currentSpaceId, currentContentList.next());
-        } else if (spaceIds.hasNext()) {
+        while (currentContentList == null || !currentContentList.hasNext()) {
+            if (!spaceIds.hasNext()) {
+                return null;
+            }
             getNextSpace();
-            return getNextContentItem();
-        } else {
-            return null;
         }
+        return new ContentItem(currentSpaceId, currentContentList.next());
     }
 
     protected synchronized void getNextSpace() {
         if (spaceIds.hasNext()) {
             currentSpaceId = spaceIds.next();
             try {
-                currentContentList =
-                    contentStore.getSpaceContents(currentSpaceId);
+                // The full listing is read, so pages are retrieved ahead
+                currentContentList = ContentIterator.withPrefetch(
+                    contentStore.getSpaceContents(currentSpaceId));
             } catch (ContentStoreException e) {
                 logger.error("Unable to get contents of space: " +
                              currentSpaceId + " due to error: " + e.getMessage());
@@ -134,6 +136,22 @@ public class DuraStoreRetrievalSource implements RetrievalSource {
         return new ContentStream(content.getStream(), content.getProperties());
     }
 
+    @Override
+    public InputStream getSourceContentRange(ContentItem contentItem,
+                                             long startByte,
+                                             long endByte) {
+        try {
+            return contentStore.getContent(contentItem.getSpaceId(),
+                                           contentItem.getContentId(),
+                                           startByte,
+                                           endByte).getStream();
+        } catch (ContentStoreException e) {
+            throw new RuntimeException("Unable to get bytes " + startByte + "-" +
+                                       endByte + " of " + contentItem.toString() +
+                                       " due to: " + e.getMessage());
+        }
+    }
+
     protected Content doGetContent(ContentItem contentItem, RetrievalListener listener) {
         try {
             return contentStore.getContent(contentItem.getSpaceId(),
@@ -51,8 +51,9 @@ public class DuraStoreSpecifiedRetrievalSource extends DuraStoreStitchingRetriev
 
     public DuraStoreSpecifiedRetrievalSource(ContentStore store,
                                              List<String> singleSpaceList,
-                                             Iterator<String> specifiedContentIds) {
-        super(store, singleSpaceList, false);
+                                             Iterator<String> specifiedContentIds,
+                                             int chunkPrefetchCount) {
+        super(store, singleSpaceList, false, chunkPrefetchCount);
         if (singleSpaceList == null) {
             throw new DuraCloudRuntimeException("The space list specified for " +
                                                 "DuraStoreSpecifiedRetrievelSource must not be NULL.");
@@ -42,11 +42,20 @@ public class DuraStoreStitchingRetrievalSource extends DuraStoreRetrievalSource
     private FileStitcher stitcher;
     private ChunkUtil chunkUtil;
 
+    /**
+     * @param store              the content store holding the spaces
+     * @param spaces             the spaces to retrieve
+     * @param allSpaces          whether all spaces should be retrieved
+     * @param chunkPrefetchCount the number of chunks to retrieve ahead of the
+     *                           chunk being written to the local file
+     */
     public DuraStoreStitchingRetrievalSource(ContentStore store,
                                              List<String> spaces,
-                                             boolean allSpaces) {
+                                             boolean allSpaces,
+                                             int chunkPrefetchCount) {
         super(store, spaces, allSpaces);
-        this.stitcher = new FileStitcherImpl(new DuraStoreDataSource(store));
+        this.stitcher = new FileStitcherImpl(new DuraStoreDataSource(store),
+                                             chunkPrefetchCount);
         this.chunkUtil = new ChunkUtil();
     }
 
@@ -56,9 +65,9 @@ public class DuraStoreStitchingRetrievalSource extends DuraStoreRetrievalSource
         ContentItem item = super.getNextContentItem();
 
         // skip chunks.
-        if (null != item && chunkUtil.isChunk(item.getContentId())) {
+        while (null != item && chunkUtil.isChunk(item.getContentId())) {
             log.debug("skipping chunk item: {}", item);
-            item = getNextContentItem();
+            item = super.getNextContentItem();
         }
 
         log.debug("returning item: {}", item);
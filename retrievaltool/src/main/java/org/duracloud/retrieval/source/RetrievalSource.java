@@ -7,6 +7,7 @@
  */
 package org.duracloud.retrieval.source;
 
+import java.io.InputStream;
 import java.util.Map;
 
 import org.duracloud.common.model.ContentItem;
@@ -64,4 +65,17 @@ public interface RetrievalSource {
      */
     public ContentStream getSourceContent(ContentItem contentItem, RetrievalListener listener);
 
+    /**
+     * Gets a byte range of the content, allowing large files to be retrieved
+     * in parts.
+     *
+     * @param contentItem the file to retrieve
+     * @param startByte   the first byte of the range
+     * @param endByte     the last byte of the range (inclusive)
+     * @return stream of the bytes in the range
+     */
+    public InputStream getSourceContentRange(ContentItem contentItem,
+                                             long startByte,
+                                             long endByte);
+
 }
@@ -66,6 +66,8 @@ public class RetrievalToolConfigParserTest extends RetrievalTestBase {
         argsMap.remove("-a");
         argsMap.remove("-o");
         argsMap.remove("-t");
+        argsMap.remove("-n");
+        argsMap.remove("-k");
         argsMap.remove("-d");
         argsMap.remove("-l");
         argsMap.remove("-w");
@@ -76,6 +78,11 @@ public class RetrievalToolConfigParserTest extends RetrievalTestBase {
                      retConfig.getPort());
         assertEquals(RetrievalToolConfigParser.DEFAULT_NUM_THREADS,
                      retConfig.getNumThreads());
+        assertEquals(
+            RetrievalToolConfigParser.DEFAULT_RANGED_RETRIEVAL_THREADS,
+            retConfig.getRangedRetrievalThreads());
+        assertEquals(RetrievalToolConfigParser.DEFAULT_CHUNK_PREFETCH_COUNT,
+                     retConfig.getChunkPrefetchCount());
         assertEquals(false, retConfig.isAllSpaces());
         assertEquals(false, retConfig.isOverwrite());
         assertEquals(true, retConfig.isApplyTimestamps());
@@ -95,6 +102,10 @@ public class RetrievalToolConfigParserTest extends RetrievalTestBase {
         addArgFailTest(retConfigParser, argsMap, "-r", "nonNum", failMsg);
         failMsg = "Threads arg should require a numerical value";
         addArgFailTest(retConfigParser, argsMap, "-t", "nonNum", failMsg);
+        failMsg = "Ranged threads arg should require a numerical value";
+        addArgFailTest(retConfigParser, argsMap, "-n", "nonNum", failMsg);
+        failMsg = "Chunk prefetch arg should require a numerical value";
+        addArgFailTest(retConfigParser, argsMap, "-k", "nonNum", failMsg);
     }
 
     private HashMap<String, String> getArgsMap() {
@@ -109,6 +120,8 @@ public class RetrievalToolConfigParserTest extends RetrievalTestBase {
         argsMap.put("-w", tempDir.getAbsolutePath());
         argsMap.put("-o", "");
         argsMap.put("-t", "5");
+        argsMap.put("-n", "2");
+        argsMap.put("-k", "1");
         argsMap.put("-d", "");
         return argsMap;
     }
@@ -134,6 +147,10 @@ public class RetrievalToolConfigParserTest extends RetrievalTestBase {
         assertEquals(true, retConfig.isOverwrite());
         assertEquals(argsMap.get("-t"),
                      String.valueOf(retConfig.getNumThreads()));
+        assertEquals(argsMap.get("-n"),
+                     String.valueOf(retConfig.getRangedRetrievalThreads()));
+        assertEquals(argsMap.get("-k"),
+                     String.valueOf(retConfig.getChunkPrefetchCount()));
     }
 
     private String[] mapToArray(HashMap<String, String> map) {
@@ -0,0 +1,155 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.retrieval.mgmt;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.duracloud.common.model.ContentItem;
+import org.duracloud.common.retry.Retrier;
+import org.duracloud.common.util.ChecksumUtil;
+import org.duracloud.retrieval.RetrievalTestBase;
+import org.duracloud.retrieval.source.ContentStream;
+import org.duracloud.retrieval.source.RetrievalSource;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class RangedRetrieverTest extends RetrievalTestBase {
+
+    private static final int RANGE_SIZE = 100;
+
+    private ContentItem contentItem = new ContentItem("space-id", "content-id");
+    private byte[] content = createContent(1050);
+    private AtomicInteger requests = new AtomicInteger(0);
+    private Set<Long> failingRanges = ConcurrentHashMap.newKeySet();
+
+    @Test
+    public void testRetrieve() throws Exception {
+        File localFile = new File(tempDir, "ranged-retrieval");
+        createRetriever(localFile, getChecksum(content)).retrieve();
+
+        assertTrue(Arrays.equals(content, FileUtils.readFileToByteArray(localFile)));
+        assertEquals(11, requests.get());
+        checkWorkFilesRemoved(localFile);
+    }
+
+    @Test
+    public void testRetrieveResume() throws Exception {
+        File localFile = new File(tempDir, "ranged-retrieval-resume");
+        String checksum = getChecksum(content);
+
+        failingRanges.add(300L);
+        try {
+            createRetriever(localFile, checksum).retrieve();
+            fail("Exception expected when a range cannot be retrieved");
+        } catch (IOException expected) {
+            assertFalse(localFile.exists());
+        }
+
+        // Only the ranges which were not completed are retrieved again
+        failingRanges.clear();
+        createRetriever(localFile, checksum).retrieve();
+        assertTrue(Arrays.equals(content, FileUtils.readFileToByteArray(localFile)));
+        assertEquals(12, requests.get());
+        checkWorkFilesRemoved(localFile);
+    }
+
+    @Test
+    public void testRetrieveChecksumMismatch() throws Exception {
+        File localFile = new File(tempDir, "ranged-retrieval-mismatch");
+        try {
+            createRetriever(localFile, getChecksum(new byte[] {1})).retrieve();
+            fail("Exception expected with non-matching checksum");
+        } catch (IOException expected) {
+            assertFalse(localFile.exists());
+        }
+        checkWorkFilesRemoved(localFile);
+    }
+
+    private void checkWorkFilesRemoved(File localFile) {
+        assertFalse(new File(localFile.getAbsolutePath() +
+                             RangedRetriever.PART_SUFFIX).exists());
+        assertFalse(new File(localFile.getAbsolutePath() +
+                             RangedRetriever.PROGRESS_SUFFIX).exists());
+    }
+
+    private RangedRetriever createRetriever(File localFile, String checksum) {
+        return new RangedRetriever(contentItem, createSource(), localFile,
+                                   content.length, checksum, 3, RANGE_SIZE) {
+            @Override
+            protected Retrier getRetrier() {
+                return new Retrier(0, 0, 1);
+            }
+        };
+    }
+
+    private RetrievalSource createSource() {
+        return new RetrievalSource() {
+            @Override
+            public InputStream getSourceContentRange(ContentItem item,
+                                                     long startByte,
+                                                     long endByte) {
+                requests.incrementAndGet();
+                if (failingRanges.contains(startByte)) {
+                    throw new RuntimeException("Range unavailable");
+                }
+                return new ByteArrayInputStream(content, (int) startByte,
+                                                (int) (endByte - startByte + 1));
+            }
+
+            @Override
+            public ContentItem getNextContentItem() {
+                return null;
+            }
+
+            @Override
+            public Map<String, String> getSourceProperties(ContentItem item) {
+                return null;
+            }
+
+            @Override
+            public String getSourceChecksum(ContentItem item) {
+                return null;
+            }
+
+            @Override
+            public ContentStream getSourceContent(ContentItem item,
+                                                  RetrievalListener listener) {
+                return null;
+            }
+        };
+    }
+
+    private byte[] createContent(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private String getChecksum(byte[] bytes) {
+        return new ChecksumUtil(ChecksumUtil.Algorithm.MD5)
+            .generateChecksum(new ByteArrayInputStream(bytes));
+    }
+
+}
@@ -92,6 +92,15 @@ public class RetrievalManagerTest extends RetrievalTestBase {
             return new ContentStream(stream, getSourceProperties(contentItem));
         }
 
+        @Override
+        public InputStream getSourceContentRange(ContentItem contentItem,
+                                                 long startByte,
+                                                 long endByte) {
+            byte[] bytes = contentItem.getContentId().getBytes();
+            int length = (int) (Math.min(endByte, bytes.length - 1) - startByte + 1);
+            return new ByteArrayInputStream(bytes, (int) startByte, length);
+        }
+
         private InputStream getStream(String contentId) {
             return new ByteArrayInputStream(contentId.getBytes());
         }
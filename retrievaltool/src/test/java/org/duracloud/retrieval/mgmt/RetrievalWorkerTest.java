@@ -87,6 +87,54 @@ public class RetrievalWorkerTest extends RetrievalTestBase {
         assertNotNull(props);
     }
 
+    @Test
+    public void testRetrieveFileWithIndex() throws Exception {
+        File indexFile = new File(tempDir, "retrieval-index");
+        RetrievalIndex index = new RetrievalIndex(indexFile);
+        RetrievalWorker worker = createRetrievalWorker(true);
+        worker.setRetrievalIndex(index);
+        File localFile = worker.getLocalFile();
+
+        StatusManager status = StatusManager.getInstance();
+        status.reset();
+
+        worker.retrieveFile();
+        checkFile(localFile, contentValue);
+        checkStatus(status, 1, 0, 0);
+        index.close();
+        long recordLength = indexFile.length();
+
+        // On restart, the index holds the checksum of the local file, so
+        // only the source properties are read, not the local file
+        index = new RetrievalIndex(indexFile);
+        worker = createUnreadableFileRetrievalWorker(false);
+        worker.setRetrievalIndex(index);
+        assertNotNull(worker.retrieveFile());
+        checkStatus(status, 0, 1, 0);
+        assertEquals(indexFile.length(), recordLength);
+
+        // Content which has changed in DuraCloud is retrieved again
+        String oldValue = contentValue;
+        contentValue = "changed-value";
+        worker = createRetrievalWorker(false);
+        worker.setRetrievalIndex(index);
+        worker.retrieveFile();
+        checkFile(localFile, contentValue);
+        checkStatus(status, 1, 0, 0);
+        File copyFile = new File(localFile.getAbsolutePath() + "-copy");
+        checkFile(copyFile, oldValue);
+        copyFile.delete();
+
+        // A local file which has changed is checked against the source
+        FileUtils.writeStringToFile(localFile, "new-value");
+        worker = createRetrievalWorker(true);
+        worker.setRetrievalIndex(index);
+        worker.retrieveFile();
+        checkFile(localFile, contentValue);
+        checkStatus(status, 1, 0, 0);
+        index.close();
+    }
+
     private void checkFile(File file, String value) throws IOException {
         assertTrue(file.exists());
         String fileValue = FileUtils.readFileToString(file);
@@ -220,6 +268,30 @@ public class RetrievalWorkerTest extends RetrievalTestBase {
         }
     }
 
+    @Test
+    public void testRetrieveToFileKnownProperties() throws Exception {
+        // Properties are not retrieved again when they are already known
+        RetrievalWorker worker =
+            new RetrievalWorker(new ContentItem(spaceId, contentId),
+                                new RangesOnlyMockRetrievalSource(),
+                                tempDir,
+                                true,
+                                createMockOutputWriter(),
+                                true,
+                                false);
+        worker.setRangedRetrieval(1, 2);
+
+        Map<String, String> props =
+            new MockRetrievalSource().getSourceProperties(null);
+        props.put(ContentStore.CONTENT_SIZE,
+                  String.valueOf(contentValue.getBytes().length));
+
+        File localFile = new File(tempDir, "retrieve-known-props-test");
+        assertFalse(localFile.exists());
+        assertEquals(props, worker.retrieveToFile(localFile, null, props));
+        assertEquals(contentValue, FileUtils.readFileToString(localFile));
+    }
+
     @Test
     public void testApplyTimestamps() throws Exception {
         String time1 = DateUtil.convertToStringLong(testTime + 100000);
@@ -278,6 +350,25 @@ public class RetrievalWorkerTest extends RetrievalTestBase {
                                    true);
     }
 
+    /*
+     * Create a retrieval worker which fails any attempt to compute the
+     * checksum of an existing local file
+     */
+    private RetrievalWorker createUnreadableFileRetrievalWorker(boolean overwrite) {
+        return new RetrievalWorker(new ContentItem(spaceId, contentId),
+                                   new MockRetrievalSource(),
+                                   tempDir,
+                                   overwrite,
+                                   createMockOutputWriter(),
+                                   true,
+                                   true) {
+            @Override
+            protected String getChecksum(File localFile) throws IOException {
+                throw new IOException("Local file should not be read");
+            }
+        };
+    }
+
     private RetrievalWorker createRetrievalWorkerSingleSpace(boolean overwrite) {
         return new RetrievalWorker(new ContentItem(spaceId, contentId),
                                    new MockRetrievalSource(),
@@ -343,6 +434,15 @@ public class RetrievalWorkerTest extends RetrievalTestBase {
             return new ContentStream(stream, getSourceProperties(contentItem));
         }
 
+        @Override
+        public InputStream getSourceContentRange(ContentItem contentItem,
+                                                 long startByte,
+                                                 long endByte) {
+            byte[] bytes = contentValue.getBytes();
+            int length = (int) (Math.min(endByte, bytes.length - 1) - startByte + 1);
+            return new ByteArrayInputStream(bytes, (int) startByte, length);
+        }
+
     }
 
     /*
@@ -361,6 +461,27 @@ public class RetrievalWorkerTest extends RetrievalTestBase {
         }
     }
 
+    /*
+     * Create a retrieval source that fails any attempt to read from it
+     */
+    private class UnavailableMockRetrievalSource extends BrokenMockRetrievalSource {
+        @Override
+        public Map<String, String> getSourceProperties(ContentItem contentItem) {
+            throw new RuntimeException("Source should not be read");
+        }
+    }
+
+    /*
+     * Create a retrieval source that only allows content to be read as
+     * byte ranges
+     */
+    private class RangesOnlyMockRetrievalSource extends UnavailableMockRetrievalSource {
+        @Override
+        public ContentStream getSourceContent(ContentItem contentItem, RetrievalListener listener) {
+            throw new RuntimeException("Content should be retrieved in ranges");
+        }
+    }
+
     /*
      * Create a retrieval source that will throw an exception on the first
      * call to getSourceContent(), then succeed in subsequent attempts.
@@ -8,6 +8,8 @@
 package org.duracloud.retrieval.mgmt;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -64,4 +66,18 @@ public class StatusManagerTest {
         assertEquals(50, status.getFailed());
     }
 
+    @Test
+    public void testThreadThroughput() {
+        StatusManager status = StatusManager.getInstance();
+        status.reset();
+        assertFalse(status.getPrintableStatus().contains("Worker Throughput"));
+
+        status.recordRetrieval(2048, 1000);
+        status.recordRetrieval(2048, 1000);
+
+        String printable = status.getPrintableStatus();
+        assertTrue(printable.contains(Thread.currentThread().getName() +
+                                      ": 2 files, 4 KB, 2 KB/s"));
+    }
+
 }
@@ -110,7 +110,8 @@ public class DuraStoreSpecifiedRetrievalSourceTest {
 
         retrievalSource = new DuraStoreSpecifiedRetrievalSource(store,
                                                                 spaces,
-                                                                specifiedContentIds.iterator());
+                                                                specifiedContentIds.iterator(),
+                                                                2);
         verifyContents(spaceId0, verifiedContentIds);
 
         ContentItem item = retrievalSource.getNextContentItem();
@@ -127,7 +128,8 @@ public class DuraStoreSpecifiedRetrievalSourceTest {
 
         retrievalSource = new DuraStoreSpecifiedRetrievalSource(store,
                                                                 spaces,
-                                                                specifiedContentIds.iterator());
+                                                                specifiedContentIds.iterator(),
+                                                                2);
     }
 
     private void verifyContents(String spaceId, List<String> verifiedContentIds) {
@@ -108,7 +108,8 @@ public class DuraStoreStitchingRetrievalSourceTest {
 
         retrievalSource = new DuraStoreStitchingRetrievalSource(store,
                                                                 spaces,
-                                                                allSpaces);
+                                                                allSpaces,
+                                                                2);
         verifyContents(types0, spaceId0);
         verifyContents(types1, spaceId1);
 
@@ -172,7 +173,8 @@ public class DuraStoreStitchingRetrievalSourceTest {
 
         retrievalSource = new DuraStoreStitchingRetrievalSource(store,
                                                                 spaces,
-                                                                allSpaces);
+                                                                allSpaces,
+                                                                2);
 
         ContentItem item = new ContentItem(spaceId0, contentId);
         String md5 = retrievalSource.getSourceChecksum(item);
@@ -226,7 +228,8 @@ public class DuraStoreStitchingRetrievalSourceTest {
 
         retrievalSource = new DuraStoreStitchingRetrievalSource(store,
                                                                 spaces,
-                                                                allSpaces);
+                                                                allSpaces,
+                                                                2);
         int i = 0;
         for (ContentType type : types) {
             ContentItem item = new ContentItem(spaceId0, type.getContentId(i));
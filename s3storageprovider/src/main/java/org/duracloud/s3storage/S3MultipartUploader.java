@@ -0,0 +1,526 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.s3storage;
+
+import static org.duracloud.storage.error.StorageException.NO_RETRY;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AccessControlList;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.apache.commons.io.IOUtils;
+import org.duracloud.common.stream.ChecksumInputStream;
+import org.duracloud.common.util.ChecksumUtil;
+import org.duracloud.storage.error.ChecksumMismatchException;
+import org.duracloud.storage.error.StorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adds a single content item to S3 as a multipart upload, either from a
+ * content stream or by copying an existing object.
+ *
+ * When uploading a stream, the content is read sequentially into part
+ * buffers, and the parts are uploaded in parallel. A new part is read only
+ * once a buffer is available, so at most one buffer per upload thread is
+ * held in memory.
+ *
+ * S3 verifies each part against its MD5, and the ETag returned for each part
+ * is compared with that MD5. The MD5 of the full content is computed as the
+ * parts are read and must match the expected checksum before the upload is
+ * completed. If any part fails or the checksum does not match, the upload is
+ * aborted so that no parts are left in the bucket.
+ *
+ * The ETag of a multipart object is not the MD5 of its content, so the MD5 is
+ * stored with the object as user metadata.
+ *
+ * @author agent
+ */
+public class S3MultipartUploader {
+
+    private final Logger log = LoggerFactory.getLogger(S3MultipartUploader.class);
+
+    // User metadata holding the MD5 of content added as a multipart upload
+    public static final String CONTENT_MD5_META = "duracloud-content-md5";
+
+    public static final long MIN_PART_SIZE = 5 * 1024 * 1024; // 5 MB
+    // Copied parts are not held in memory, so larger parts are used to
+    // reduce the number of requests
+    public static final long MIN_COPY_PART_SIZE = 128 * 1024 * 1024; // 128 MB
+    private static final int MAX_PARTS = 10000;
+
+    private AmazonS3 s3Client;
+    private long partSize;
+    private int threads;
+
+    /**
+     * @param s3Client the client used for the upload
+     * @param partSize the size of each part, increased as needed to keep
+     *                 large content within the S3 limit on the number of parts
+     * @param threads  the number of parts to upload at once
+     */
+    public S3MultipartUploader(AmazonS3 s3Client, long partSize, int threads) {
+        this.s3Client = s3Client;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.threads = Math.max(threads, 1);
+    }
+
+    /**
+     * Uploads content to S3.
+     *
+     * @param bucketName      the bucket to which the content is added
+     * @param contentId       the ID of the content
+     * @param objMetadata     the content type and user metadata of the object
+     * @param content         the content stream
+     * @param contentSize     the size of the content
+     * @param contentChecksum the expected MD5 checksum of the content
+     * @return the MD5 checksum of the content
+     * @throws ChecksumMismatchException if the content does not match the
+     *                                   expected checksum
+     * @throws StorageException          if the content cannot be read
+     */
+    public String upload(String bucketName,
+                         String contentId,
+                         ObjectMetadata objMetadata,
+                         InputStream content,
+                         long contentSize,
+                         String contentChecksum) {
+        long uploadPartSize = getPartSize(contentSize, partSize);
+        int partCount = (int) ((contentSize + uploadPartSize - 1) / uploadPartSize);
+        log.debug("Adding {} to S3 bucket {} in {} parts of {} bytes",
+                  contentId, bucketName, partCount, uploadPartSize);
+
+        objMetadata.addUserMetadata(CONTENT_MD5_META, contentChecksum);
+        String uploadId = initiate(bucketName, contentId, objMetadata, null);
+
+        List<Part> parts;
+        String checksum;
+        try {
+            // Compute the checksum of the full content as it is read
+            ChecksumInputStream wrappedContent = new ChecksumInputStream(content, null);
+            parts = uploadParts(bucketName, contentId, uploadId, wrappedContent,
+                                contentSize, uploadPartSize);
+            checksum = wrappedContent.getMD5();
+            if (!checksum.equals(contentChecksum)) {
+                throw new ChecksumMismatchException(
+                    "Checksum mismatch detected attempting to add content " +
+                    contentId + " to S3 bucket " + bucketName + ". The checksum " +
+                    "of the content (" + checksum + ") does not match the " +
+                    "expected checksum (" + contentChecksum + "). Content was " +
+                    "not added.", NO_RETRY);
+            }
+        } catch (RuntimeException e) {
+            abort(bucketName, contentId, uploadId);
+            throw e;
+        }
+
+        CompleteMultipartUploadResult result =
+            complete(bucketName, contentId, uploadId, parts);
+
+        // The ETag of the object is the MD5 of the part MD5s, followed by
+        // the number of parts
+        String expectedETag = getCompositeETag(parts);
+        String etag = stripQuotes(result.getETag());
+        if (!expectedETag.equalsIgnoreCase(etag)) {
+            // The object does not hold the uploaded parts, so is removed
+            // rather than left with a recorded MD5 which it may not match
+            try {
+                s3Client.deleteObject(bucketName, contentId);
+            } catch (AmazonClientException e) {
+                log.error("Unable to delete content {} from S3 bucket {} " +
+                          "after an ETag mismatch: {}",
+                          contentId, bucketName, e.getMessage());
+            }
+            throw new ChecksumMismatchException(
+                "Content " + contentId + " was added to S3 bucket " + bucketName +
+                " but the ETag computed by S3 (" + etag + ") does not match " +
+                "the ETag of the uploaded parts (" + expectedETag + "). The " +
+                "content was removed and should be retransmitted.", NO_RETRY);
+        }
+        return checksum;
+    }
+
+    /*
+     * Reads the content into parts and uploads them, returning the completed
+     * parts in order.
+     */
+    private List<Part> uploadParts(String bucketName,
+                                   String contentId,
+                                   String uploadId,
+                                   InputStream content,
+                                   long contentSize,
+                                   long uploadPartSize) {
+        Semaphore buffers = new Semaphore(threads);
+        ExecutorService executor = createExecutor();
+        List<Future<Part>> results = new ArrayList<>();
+        try {
+            long position = 0;
+            int partNumber = 1;
+            while (position < contentSize && !hasFailed(results)) {
+                buffers.acquire();
+                byte[] buffer =
+                    new byte[(int) Math.min(uploadPartSize, contentSize - position)];
+                try {
+                    IOUtils.readFully(content, buffer);
+                } catch (IOException e) {
+                    buffers.release();
+                    throw new StorageException(
+                        "The content body was incomplete for " + contentId +
+                        " to S3 bucket " + bucketName + ", failed reading at " +
+                        "byte " + position + " of " + contentSize + ": " +
+                        e.getMessage() + ". Content was not added.", e, NO_RETRY);
+                }
+
+                final int number = partNumber;
+                results.add(executor.submit(() -> {
+                    try {
+                        return uploadPart(bucketName, contentId, uploadId,
+                                          number, buffer);
+                    } finally {
+                        buffers.release();
+                    }
+                }));
+                position += buffer.length;
+                partNumber++;
+            }
+
+            return getParts(bucketName, contentId, results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Interrupted adding content " + contentId +
+                                       " to S3 bucket " + bucketName, e, NO_RETRY);
+        } finally {
+            stop(executor, results);
+        }
+    }
+
+    /**
+     * Copies an existing object to S3, copying ranges of the source object
+     * into parts in parallel. The source object must not change while it is
+     * copied. The source and destination may be the same object, in which
+     * case the object is replaced with a copy holding the new metadata.
+     *
+     * @param sourceBucketName the bucket holding the source object
+     * @param sourceContentId  the ID of the source object
+     * @param destBucketName   the bucket to which the object is copied
+     * @param destContentId    the ID of the new object
+     * @param objMetadata      the content type and user metadata of the new
+     *                         object, S3 does not carry metadata over from the
+     *                         source object in a multipart copy
+     * @param acl              the access control list of the new object, or
+     *                         null for a private object
+     * @param contentSize      the size of the source object
+     * @param sourceETag       the ETag of the source object
+     * @param contentChecksum  the MD5 checksum of the source object, may be
+     *                         null if it is not known
+     * @return the ETag of the new object
+     * @throws StorageException if the source object changes during the copy
+     */
+    public String copy(String sourceBucketName,
+                       String sourceContentId,
+                       String destBucketName,
+                       String destContentId,
+                       ObjectMetadata objMetadata,
+                       AccessControlList acl,
+                       long contentSize,
+                       String sourceETag,
+                       String contentChecksum) {
+        long copyPartSize =
+            getPartSize(contentSize, Math.max(partSize, MIN_COPY_PART_SIZE));
+        log.debug("Copying {} in S3 bucket {} to {} in S3 bucket {} in parts " +
+                  "of {} bytes", sourceContentId, sourceBucketName,
+                  destContentId, destBucketName, copyPartSize);
+
+        if (null != contentChecksum) {
+            objMetadata.addUserMetadata(CONTENT_MD5_META, contentChecksum);
+        }
+        String uploadId = initiate(destBucketName, destContentId, objMetadata, acl);
+
+        List<Part> parts;
+        try {
+            parts = copyParts(sourceBucketName, sourceContentId, destBucketName,
+                              destContentId, uploadId, contentSize, sourceETag,
+                              copyPartSize);
+        } catch (RuntimeException e) {
+            abort(destBucketName, destContentId, uploadId);
+            throw e;
+        }
+        return stripQuotes(complete(destBucketName, destContentId, uploadId, parts)
+                               .getETag());
+    }
+
+    private List<Part> copyParts(String sourceBucketName,
+                                 String sourceContentId,
+                                 String destBucketName,
+                                 String destContentId,
+                                 String uploadId,
+                                 long contentSize,
+                                 String sourceETag,
+                                 long copyPartSize) {
+        ExecutorService executor = createExecutor();
+        List<Future<Part>> results = new ArrayList<>();
+        try {
+            long position = 0;
+            int partNumber = 1;
+            while (position < contentSize) {
+                CopyPartRequest request = new CopyPartRequest()
+                    .withSourceBucketName(sourceBucketName)
+                    .withSourceKey(sourceContentId)
+                    .withDestinationBucketName(destBucketName)
+                    .withDestinationKey(destContentId)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber)
+                    .withFirstByte(position)
+                    .withLastByte(Math.min(position + copyPartSize, contentSize) - 1)
+                    .withMatchingETagConstraint(sourceETag);
+                results.add(executor.submit(() -> copyPart(request)));
+                position += copyPartSize;
+                partNumber++;
+            }
+            return getParts(destBucketName, destContentId, results);
+        } finally {
+            stop(executor, results);
+        }
+    }
+
+    private Part copyPart(CopyPartRequest request) {
+        CopyPartResult result = s3Client.copyPart(request);
+        if (null == result) {
+            // The ETag constraint was not met
+            throw new StorageException(
+                "Could not copy content " + request.getSourceKey() + " in S3 " +
+                "bucket " + request.getSourceBucketName() + " as it changed " +
+                "while it was being copied", NO_RETRY);
+        }
+        return new Part(result.getPartETag(), null);
+    }
+
+    private String initiate(String bucketName,
+                            String contentId,
+                            ObjectMetadata objMetadata,
+                            AccessControlList acl) {
+        InitiateMultipartUploadRequest initRequest =
+            new InitiateMultipartUploadRequest(bucketName, contentId, objMetadata);
+        initRequest.setStorageClass(S3StorageProvider.DEFAULT_STORAGE_CLASS);
+        if (null != acl) {
+            initRequest.setAccessControlList(acl);
+        } else {
+            initRequest.setCannedACL(CannedAccessControlList.Private);
+        }
+        return s3Client.initiateMultipartUpload(initRequest).getUploadId();
+    }
+
+    private CompleteMultipartUploadResult complete(String bucketName,
+                                                   String contentId,
+                                                   String uploadId,
+                                                   List<Part> parts) {
+        List<PartETag> partETags = new ArrayList<>();
+        for (Part part : parts) {
+            partETags.add(part.partETag);
+        }
+        try {
+            return s3Client.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(bucketName, contentId,
+                                                   uploadId, partETags));
+        } catch (RuntimeException e) {
+            abort(bucketName, contentId, uploadId);
+            throw e;
+        }
+    }
+
+    private ExecutorService createExecutor() {
+        AtomicInteger threadCount = new AtomicInteger(0);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "s3-multipart-upload-" +
+                                                 threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /*
+     * Waits for each part, returning the completed parts in order
+     */
+    private List<Part> getParts(String bucketName,
+                                String contentId,
+                                List<Future<Part>> results) {
+        List<Part> parts = new ArrayList<>();
+        try {
+            for (Future<Part> result : results) {
+                parts.add(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Interrupted adding content " + contentId +
+                                       " to S3 bucket " + bucketName, e, NO_RETRY);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new StorageException("Could not add content " + contentId +
+                                       " to S3 bucket " + bucketName + " due to " +
+                                       "error: " + e.getCause().getMessage(),
+                                       e.getCause(), NO_RETRY);
+        }
+        return parts;
+    }
+
+    /*
+     * Parts which have not started are not needed if the upload has failed.
+     * Parts underway are allowed to finish before the upload is aborted,
+     * otherwise they may be left in the bucket.
+     */
+    private void stop(ExecutorService executor, List<Future<Part>> results) {
+        for (Future<Part> result : results) {
+            result.cancel(false);
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Determines if any part upload has failed, so that no further parts
+     * are read
+     */
+    private boolean hasFailed(List<Future<Part>> results) {
+        for (Future<Part> result : results) {
+            if (result.isDone()) {
+                try {
+                    result.get();
+                } catch (ExecutionException | CancellationException e) {
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Part uploadPart(String bucketName,
+                            String contentId,
+                            String uploadId,
+                            int partNumber,
+                            byte[] buffer) {
+        byte[] md5 = getMD5Digest().digest(buffer);
+        UploadPartRequest request = new UploadPartRequest()
+            .withBucketName(bucketName)
+            .withKey(contentId)
+            .withUploadId(uploadId)
+            .withPartNumber(partNumber)
+            .withPartSize(buffer.length)
+            .withInputStream(new ByteArrayInputStream(buffer))
+            .withMD5Digest(Base64.getEncoder().encodeToString(md5));
+        UploadPartResult result = s3Client.uploadPart(request);
+
+        String partChecksum = ChecksumUtil.checksumBytesToString(md5);
+        String etag = stripQuotes(result.getETag());
+        if (!partChecksum.equalsIgnoreCase(etag)) {
+            throw new ChecksumMismatchException(
+                "Checksum mismatch detected attempting to add part " + partNumber +
+                " of content " + contentId + " to S3 bucket " + bucketName +
+                ". The part checksum (" + partChecksum + ") does not match the " +
+                "ETag computed by S3 (" + etag + "). Content was not added.",
+                NO_RETRY);
+        }
+        return new Part(new PartETag(partNumber, etag), md5);
+    }
+
+    private void abort(String bucketName, String contentId, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(
+                new AbortMultipartUploadRequest(bucketName, contentId, uploadId));
+        } catch (RuntimeException e) {
+            log.warn("Unable to abort multipart upload {} of {} to S3 bucket " +
+                     "{}, parts may remain until the bucket lifecycle removes " +
+                     "them: {}", uploadId, contentId, bucketName, e.getMessage());
+        }
+    }
+
+    /*
+     * S3 allows at most MAX_PARTS parts, so the part size is increased (to a
+     * whole number of MB) when the content would otherwise need more
+     */
+    protected long getPartSize(long contentSize, long partSize) {
+        long minPartSize = (contentSize + MAX_PARTS - 1) / MAX_PARTS;
+        if (minPartSize <= partSize) {
+            return partSize;
+        }
+        long mb = 1024 * 1024;
+        return ((minPartSize + mb - 1) / mb) * mb;
+    }
+
+    protected String getCompositeETag(List<Part> parts) {
+        MessageDigest digest = getMD5Digest();
+        for (Part part : parts) {
+            digest.update(part.md5);
+        }
+        return ChecksumUtil.checksumBytesToString(digest.digest()) + "-" + parts.size();
+    }
+
+    private MessageDigest getMD5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String stripQuotes(String etag) {
+        if (null != etag && etag.length() > 1 &&
+            etag.startsWith("\"") && etag.endsWith("\"")) {
+            return etag.substring(1, etag.length() - 1);
+        }
+        return etag;
+    }
+
+    protected static class Part {
+        private final PartETag partETag;
+        private final byte[] md5;
+
+        Part(PartETag partETag, byte[] md5) {
+            this.partETag = partETag;
+            this.md5 = md5;
+        }
+    }
+
+}
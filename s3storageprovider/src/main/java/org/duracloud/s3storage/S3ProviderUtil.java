@@ -12,8 +12,13 @@ import static org.duracloud.common.error.RetryFlaggableException.RETRY;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.ClientConfiguration;
@@ -43,8 +48,28 @@ public class S3ProviderUtil {
 
     private static final Logger log = LoggerFactory.getLogger(S3ProviderUtil.class);
 
-    private static Map<String, AmazonS3> s3Clients = new HashMap<>();
-    private static Map<String, AmazonCloudFrontClient> cloudFrontClients = new HashMap<>();
+    // Larger than the SDK default of 50, as a single provider may be
+    // handling many concurrent transfers, each with several parts
+    protected static final int DEFAULT_MAX_CONNECTIONS = 200;
+    protected static final boolean DEFAULT_TCP_KEEP_ALIVE = true;
+
+    // The options which determine how a client is created. Clients are
+    // shared between providers with the same credentials and values for
+    // these options.
+    private static final Set<OPTS> CLIENT_OPTS =
+        Collections.unmodifiableSet(EnumSet.of(OPTS.AWS_REGION,
+                                               OPTS.SWIFT_S3_ENDPOINT,
+                                               OPTS.SWIFT_S3_SIGNER_TYPE,
+                                               OPTS.MAX_CONNECTIONS,
+                                               OPTS.CONNECTION_TIMEOUT_MS,
+                                               OPTS.SOCKET_TIMEOUT_MS,
+                                               OPTS.REQUEST_TIMEOUT_MS,
+                                               OPTS.TCP_KEEP_ALIVE,
+                                               OPTS.MAX_ERROR_RETRY));
+
+    private static Map<ClientKey, AmazonS3> s3Clients = new ConcurrentHashMap<>();
+    private static Map<ClientKey, AmazonCloudFrontClient> cloudFrontClients =
+        new ConcurrentHashMap<>();
 
     private S3ProviderUtil() {
         // Ensures no instances are made of this class, as there are only static members.
@@ -53,46 +78,80 @@ public class S3ProviderUtil {
     public static AmazonS3 getAmazonS3Client(String accessKey,
                                              String secretKey,
                                              Map<String, String> options) {
-        AmazonS3 client = s3Clients.get(key(accessKey, secretKey, options));
-        if (null == client) {
-            Region region = null;
-            URL endpoint = null;
-            String signer = null;
-            if (options != null) {
-                if (options.get(OPTS.SWIFT_S3_ENDPOINT.name()) != null) {
-                    try {
-                        endpoint = new URL(options.get(OPTS.SWIFT_S3_ENDPOINT.name()));
-                    } catch (MalformedURLException e) {
-                        String err = "The provided Swift S3 Endpoint URL is invalid: " + e.getMessage();
-                        throw new StorageException(err, e);
-                    }
-                    if (options.get(OPTS.SWIFT_S3_SIGNER_TYPE.name()) != null) {
-                        signer = options.get(OPTS.SWIFT_S3_SIGNER_TYPE.name());
-                    }
-                } else if (options.get(OPTS.AWS_REGION.name()) != null) {
-                    region = com.amazonaws.services.s3.model.Region.fromValue(
-                            options.get(OPTS.AWS_REGION.name())).toAWSRegion();
-                }
+        return s3Clients.computeIfAbsent(
+            new ClientKey(accessKey, secretKey, options),
+            key -> newS3Client(key.accessKey, key.secretKey, key.options));
+    }
+
+    private static AmazonS3 newS3Client(String accessKey,
+                                        String secretKey,
+                                        Map<String, String> options) {
+        Region region = null;
+        URL endpoint = null;
+        String signer = null;
+        if (options.get(OPTS.SWIFT_S3_ENDPOINT.name()) != null) {
+            try {
+                endpoint = new URL(options.get(OPTS.SWIFT_S3_ENDPOINT.name()));
+            } catch (MalformedURLException e) {
+                String err = "The provided Swift S3 Endpoint URL is invalid: " + e.getMessage();
+                throw new StorageException(err, e);
             }
-            client = newS3Client(accessKey, secretKey, region, endpoint, signer);
-            s3Clients.put(key(accessKey, secretKey, options), client);
+            if (options.get(OPTS.SWIFT_S3_SIGNER_TYPE.name()) != null) {
+                signer = options.get(OPTS.SWIFT_S3_SIGNER_TYPE.name());
+            }
+        } else if (options.get(OPTS.AWS_REGION.name()) != null) {
+            region = com.amazonaws.services.s3.model.Region.fromValue(
+                options.get(OPTS.AWS_REGION.name())).toAWSRegion();
         }
-        return client;
+        return newS3Client(accessKey, secretKey, region, endpoint, signer,
+                           getClientConfiguration(options));
     }
 
-    private static String key(String accessKey, String secretKey, Map<String, String> options) {
-        String optionsHash = "";
-        if (null != options && options.size() > 0) {
-            optionsHash = Integer.toString(options.hashCode());
+    /**
+     * Creates the client configuration, applying any connection options.
+     * Timeouts are in milliseconds.
+     *
+     * @param options storage account options, only client options are used
+     * @return client configuration
+     */
+    protected static ClientConfiguration getClientConfiguration(Map<String, String> options) {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setMaxConnections(DEFAULT_MAX_CONNECTIONS);
+        config.setUseTcpKeepAlive(DEFAULT_TCP_KEEP_ALIVE);
+
+        String maxConnections = options.get(OPTS.MAX_CONNECTIONS.name());
+        if (null != maxConnections) {
+            config.setMaxConnections(Integer.parseInt(maxConnections));
+        }
+        String connectionTimeout = options.get(OPTS.CONNECTION_TIMEOUT_MS.name());
+        if (null != connectionTimeout) {
+            config.setConnectionTimeout(Integer.parseInt(connectionTimeout));
+        }
+        String socketTimeout = options.get(OPTS.SOCKET_TIMEOUT_MS.name());
+        if (null != socketTimeout) {
+            config.setSocketTimeout(Integer.parseInt(socketTimeout));
+        }
+        String requestTimeout = options.get(OPTS.REQUEST_TIMEOUT_MS.name());
+        if (null != requestTimeout) {
+            config.setRequestTimeout(Integer.parseInt(requestTimeout));
         }
-        return accessKey + secretKey + optionsHash;
+        String tcpKeepAlive = options.get(OPTS.TCP_KEEP_ALIVE.name());
+        if (null != tcpKeepAlive) {
+            config.setUseTcpKeepAlive(Boolean.parseBoolean(tcpKeepAlive));
+        }
+        String maxErrorRetry = options.get(OPTS.MAX_ERROR_RETRY.name());
+        if (null != maxErrorRetry) {
+            config.setMaxErrorRetry(Integer.parseInt(maxErrorRetry));
+        }
+        return config;
     }
 
     private static AmazonS3 newS3Client(String accessKey,
                                         String secretKey,
                                         Region region,
                                         URL endpoint,
-                                        String signer) {
+                                        String signer,
+                                        ClientConfiguration clientConfiguration) {
         BasicAWSCredentials awsCredentials = new BasicAWSCredentials(accessKey, secretKey);
         AmazonS3 s3Client = null;
         String awsRegion = null;
@@ -109,6 +168,7 @@ public class S3ProviderUtil {
                     log.debug("Creating AWS S3 Client with no explicit region.");
                     s3Client = AmazonS3ClientBuilder
                         .standard()
+                        .withClientConfiguration(clientConfiguration)
                         .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
                         .build();
                 } else {
@@ -116,6 +176,7 @@ public class S3ProviderUtil {
                     log.debug("Creating AWS S3 Client with region: " + awsRegion);
                     s3Client = AmazonS3ClientBuilder
                         .standard()
+                        .withClientConfiguration(clientConfiguration)
                         .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
                         .withRegion(awsRegion)
                         .build();
@@ -127,7 +188,6 @@ public class S3ProviderUtil {
                 String host = endpoint.getAuthority();
                 String ref = endpoint.getRef();
                 String endpointString = protocol + "://" + host;
-                ClientConfiguration clientConfiguration = new ClientConfiguration();
                 clientConfiguration.setProtocol(Protocol.valueOf(protocol.toUpperCase()));
 
                 if (signer != null) {
@@ -161,13 +221,9 @@ public class S3ProviderUtil {
 
     public static AmazonCloudFrontClient getAmazonCloudFrontClient(String accessKey,
                                                                    String secretKey) {
-        AmazonCloudFrontClient client =
-            cloudFrontClients.get(key(accessKey, secretKey, null));
-        if (null == client) {
-            client = newAmazonCloudFrontClient(accessKey, secretKey);
-            cloudFrontClients.put(key(accessKey, secretKey, null), client);
-        }
-        return client;
+        return cloudFrontClients.computeIfAbsent(
+            new ClientKey(accessKey, secretKey, null),
+            key -> newAmazonCloudFrontClient(key.accessKey, key.secretKey));
     }
 
     private static AmazonCloudFrontClient newAmazonCloudFrontClient(String accessKey,
@@ -226,4 +282,47 @@ public class S3ProviderUtil {
         Resource resource = new InputStreamResource(s3Obj.getObjectContent());
         return resource;
     }
+
+    /*
+     * Identifies a cached client by its credentials and the values of the
+     * options which affect how the client is created
+     */
+    private static final class ClientKey {
+        private final String accessKey;
+        private final String secretKey;
+        private final Map<String, String> options;
+
+        ClientKey(String accessKey, String secretKey, Map<String, String> options) {
+            this.accessKey = accessKey;
+            this.secretKey = secretKey;
+            this.options = new HashMap<>();
+            if (null != options) {
+                for (OPTS opt : CLIENT_OPTS) {
+                    String value = options.get(opt.name());
+                    if (null != value) {
+                        this.options.put(opt.name(), value);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClientKey)) {
+                return false;
+            }
+            ClientKey other = (ClientKey) o;
+            return Objects.equals(accessKey, other.accessKey) &&
+                   Objects.equals(secretKey, other.secretKey) &&
+                   options.equals(other.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accessKey, secretKey, options);
+        }
+    }
 }
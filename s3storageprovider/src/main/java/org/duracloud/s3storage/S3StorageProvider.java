@@ -24,6 +24,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
@@ -55,6 +59,7 @@ import org.duracloud.common.util.DateUtil;
 import org.duracloud.storage.domain.ContentByteRange;
 import org.duracloud.storage.domain.ContentIterator;
 import org.duracloud.storage.domain.RetrievedContent;
+import org.duracloud.storage.domain.StorageAccount.OPTS;
 import org.duracloud.storage.domain.StorageProviderType;
 import org.duracloud.storage.error.ChecksumMismatchException;
 import org.duracloud.storage.error.NotFoundException;
@@ -85,9 +90,50 @@ public class S3StorageProvider extends StorageProviderBase {
     protected static final String HEADER_VALUE_PREFIX = UTF_8 + "''";
     protected static final String HEADER_KEY_SUFFIX = "*";
 
+    // Bucket names are the account access key (or a hidden prefix plus the
+    // access key) followed by a period and the space ID
+    private static final Pattern BUCKET_NAME_PATTERN =
+        Pattern.compile("(" + HIDDEN_SPACE_PREFIX + ")?[\\w]{20}[.](.+)");
+    private static final Pattern MD5_PATTERN = Pattern.compile("[0-9a-fA-F]{32}");
+
+    protected static final long DEFAULT_BUCKET_CACHE_TTL_SECONDS = 600;
+    protected static final long DEFAULT_MULTIPART_THRESHOLD_MB = 1024;
+    protected static final long DEFAULT_MULTIPART_PART_SIZE_MB = 16;
+    protected static final int DEFAULT_MULTIPART_THREADS = 4;
+    private static final long MB = 1024 * 1024;
+    // Largest object which S3 allows to be added or copied in one request
+    protected static final long MAX_SINGLE_REQUEST_SIZE = 5 * 1024 * MB;
+    protected static final int DEFAULT_ADD_VERIFY_ATTEMPTS = 2;
+    protected static final long DEFAULT_ADD_VERIFY_WAIT_MS = 500;
+    // Verification used for stores without read-after-write consistency
+    protected static final int LEGACY_ADD_VERIFY_ATTEMPTS = 20;
+    protected static final long LEGACY_ADD_VERIFY_WAIT_MS = 4000;
+
     protected String accessKeyId = null;
     protected AmazonS3 s3Client = null;
 
+    // Maps space IDs to the names of the buckets which hold them. The full
+    // mapping is reloaded from a bucket listing on a cache miss and when the
+    // cache has aged past its time-to-live.
+    private final Map<String, String> bucketNames = new ConcurrentHashMap<>();
+    private final Object bucketNamesLock = new Object();
+    private volatile long bucketNamesLoaded = 0;
+    private long bucketCacheTtlMs = DEFAULT_BUCKET_CACHE_TTL_SECONDS * 1000;
+
+    // Content of at least this size is added (when its checksum is known)
+    // and copied as a multipart upload
+    private long multipartThreshold = DEFAULT_MULTIPART_THRESHOLD_MB * MB;
+    private long multipartPartSize = DEFAULT_MULTIPART_PART_SIZE_MB * MB;
+    private int multipartThreads = DEFAULT_MULTIPART_THREADS;
+
+    // When adding content fails, the content is checked this many times
+    // (waiting a growing multiple of the wait time between checks) to
+    // determine if it was stored despite the failure
+    private int addVerifyAttempts = DEFAULT_ADD_VERIFY_ATTEMPTS;
+    private long addVerifyWaitMs = DEFAULT_ADD_VERIFY_WAIT_MS;
+    private final AtomicLong addRecoveries = new AtomicLong(0);
+    private final AtomicLong addRecoveriesSucceeded = new AtomicLong(0);
+
     public S3StorageProvider(String accessKey, String secretKey) {
         this(S3ProviderUtil.getAmazonS3Client(accessKey, secretKey, null),
              accessKey,
@@ -107,6 +153,38 @@ public class S3StorageProvider extends StorageProviderBase {
                              Map<String, String> options) {
         this.accessKeyId = accessKey;
         this.s3Client = s3Client;
+
+        if (null != options) {
+            String cacheTtl = options.get(OPTS.BUCKET_CACHE_TTL_SECONDS.name());
+            if (null != cacheTtl) {
+                this.bucketCacheTtlMs = Long.parseLong(cacheTtl) * 1000;
+            }
+            String threshold = options.get(OPTS.MULTIPART_THRESHOLD_MB.name());
+            if (null != threshold) {
+                this.multipartThreshold = Math.min(Long.parseLong(threshold) * MB,
+                                                   MAX_SINGLE_REQUEST_SIZE);
+            }
+            String partSize = options.get(OPTS.MULTIPART_PART_SIZE_MB.name());
+            if (null != partSize) {
+                this.multipartPartSize = Long.parseLong(partSize) * MB;
+            }
+            String threads = options.get(OPTS.MULTIPART_THREADS.name());
+            if (null != threads) {
+                this.multipartThreads = Integer.parseInt(threads);
+            }
+            if (Boolean.parseBoolean(options.get(OPTS.ADD_VERIFY_LEGACY.name()))) {
+                this.addVerifyAttempts = LEGACY_ADD_VERIFY_ATTEMPTS;
+                this.addVerifyWaitMs = LEGACY_ADD_VERIFY_WAIT_MS;
+            }
+            String verifyAttempts = options.get(OPTS.ADD_VERIFY_ATTEMPTS.name());
+            if (null != verifyAttempts) {
+                this.addVerifyAttempts = Math.max(Integer.parseInt(verifyAttempts), 1);
+            }
+            String verifyWait = options.get(OPTS.ADD_VERIFY_WAIT_MS.name());
+            if (null != verifyWait) {
+                this.addVerifyWaitMs = Long.parseLong(verifyWait);
+            }
+        }
     }
 
     /**
@@ -204,6 +282,7 @@ public class S3StorageProvider extends StorageProviderBase {
             ObjectListing objectListing = s3Client.listObjects(request);
             return objectListing.getObjectSummaries();
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             String err = "Could not get contents of S3 bucket " + bucketName
                          + " due to error: " + e.getMessage();
             throw new StorageException(err, e, RETRY);
@@ -225,7 +304,12 @@ public class S3StorageProvider extends StorageProviderBase {
     public void createSpace(String spaceId) {
         log.debug("createSpace(" + spaceId + ")");
         if (spaceExists(spaceId)) {
-            throw new SpaceAlreadyExistsException(spaceId);
+            // The cached bucket may have been removed by another node
+            String bucketName = getBucketName(spaceId);
+            if (s3Client.doesBucketExistV2(bucketName) ||
+                !evictBucketName(spaceId, bucketName)) {
+                throw new SpaceAlreadyExistsException(spaceId);
+            }
         }
 
         Bucket bucket = createBucket(spaceId);
@@ -255,6 +339,7 @@ public class S3StorageProvider extends StorageProviderBase {
         String bucketName = getNewBucketName(spaceId);
         try {
             Bucket bucket = s3Client.createBucket(bucketName);
+            cacheBucketName(spaceId, bucketName);
 
             // Apply lifecycle config to bucket
             StoragePolicy storagePolicy = getStoragePolicy();
@@ -286,6 +371,7 @@ public class S3StorageProvider extends StorageProviderBase {
         String bucketName = getHiddenBucketName(spaceId);
         try {
             Bucket bucket = s3Client.createBucket(bucketName);
+            cacheBucketName(spaceId, bucketName);
 
             // Apply lifecycle config to bucket
 
@@ -363,7 +449,9 @@ public class S3StorageProvider extends StorageProviderBase {
 
         try {
             s3Client.deleteBucket(bucketName);
+            evictBucketName(spaceId);
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             String err = "Could not delete S3 bucket with name " + bucketName
                          + " due to error: " + e.getMessage();
             throw new StorageException(err, e, RETRY);
@@ -386,6 +474,7 @@ public class S3StorageProvider extends StorageProviderBase {
         try {
             tagConfig = s3Client.getBucketTaggingConfiguration(bucketName);
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             String err = "Could not get bucket tagging configuration in S3 bucket " +
                          bucketName + " due to error: " + e.getMessage();
             throw new StorageException(err, e, RETRY);
@@ -400,11 +489,17 @@ public class S3StorageProvider extends StorageProviderBase {
         // Handle @ symbol (change from +), to allow for email usernames in ACLs
         spaceProperties = replaceInMapValues(spaceProperties, "+", "@");
 
-        // Add space count
+        return spaceProperties;
+    }
+
+    /**
+     * Adds the space count, which requires listing the space contents.
+     */
+    @Override
+    protected void addCalculatedSpaceProperties(String spaceId,
+                                                Map<String, String> spaceProperties) {
         spaceProperties.put(PROPERTIES_SPACE_COUNT,
                             getSpaceCount(spaceId, MAX_ITEM_COUNT));
-
-        return spaceProperties;
     }
 
     /*
@@ -500,6 +595,7 @@ public class S3StorageProvider extends StorageProviderBase {
         try {
             s3Client.setBucketTaggingConfiguration(bucketName, tagConfig);
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             String err = "Could not update bucket tagging configuration in S3 bucket " +
                          bucketName + " due to error: " + e.getMessage();
             throw new StorageException(err, e, RETRY);
@@ -562,6 +658,7 @@ public class S3StorageProvider extends StorageProviderBase {
             PutObjectResult putResult = s3Client.putObject(putRequest);
             return putResult.getETag();
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             String err = "Could not add content " + contentId +
                          " with type " + contentMimeType +
                          " to S3 bucket " + bucketName + " due to error: " +
@@ -601,14 +698,6 @@ public class S3StorageProvider extends StorageProviderBase {
 
         ObjectMetadata objMetadata = new ObjectMetadata();
         objMetadata.setContentType(contentMimeType);
-        if (contentSize > 0) {
-            objMetadata.setContentLength(contentSize);
-        }
-        if (null != contentChecksum && !contentChecksum.isEmpty()) {
-            String encodedChecksum =
-                ChecksumUtil.convertToBase64Encoding(contentChecksum);
-            objMetadata.setContentMD5(encodedChecksum);
-        }
 
         if (contentEncoding != null) {
             objMetadata.setContentEncoding(contentEncoding);
@@ -626,6 +715,21 @@ public class S3StorageProvider extends StorageProviderBase {
             }
         }
 
+        boolean hasChecksum = null != contentChecksum && !contentChecksum.isEmpty();
+        if (hasChecksum && useMultipart(contentSize)) {
+            return addMultipartContent(bucketName, contentId, objMetadata,
+                                       content, contentSize, contentChecksum);
+        }
+
+        if (contentSize > 0) {
+            objMetadata.setContentLength(contentSize);
+        }
+        if (hasChecksum) {
+            String encodedChecksum =
+                ChecksumUtil.convertToBase64Encoding(contentChecksum);
+            objMetadata.setContentMD5(encodedChecksum);
+        }
+
         PutObjectRequest putRequest = new PutObjectRequest(bucketName,
                                                            contentId,
                                                            wrappedContent,
@@ -639,6 +743,7 @@ public class S3StorageProvider extends StorageProviderBase {
             PutObjectResult putResult = s3Client.putObject(putRequest);
             etag = putResult.getETag();
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             if (e instanceof AmazonS3Exception) {
                 AmazonS3Exception s3Ex = (AmazonS3Exception) e;
                 String errorCode = s3Ex.getErrorCode();
@@ -703,6 +808,64 @@ public class S3StorageProvider extends StorageProviderBase {
         return providerChecksum;
     }
 
+    /*
+     * Adds content as a multipart upload. The content checksum is verified
+     * by the uploader before the upload is completed. As with a single put,
+     * a failed upload is checked to determine if the content was stored
+     * despite the failure, for example when completing the upload fails.
+     */
+    private String addMultipartContent(String bucketName,
+                                       String contentId,
+                                       ObjectMetadata objMetadata,
+                                       InputStream content,
+                                       long contentSize,
+                                       String contentChecksum) {
+        S3MultipartUploader uploader = getMultipartUploader();
+        try {
+            return uploader.upload(bucketName, contentId, objMetadata, content,
+                                   contentSize, contentChecksum);
+        } catch (AmazonClientException e) {
+            if (e instanceof AmazonS3Exception) {
+                String errorCode = ((AmazonS3Exception) e).getErrorCode();
+                if ("InvalidDigest".equals(errorCode) || "BadDigest".equals(errorCode)) {
+                    String err = "Checksum mismatch detected attempting to add " +
+                                 "content " + contentId + " to S3 bucket " +
+                                 bucketName + ". Content was not added.";
+                    throw new ChecksumMismatchException(err, e, NO_RETRY);
+                }
+            }
+            log.error("exception adding object {} to {} as a multipart upload: {}",
+                      contentId, bucketName, e.getMessage(), e);
+
+            // Check to see if file landed successfully in S3, despite the exception
+            String checksum =
+                doesContentExistWithExpectedChecksum(bucketName, contentId, contentChecksum);
+            if (null == checksum || !checksum.equals(contentChecksum)) {
+                String err = "Could not add content " + contentId +
+                             " with size " + contentSize +
+                             " to S3 bucket " + bucketName + " as a multipart " +
+                             "upload due to error: " + e.getMessage();
+                throw new StorageException(err, e, NO_RETRY);
+            }
+            return checksum;
+        }
+    }
+
+    /**
+     * Determines if content of the given size is added and copied as a
+     * multipart upload.
+     *
+     * @param contentSize the size of the content
+     * @return true if a multipart upload is used
+     */
+    protected boolean useMultipart(long contentSize) {
+        return contentSize >= multipartThreshold;
+    }
+
+    protected S3MultipartUploader getMultipartUploader() {
+        return new S3MultipartUploader(s3Client, multipartPartSize, multipartThreads);
+    }
+
     private String removeContentEncoding(Map<String, String> properties) {
         if (properties != null) {
             return properties.remove(CONTENT_ENCODING);
@@ -713,65 +876,105 @@ public class S3StorageProvider extends StorageProviderBase {
 
     /*
      * Determines if a content item exists and if so if the MD5 matches what was
-     * expected. If so, returns its MD5. If not, returns null. This method is
-     * necessary because S3 GETs are non-atomic. Therefore it is possible for
-     * the put to succeed while a subsequent GET may return results inconsistent
-     * with the most recent state of S3.
+     * expected. If the item exists, returns its checksum (see
+     * getContentChecksum), which differs from the expected checksum if the
+     * item has a different MD5, otherwise returns null. This is used when
+     * adding content fails, as the content may have been stored despite the
+     * failure.
+     *
+     * S3 provides read-after-write consistency, so by default the item is
+     * checked immediately and once more after a short wait. The legacy option
+     * restores longer verification for stores which may not return the most
+     * recent state of an object.
      */
     protected String doesContentExistWithExpectedChecksum(String bucketName,
                                                           String contentId,
                                                           String expectedChecksum) {
-        int maxAttempts = 20;
-        int waitInSeconds = 2;
-        int attempts = 0;
-        int totalSecondsWaited = 0;
-        String etag = null;
-        for (int i = 0; i < maxAttempts; i++) {
+        long recoveries = addRecoveries.incrementAndGet();
+        long totalWaitMs = 0;
+        String checksum = null;
+        for (int attempt = 0; attempt < addVerifyAttempts; attempt++) {
+            if (attempt > 0) {
+                long waitMs = addVerifyWaitMs * attempt;
+                if (!sleep(waitMs)) {
+                    break;
+                }
+                totalWaitMs += waitMs;
+            }
+
             try {
                 ObjectMetadata metadata =
                     s3Client.getObjectMetadata(bucketName, contentId);
                 if (null != metadata) {
-                    if (attempts > 5) {
-                        log.info("contentId={} found in bucket={} after waiting for {} seconds...",
-                                 contentId,
-                                 bucketName,
-                                 totalSecondsWaited);
+                    checksum = getContentChecksum(metadata);
+                    if (expectedChecksum.equals(checksum)) {
+                        long succeeded = addRecoveriesSucceeded.incrementAndGet();
+                        log.info("contentId={} found in bucket={} after a failed add, " +
+                                 "on check {} after waiting {} ms. Adds recovered: {} of {}",
+                                 contentId, bucketName, attempt + 1, totalWaitMs,
+                                 succeeded, recoveries);
+                        return checksum;
                     }
-
-                    etag = metadata.getETag();
-
-                    if (expectedChecksum.equals(getETagValue(etag))) {
-                        return etag;
-                    }
-
                 }
             } catch (AmazonClientException e) {
-                // Content item is not yet available
+                // Content item is not available
             }
-
-            attempts++;
-            int waitNow = waitInSeconds * i;
-            wait(waitNow);
-            totalSecondsWaited += waitNow;
         }
 
-        if (etag == null) {
-            log.warn("contentId={} NOT found in bucket={} after waiting for {} seconds...",
+        if (checksum == null) {
+            log.warn("contentId={} NOT found in bucket={} after {} checks over {} ms. " +
+                     "Adds recovered: {} of {}",
                      contentId,
                      bucketName,
-                     attempts * waitInSeconds);
+                     addVerifyAttempts,
+                     totalWaitMs,
+                     addRecoveriesSucceeded.get(),
+                     recoveries);
         } else {
-            log.warn("contentId={} in bucket={} does not have the expected checksum after waiting " +
-                     "for {} seconds. S3 Checksum={} Expected Checksum={}",
+            log.warn("contentId={} in bucket={} does not have the expected checksum after " +
+                     "{} checks over {} ms. S3 Checksum={} Expected Checksum={}. " +
+                     "Adds recovered: {} of {}",
                      contentId,
                      bucketName,
-                     attempts * waitInSeconds,
-                     getETagValue(etag),
-                     expectedChecksum);
-
+                     addVerifyAttempts,
+                     totalWaitMs,
+                     checksum,
+                     expectedChecksum,
+                     addRecoveriesSucceeded.get(),
+                     recoveries);
         }
 
-        return etag;
+        return checksum;
+    }
+
+    /*
+     * The number of times adding content failed and the content was checked
+     * to determine if it had been stored. Reported in the log messages above.
+     */
+    long getAddRecoveryCount() {
+        return addRecoveries.get();
+    }
+
+    /*
+     * The number of times adding content failed but the content was found to
+     * have been stored with the expected checksum. Reported in the log
+     * messages above.
+     */
+    long getAddRecoverySucceededCount() {
+        return addRecoveriesSucceeded.get();
+    }
+
+    /*
+     * Returns false if interrupted while sleeping
+     */
+    protected boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     protected void wait(int seconds) {
@@ -795,7 +998,16 @@ public class S3StorageProvider extends StorageProviderBase {
         // Will throw if destination bucket does not exist
         String destBucketName = getBucketName(destSpaceId);
 
-        throwIfContentNotExist(sourceBucketName, sourceContentId);
+        // Will throw if source content does not exist
+        ObjectMetadata sourceMetadata =
+            getObjectDetails(sourceBucketName, sourceContentId, RETRY);
+
+        if (null != sourceMetadata &&
+            useMultipart(sourceMetadata.getContentLength())) {
+            return copyMultipartContent(sourceBucketName, sourceContentId,
+                                        destBucketName, destContentId,
+                                        sourceMetadata);
+        }
 
         CopyObjectRequest request = new CopyObjectRequest(sourceBucketName,
                                                           sourceContentId,
@@ -811,6 +1023,54 @@ public class S3StorageProvider extends StorageProviderBase {
                                                    result.getETag());
     }
 
+    /*
+     * Copies content as a multipart upload. The copy is given the properties
+     * and checksum of the source, which S3 does not carry over to the parts.
+     */
+    private String copyMultipartContent(String sourceBucketName,
+                                        String sourceContentId,
+                                        String destBucketName,
+                                        String destContentId,
+                                        ObjectMetadata sourceMetadata) {
+        String checksum = getContentMd5(sourceMetadata);
+        try {
+            String etag = getMultipartUploader().copy(sourceBucketName,
+                                                      sourceContentId,
+                                                      destBucketName,
+                                                      destContentId,
+                                                      copyContentMetadata(sourceMetadata),
+                                                      null,
+                                                      sourceMetadata.getContentLength(),
+                                                      sourceMetadata.getETag(),
+                                                      checksum);
+            return null != checksum ? checksum : etag;
+        } catch (AmazonClientException e) {
+            String err = "Error copying from: " + sourceBucketName + " / " +
+                         sourceContentId + ", to: " + destBucketName + " / " +
+                         destContentId + " as a multipart upload";
+            log.error(err + " msg: {}", e.getMessage());
+            throw new StorageException(err, e, RETRY);
+        }
+    }
+
+    /*
+     * Collects the properties of an object which are set when it is added,
+     * so that they can be given to a copy of the object
+     */
+    private ObjectMetadata copyContentMetadata(ObjectMetadata objMetadata) {
+        ObjectMetadata copyMetadata = new ObjectMetadata();
+        if (null != objMetadata.getContentType()) {
+            copyMetadata.setContentType(objMetadata.getContentType());
+        }
+        if (null != objMetadata.getContentEncoding()) {
+            copyMetadata.setContentEncoding(objMetadata.getContentEncoding());
+        }
+        Map<String, String> userMetadata = new HashMap<>(objMetadata.getUserMetadata());
+        userMetadata.remove(S3MultipartUploader.CONTENT_MD5_META);
+        copyMetadata.setUserMetadata(userMetadata);
+        return copyMetadata;
+    }
+
     private CopyObjectResult doCopyObject(CopyObjectRequest request) {
         try {
             return s3Client.copyObject(request);
@@ -870,6 +1130,7 @@ public class S3StorageProvider extends StorageProviderBase {
 
             return retrievedContent;
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             throwIfContentNotExist(bucketName, contentId);
             String err = "Could not retrieve content " + contentId + " in S3 bucket " +
                          bucketName + " due to error: " + e.getMessage();
@@ -893,6 +1154,7 @@ public class S3StorageProvider extends StorageProviderBase {
         try {
             s3Client.deleteObject(bucketName, contentId);
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             String err = "Could not delete content " + contentId + " from S3 bucket " +
                          bucketName + " due to error: " + e.getMessage();
             throw new StorageException(err, e, RETRY);
@@ -996,6 +1258,25 @@ public class S3StorageProvider extends StorageProviderBase {
         try {
             AccessControlList originalACL =
                 s3Client.getObjectAcl(bucketName, contentId);
+
+            // Large objects are replaced by a multipart copy, which is given
+            // the original ACL as part of the copy
+            ObjectMetadata existingMetadata =
+                s3Client.getObjectMetadata(bucketName, contentId);
+            if (null != existingMetadata &&
+                useMultipart(existingMetadata.getContentLength())) {
+                getMultipartUploader().copy(bucketName,
+                                            contentId,
+                                            bucketName,
+                                            contentId,
+                                            objMetadata,
+                                            originalACL,
+                                            existingMetadata.getContentLength(),
+                                            existingMetadata.getETag(),
+                                            getContentMd5(existingMetadata));
+                return;
+            }
+
             CopyObjectRequest copyRequest = new CopyObjectRequest(bucketName,
                                                                   contentId,
                                                                   bucketName,
@@ -1005,6 +1286,7 @@ public class S3StorageProvider extends StorageProviderBase {
             s3Client.copyObject(copyRequest);
             s3Client.setObjectAcl(bucketName, contentId, originalACL);
         } catch (AmazonClientException e) {
+            throwIfBucketRemoved(bucketName, e);
             throwIfContentNotExist(bucketName, contentId);
             String err = "Could not update metadata for content " + contentId + " in S3 bucket " +
                          bucketName + " due to error: " + e.getMessage();
@@ -1046,6 +1328,9 @@ public class S3StorageProvider extends StorageProviderBase {
         // Set the user properties
         Map<String, String> userProperties = objMetadata.getUserMetadata();
         for (String metaName : userProperties.keySet()) {
+            if (S3MultipartUploader.CONTENT_MD5_META.equals(metaName)) {
+                continue;
+            }
             String metaValue = userProperties.get(metaName);
             contentProperties.put(getWithSpace(decodeHeaderKey(metaName)), decodeHeaderValue(metaValue));
         }
@@ -1081,12 +1366,11 @@ public class S3StorageProvider extends StorageProviderBase {
         }
 
         // Set CHECKSUM
-        String checksum = objMetadata.getETag();
+        String checksum = getContentChecksum(objMetadata);
         if (checksum != null) {
-            String eTagValue = getETagValue(checksum);
-            contentProperties.put(PROPERTIES_CONTENT_CHECKSUM, eTagValue);
-            contentProperties.put(PROPERTIES_CONTENT_MD5, eTagValue);
-            contentProperties.put(Headers.ETAG, eTagValue);
+            contentProperties.put(PROPERTIES_CONTENT_CHECKSUM, checksum);
+            contentProperties.put(PROPERTIES_CONTENT_MD5, checksum);
+            contentProperties.put(Headers.ETAG, checksum);
         }
 
         // Set MODIFIED
@@ -1100,6 +1384,34 @@ public class S3StorageProvider extends StorageProviderBase {
         return contentProperties;
     }
 
+    /**
+     * Determines the MD5 checksum of an object. The ETag of content added as
+     * a multipart upload is not an MD5, so the MD5 recorded with the object
+     * is used in its place.
+     *
+     * @param objMetadata the metadata of the object
+     * @return the MD5 checksum of the object
+     */
+    protected String getContentChecksum(ObjectMetadata objMetadata) {
+        String md5 = objMetadata.getUserMetaDataOf(S3MultipartUploader.CONTENT_MD5_META);
+        if (null != md5) {
+            return md5;
+        }
+        return getETagValue(objMetadata.getETag());
+    }
+
+    /*
+     * Returns the MD5 checksum of content, or null if it is not known, as for
+     * content uploaded in parts by other tools, whose ETag is not an MD5.
+     */
+    private String getContentMd5(ObjectMetadata objMetadata) {
+        String checksum = getContentChecksum(objMetadata);
+        if (null != checksum && MD5_PATTERN.matcher(checksum).matches()) {
+            return checksum;
+        }
+        return null;
+    }
+
     protected String getETagValue(String etag) {
         String checksum = etag;
         if (checksum != null) {
@@ -1124,15 +1436,89 @@ public class S3StorageProvider extends StorageProviderBase {
         // Determine if there is an existing bucket that matches this space ID.
         // The bucket name may use any access key ID as the prefix, so there is
         // no way to know the exact bucket name up front.
-        List<Bucket> buckets = listAllBuckets();
-        for (Bucket bucket : buckets) {
-            String bucketName = bucket.getName();
-            spaceId = spaceId.replace(".", "[.]");
-            if (bucketName.matches("(" + HIDDEN_SPACE_PREFIX + ")?[\\w]{20}[.]" + spaceId)) {
-                return bucketName;
+        boolean reloaded = false;
+        if (System.currentTimeMillis() - bucketNamesLoaded > bucketCacheTtlMs) {
+            loadBucketNames();
+            reloaded = true;
+        }
+
+        String bucketName = bucketNames.get(spaceId);
+        if (null == bucketName && !reloaded) {
+            // The space may have been created by another node, check again
+            loadBucketNames();
+            bucketName = bucketNames.get(spaceId);
+        }
+
+        if (null == bucketName) {
+            throw new NotFoundException("No S3 bucket found matching spaceID: " + spaceId);
+        }
+        return bucketName;
+    }
+
+    /*
+     * Replaces the cached space ID to bucket name mapping with one built
+     * from a full bucket listing. Where more than one bucket matches a space
+     * ID, the first bucket listed is used.
+     */
+    private void loadBucketNames() {
+        synchronized (bucketNamesLock) {
+            Map<String, String> loaded = new HashMap<>();
+            for (Bucket bucket : listAllBuckets()) {
+                String bucketName = bucket.getName();
+                Matcher matcher = BUCKET_NAME_PATTERN.matcher(bucketName);
+                if (matcher.matches()) {
+                    loaded.putIfAbsent(matcher.group(2), bucketName);
+                }
+            }
+            bucketNames.keySet().retainAll(loaded.keySet());
+            bucketNames.putAll(loaded);
+            bucketNamesLoaded = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Records the name of a newly created bucket
+     *
+     * @param spaceId    ID of the space held in the bucket
+     * @param bucketName name of the S3 bucket
+     */
+    protected void cacheBucketName(String spaceId, String bucketName) {
+        bucketNames.put(spaceId, bucketName);
+    }
+
+    /**
+     * Removes the bucket name of a deleted space from the cache
+     *
+     * @param spaceId ID of the deleted space
+     */
+    protected void evictBucketName(String spaceId) {
+        bucketNames.remove(spaceId);
+    }
+
+    /*
+     * Removes the cached bucket name of a space whose bucket no longer
+     * exists, then reloads the bucket names. Returns true if the space no
+     * longer exists, false if it is now held in another bucket.
+     */
+    private boolean evictBucketName(String spaceId, String bucketName) {
+        bucketNames.remove(spaceId, bucketName);
+        return !spaceExists(spaceId);
+    }
+
+    /*
+     * Throws NotFoundException if S3 reports that a bucket does not exist
+     * because its space has been removed, such as by another node, since
+     * the bucket name was cached. Other errors are left to the caller.
+     */
+    private void throwIfBucketRemoved(String bucketName, AmazonClientException e) {
+        if (e instanceof AmazonS3Exception &&
+            "NoSuchBucket".equals(((AmazonS3Exception) e).getErrorCode())) {
+            Matcher matcher = BUCKET_NAME_PATTERN.matcher(bucketName);
+            if (matcher.matches() && evictBucketName(matcher.group(2), bucketName)) {
+                throw new NotFoundException("No S3 bucket found matching spaceID: " +
+                                            matcher.group(2));
             }
         }
-        throw new NotFoundException("No S3 bucket found matching spaceID: " + spaceId);
     }
 
     /**
@@ -0,0 +1,314 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.s3storage;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.apache.commons.io.IOUtils;
+import org.duracloud.common.util.ChecksumUtil;
+import org.duracloud.storage.error.ChecksumMismatchException;
+import org.duracloud.storage.error.StorageException;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class S3MultipartUploaderTest {
+
+    private static final String bucketName = "bucket-name";
+    private static final String contentId = "content-id";
+    private static final String uploadId = "upload-id";
+
+    private AmazonS3 s3Client;
+    private byte[] content;
+    private String checksum;
+
+    @Before
+    public void setup() throws Exception {
+        s3Client = createMock("AmazonS3", AmazonS3.class);
+
+        // Two full parts and a partial part
+        content = new byte[(int) (S3MultipartUploader.MIN_PART_SIZE * 2) + 1000];
+        new Random().nextBytes(content);
+        ChecksumUtil checksumUtil = new ChecksumUtil(ChecksumUtil.Algorithm.MD5);
+        checksum = checksumUtil.generateChecksum(new ByteArrayInputStream(content));
+    }
+
+    @After
+    public void teardown() {
+        verify(s3Client);
+    }
+
+    @Test
+    public void testUpload() throws Exception {
+        Capture<InitiateMultipartUploadRequest> initCapture = newCapture();
+        Capture<CompleteMultipartUploadRequest> completeCapture = newCapture();
+        expectInitiate(initCapture);
+        expectUploadParts(3);
+
+        // The ETag of the object is the MD5 of the part MD5s
+        ChecksumUtil checksumUtil = new ChecksumUtil(ChecksumUtil.Algorithm.MD5);
+        byte[] partMD5s = new byte[48];
+        for (int i = 0; i < 3; i++) {
+            int start = (int) (i * S3MultipartUploader.MIN_PART_SIZE);
+            int end = (int) Math.min(start + S3MultipartUploader.MIN_PART_SIZE,
+                                     content.length);
+            String partChecksum = checksumUtil.generateChecksum(
+                new ByteArrayInputStream(content, start, end - start));
+            System.arraycopy(ChecksumUtil.hexStringToByteArray(partChecksum),
+                             0, partMD5s, i * 16, 16);
+        }
+        String etag = checksumUtil.generateChecksum(
+            new ByteArrayInputStream(partMD5s)) + "-3";
+        CompleteMultipartUploadResult completeResult =
+            new CompleteMultipartUploadResult();
+        completeResult.setETag("\"" + etag + "\"");
+        expect(s3Client.completeMultipartUpload(capture(completeCapture)))
+            .andReturn(completeResult);
+        replay(s3Client);
+
+        S3MultipartUploader uploader = new S3MultipartUploader(s3Client, 0, 2);
+        String result = uploader.upload(bucketName, contentId, new ObjectMetadata(),
+                                        new ByteArrayInputStream(content),
+                                        content.length, checksum);
+        assertEquals(checksum, result);
+
+        ObjectMetadata metadata = initCapture.getValue().getObjectMetadata();
+        assertEquals(checksum, metadata.getUserMetaDataOf(
+            S3MultipartUploader.CONTENT_MD5_META));
+
+        List<PartETag> partETags = completeCapture.getValue().getPartETags();
+        assertEquals(3, partETags.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, partETags.get(i).getPartNumber());
+        }
+    }
+
+    @Test
+    public void testUploadChecksumMismatch() throws Exception {
+        expectInitiate(newCapture());
+        expectUploadParts(3);
+        expectAbort();
+        replay(s3Client);
+
+        S3MultipartUploader uploader = new S3MultipartUploader(s3Client, 0, 2);
+        try {
+            uploader.upload(bucketName, contentId, new ObjectMetadata(),
+                            new ByteArrayInputStream(content),
+                            content.length, "0123456789abcdef0123456789abcdef");
+            fail("Exception expected");
+        } catch (ChecksumMismatchException e) {
+            assertTrue(e.getMessage().contains(checksum));
+        }
+    }
+
+    @Test
+    public void testUploadETagMismatch() throws Exception {
+        expectInitiate(newCapture());
+        expectUploadParts(3);
+        CompleteMultipartUploadResult completeResult =
+            new CompleteMultipartUploadResult();
+        completeResult.setETag("\"0123456789abcdef0123456789abcdef-3\"");
+        expect(s3Client.completeMultipartUpload(
+            isA(CompleteMultipartUploadRequest.class))).andReturn(completeResult);
+        // The completed object does not hold the uploaded parts, so is removed
+        s3Client.deleteObject(bucketName, contentId);
+        EasyMock.expectLastCall();
+        replay(s3Client);
+
+        S3MultipartUploader uploader = new S3MultipartUploader(s3Client, 0, 2);
+        try {
+            uploader.upload(bucketName, contentId, new ObjectMetadata(),
+                            new ByteArrayInputStream(content),
+                            content.length, checksum);
+            fail("Exception expected");
+        } catch (ChecksumMismatchException e) {
+            assertTrue(e.getMessage().contains("removed"));
+        }
+    }
+
+    @Test
+    public void testUploadPartFailure() throws Exception {
+        expectInitiate(newCapture());
+        // Every part upload fails, but at most one part per thread may be
+        // underway before the failure is seen
+        expect(s3Client.uploadPart(isA(UploadPartRequest.class)))
+            .andThrow(new ChecksumMismatchException("bad digest", false))
+            .times(1, 3);
+        expectAbort();
+        replay(s3Client);
+
+        S3MultipartUploader uploader = new S3MultipartUploader(s3Client, 0, 1);
+        try {
+            uploader.upload(bucketName, contentId, new ObjectMetadata(),
+                            new ByteArrayInputStream(content),
+                            content.length, checksum);
+            fail("Exception expected");
+        } catch (ChecksumMismatchException e) {
+            assertEquals("bad digest", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        long mb = 1024 * 1024;
+        long size = S3MultipartUploader.MIN_COPY_PART_SIZE * 2 + mb;
+        String sourceETag = "source-etag";
+
+        Capture<InitiateMultipartUploadRequest> initCapture = newCapture();
+        expectInitiate(initCapture);
+        Capture<CopyPartRequest> partCapture = newCapture(CaptureType.ALL);
+        expect(s3Client.copyPart(capture(partCapture)))
+            .andAnswer(this::copyPart)
+            .times(3);
+        CompleteMultipartUploadResult completeResult =
+            new CompleteMultipartUploadResult();
+        completeResult.setETag("\"etag-3\"");
+        expect(s3Client.completeMultipartUpload(
+            isA(CompleteMultipartUploadRequest.class))).andReturn(completeResult);
+        replay(s3Client);
+
+        AccessControlList acl = new AccessControlList();
+        S3MultipartUploader uploader = new S3MultipartUploader(s3Client, 0, 2);
+        String etag = uploader.copy(bucketName, contentId, bucketName, contentId,
+                                    new ObjectMetadata(), acl, size, sourceETag,
+                                    checksum);
+        assertEquals("etag-3", etag);
+
+        InitiateMultipartUploadRequest initRequest = initCapture.getValue();
+        assertEquals(acl, initRequest.getAccessControlList());
+        assertEquals(checksum, initRequest.getObjectMetadata().getUserMetaDataOf(
+            S3MultipartUploader.CONTENT_MD5_META));
+
+        // Parts cover the full object, and require the source to be unchanged
+        long nextByte = 0;
+        List<CopyPartRequest> partRequests = new ArrayList<>(partCapture.getValues());
+        partRequests.sort(Comparator.comparingInt(CopyPartRequest::getPartNumber));
+        for (CopyPartRequest partRequest : partRequests) {
+            assertEquals(nextByte, partRequest.getFirstByte().longValue());
+            assertEquals(sourceETag, partRequest.getMatchingETagConstraints().get(0));
+            nextByte = partRequest.getLastByte() + 1;
+        }
+        assertEquals(size, nextByte);
+    }
+
+    @Test
+    public void testCopySourceChanged() throws Exception {
+        expectInitiate(newCapture());
+        // A null result indicates the ETag constraint was not met
+        expect(s3Client.copyPart(isA(CopyPartRequest.class)))
+            .andReturn(null);
+        expectAbort();
+        replay(s3Client);
+
+        S3MultipartUploader uploader = new S3MultipartUploader(s3Client, 0, 1);
+        try {
+            uploader.copy(bucketName, contentId, bucketName, "dest-id",
+                          new ObjectMetadata(), null, 1000, "source-etag", null);
+            fail("Exception expected");
+        } catch (StorageException e) {
+            assertTrue(e.getMessage().contains("changed"));
+        }
+    }
+
+    @Test
+    public void testGetPartSize() {
+        S3MultipartUploader uploader = new S3MultipartUploader(s3Client, 0, 1);
+        replay(s3Client);
+
+        long mb = 1024 * 1024;
+        assertEquals(S3MultipartUploader.MIN_PART_SIZE,
+                     uploader.getPartSize(10 * mb, S3MultipartUploader.MIN_PART_SIZE));
+        // 5 TB requires parts larger than 5 MB to stay within 10,000 parts
+        long size = 5L * 1024 * 1024 * mb;
+        long partSize = uploader.getPartSize(size, S3MultipartUploader.MIN_PART_SIZE);
+        assertEquals(0, partSize % mb);
+        assertTrue((size + partSize - 1) / partSize <= 10000);
+    }
+
+    private void expectInitiate(Capture<InitiateMultipartUploadRequest> capture) {
+        InitiateMultipartUploadResult initResult = new InitiateMultipartUploadResult();
+        initResult.setUploadId(uploadId);
+        expect(s3Client.initiateMultipartUpload(capture(capture)))
+            .andReturn(initResult);
+    }
+
+    private void expectUploadParts(int parts) {
+        expect(s3Client.uploadPart(isA(UploadPartRequest.class)))
+            .andAnswer(this::uploadPart)
+            .times(parts);
+    }
+
+    private void expectAbort() {
+        s3Client.abortMultipartUpload(isA(AbortMultipartUploadRequest.class));
+        EasyMock.expectLastCall().once();
+    }
+
+    private CopyPartResult copyPart() {
+        CopyPartRequest request =
+            (CopyPartRequest) EasyMock.getCurrentArguments()[0];
+        CopyPartResult result = new CopyPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag("part-etag-" + request.getPartNumber());
+        return result;
+    }
+
+    private UploadPartResult uploadPart() throws IOException {
+        UploadPartRequest request =
+            (UploadPartRequest) EasyMock.getCurrentArguments()[0];
+        assertEquals(uploadId, request.getUploadId());
+        byte[] part = IOUtils.toByteArray(request.getInputStream());
+        assertEquals(request.getPartSize(), part.length);
+
+        ChecksumUtil checksumUtil = new ChecksumUtil(ChecksumUtil.Algorithm.MD5);
+        String partChecksum =
+            checksumUtil.generateChecksum(new ByteArrayInputStream(part));
+        assertEquals(ChecksumUtil.convertToBase64Encoding(partChecksum),
+                     request.getMd5Digest());
+
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(partChecksum);
+        return result;
+    }
+
+}
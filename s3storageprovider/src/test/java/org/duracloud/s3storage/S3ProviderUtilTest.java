@@ -10,11 +10,14 @@ package org.duracloud.s3storage;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotSame;
 import static org.duracloud.storage.domain.StorageAccount.OPTS;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.services.s3.AmazonS3;
 import org.junit.Test;
 
@@ -115,4 +118,51 @@ public class S3ProviderUtilTest {
 
         assertSame(s3ClientA, s3ClientB);
     }
+
+    @Test
+    public void testGetSameAmazonS3ClientsOtherOptions() {
+        String accessKey = "access-key";
+        String privateKey = "private-key";
+
+        Map<String, String> optionsA = new HashMap<>();
+        optionsA.put(OPTS.AWS_REGION.name(), "us-east-2");
+
+        // Options which do not affect the client do not require a new client
+        Map<String, String> optionsB = new HashMap<>(optionsA);
+        optionsB.put(OPTS.BUCKET_CACHE_TTL_SECONDS.name(), "60");
+
+        Map<String, String> optionsC = new HashMap<>(optionsA);
+        optionsC.put(OPTS.MAX_CONNECTIONS.name(), "500");
+
+        AmazonS3 s3ClientA = S3ProviderUtil.getAmazonS3Client(accessKey, privateKey, optionsA);
+        AmazonS3 s3ClientB = S3ProviderUtil.getAmazonS3Client(accessKey, privateKey, optionsB);
+        AmazonS3 s3ClientC = S3ProviderUtil.getAmazonS3Client(accessKey, privateKey, optionsC);
+
+        assertSame(s3ClientA, s3ClientB);
+        assertNotSame(s3ClientA, s3ClientC);
+    }
+
+    @Test
+    public void testGetClientConfiguration() {
+        ClientConfiguration config =
+            S3ProviderUtil.getClientConfiguration(new HashMap<>());
+        assertEquals(S3ProviderUtil.DEFAULT_MAX_CONNECTIONS, config.getMaxConnections());
+        assertTrue(config.useTcpKeepAlive());
+
+        Map<String, String> options = new HashMap<>();
+        options.put(OPTS.MAX_CONNECTIONS.name(), "500");
+        options.put(OPTS.CONNECTION_TIMEOUT_MS.name(), "1000");
+        options.put(OPTS.SOCKET_TIMEOUT_MS.name(), "2000");
+        options.put(OPTS.REQUEST_TIMEOUT_MS.name(), "3000");
+        options.put(OPTS.TCP_KEEP_ALIVE.name(), "false");
+        options.put(OPTS.MAX_ERROR_RETRY.name(), "7");
+
+        config = S3ProviderUtil.getClientConfiguration(options);
+        assertEquals(500, config.getMaxConnections());
+        assertEquals(1000, config.getConnectionTimeout());
+        assertEquals(2000, config.getSocketTimeout());
+        assertEquals(3000, config.getRequestTimeout());
+        assertFalse(config.useTcpKeepAlive());
+        assertEquals(7, config.getMaxErrorRetry());
+    }
 }
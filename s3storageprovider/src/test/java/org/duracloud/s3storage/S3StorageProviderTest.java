@@ -15,6 +15,7 @@ import static org.easymock.EasyMock.newCapture;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -34,6 +35,7 @@ import java.util.Map;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.Bucket;
 import com.amazonaws.services.s3.model.BucketLifecycleConfiguration;
@@ -52,11 +54,15 @@ import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.model.StorageClass;
 import com.amazonaws.services.s3.model.TagSet;
+import org.duracloud.common.model.AclType;
 import org.duracloud.common.util.IOUtil;
 import org.duracloud.storage.domain.RetrievedContent;
+import org.duracloud.storage.domain.StorageAccount;
 import org.duracloud.storage.domain.StorageProviderType;
 import org.duracloud.storage.error.ChecksumMismatchException;
 import org.duracloud.storage.error.NotFoundException;
+import org.duracloud.storage.error.SpaceAlreadyExistsException;
+import org.duracloud.storage.error.StorageException;
 import org.duracloud.storage.provider.StorageProvider;
 import org.easymock.Capture;
 import org.easymock.CaptureType;
@@ -194,8 +200,12 @@ public class S3StorageProviderTest {
     public void testEventuallyConsistentAddContent() {
         Capture<PutObjectRequest> capturedRequest =
             createS3ClientAddContentWithClientError(hexChecksum);
+        // The content is available with the expected checksum on the third check
+        Map<String, String> options = new HashMap<>();
+        options.put(StorageAccount.OPTS.ADD_VERIFY_ATTEMPTS.name(), "3");
+        options.put(StorageAccount.OPTS.ADD_VERIFY_WAIT_MS.name(), "0");
         S3StorageProvider provider =
-            new S3StorageProvider(s3Client, accessKey, new HashMap<String, String>());
+            new S3StorageProvider(s3Client, accessKey, options);
 
         String content = "hello";
         contentStream = createStream(content);
@@ -328,6 +338,9 @@ public class S3StorageProviderTest {
         expect(objectMetadata.getETag()).andReturn("\"oldchecksum\"");
         expect(objectMetadata.getETag())
                 .andReturn("\"" + checksum + "\"");
+        // Content which was not added as a multipart upload has no recorded MD5
+        expect(objectMetadata.getUserMetaDataOf(S3MultipartUploader.CONTENT_MD5_META))
+                .andReturn(null).anyTimes();
         replay(objectMetadata);
 
         expect(s3Client.getObjectMetadata(EasyMock.isA(String.class),
@@ -523,6 +536,158 @@ public class S3StorageProviderTest {
                                                           etag);
         assertNotNull(resultEtag);
         assertEquals(etag, resultEtag);
+        assertEquals(1, provider.getAddRecoveryCount());
+        assertEquals(1, provider.getAddRecoverySucceededCount());
+    }
+
+    @Test
+    public void testDoesContentExistNotFound() {
+        setupS3Client();
+
+        expect(s3Client.getObjectMetadata(EasyMock.isA(String.class),
+                                          EasyMock.isA(String.class)))
+            .andThrow(new AmazonClientException("message"))
+            .times(3);
+        replay(s3Client);
+
+        Map<String, String> options = new HashMap<String, String>();
+        options.put(StorageAccount.OPTS.ADD_VERIFY_LEGACY.name(), "true");
+        options.put(StorageAccount.OPTS.ADD_VERIFY_ATTEMPTS.name(), "3");
+        final List<Long> waits = new ArrayList<>();
+        S3StorageProvider provider =
+            new S3StorageProvider(s3Client, accessKey, options) {
+                @Override
+                protected boolean sleep(long millis) {
+                    waits.add(millis);
+                    return true;
+                }
+            };
+
+        assertNull(provider.doesContentExistWithExpectedChecksum("bucketname",
+                                                                 "contentId",
+                                                                 "etag"));
+        // No wait before the first check, then legacy waits which grow
+        assertEquals(Arrays.asList(S3StorageProvider.LEGACY_ADD_VERIFY_WAIT_MS,
+                                   S3StorageProvider.LEGACY_ADD_VERIFY_WAIT_MS * 2),
+                     waits);
+        assertEquals(1, provider.getAddRecoveryCount());
+        assertEquals(0, provider.getAddRecoverySucceededCount());
+    }
+
+    @Test
+    public void testAddContentMultipartRecovered() {
+        setupS3Client();
+        addListBucketsMock();
+
+        // The upload fails, but the content was stored
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setHeader(Headers.ETAG, "\"etag-2\"");
+        objectMetadata.addUserMetadata(S3MultipartUploader.CONTENT_MD5_META,
+                                       hexChecksum);
+        expect(s3Client.getObjectMetadata(EasyMock.isA(String.class),
+                                          EasyMock.isA(String.class)))
+            .andReturn(objectMetadata);
+
+        S3MultipartUploader uploader =
+            createMock("S3MultipartUploader", S3MultipartUploader.class);
+        expect(uploader.upload(EasyMock.isA(String.class), eq(contentId),
+                               EasyMock.isA(ObjectMetadata.class),
+                               EasyMock.isA(InputStream.class),
+                               EasyMock.anyLong(), eq(hexChecksum)))
+            .andThrow(new AmazonClientException("complete failed"));
+        replay(s3Client, uploader);
+
+        S3StorageProvider provider =
+            new S3StorageProvider(s3Client, accessKey, null) {
+                @Override
+                protected boolean useMultipart(long contentSize) {
+                    return true;
+                }
+
+                @Override
+                protected S3MultipartUploader getMultipartUploader() {
+                    return uploader;
+                }
+            };
+
+        contentStream = new ByteArrayInputStream(content.getBytes());
+        String checksum = provider.addContent(spaceId, contentId, null, null,
+                                              content.length(), hexChecksum,
+                                              contentStream);
+        assertEquals(hexChecksum, checksum);
+        assertEquals(1, provider.getAddRecoverySucceededCount());
+        verify(uploader);
+    }
+
+    @Test
+    public void testUpdateObjectPropertiesMultipart() {
+        setupS3Client();
+        String bucketName = accessKey + "." + spaceId;
+        AccessControlList acl = new AccessControlList();
+
+        // Uploaded in parts by another tool: the ETag is not an MD5
+        ObjectMetadata partsMetadata = new ObjectMetadata();
+        partsMetadata.setHeader(Headers.ETAG, hexChecksum + "-3");
+        partsMetadata.setContentLength(100);
+        // Uploaded in parts by this provider, with its MD5 recorded
+        ObjectMetadata md5Metadata = new ObjectMetadata();
+        md5Metadata.setHeader(Headers.ETAG, hexChecksum + "-3");
+        md5Metadata.setContentLength(100);
+        md5Metadata.addUserMetadata(S3MultipartUploader.CONTENT_MD5_META,
+                                    hexChecksum);
+
+        expect(s3Client.getObjectAcl(bucketName, contentId)).andReturn(acl).times(2);
+        expect(s3Client.getObjectMetadata(bucketName, contentId))
+            .andReturn(partsMetadata)
+            .andReturn(md5Metadata);
+
+        ObjectMetadata newMetadata = new ObjectMetadata();
+        S3MultipartUploader uploader =
+            createMock("S3MultipartUploader", S3MultipartUploader.class);
+        expect(uploader.copy(bucketName, contentId, bucketName, contentId,
+                             newMetadata, acl, 100, hexChecksum + "-3", null))
+            .andReturn("etag");
+        expect(uploader.copy(bucketName, contentId, bucketName, contentId,
+                             newMetadata, acl, 100, hexChecksum + "-3", hexChecksum))
+            .andReturn("etag");
+        replay(s3Client, uploader);
+
+        S3StorageProvider provider =
+            new S3StorageProvider(s3Client, accessKey, null) {
+                @Override
+                protected boolean useMultipart(long contentSize) {
+                    return true;
+                }
+
+                @Override
+                protected S3MultipartUploader getMultipartUploader() {
+                    return uploader;
+                }
+            };
+
+        provider.updateObjectProperties(bucketName, contentId, newMetadata);
+        provider.updateObjectProperties(bucketName, contentId, newMetadata);
+        verify(uploader);
+    }
+
+    @Test
+    public void testPrepContentPropertiesMultipart() {
+        S3StorageProvider provider =
+            new S3StorageProvider(s3Client, accessKey, null);
+
+        // The ETag of a multipart object is not the MD5 of the content
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setHeader(Headers.ETAG, "\"" + hexChecksum + "-3\"");
+        objectMetadata.addUserMetadata(S3MultipartUploader.CONTENT_MD5_META,
+                                       hexChecksum);
+
+        Map<String, String> properties =
+            provider.prepContentProperties(objectMetadata);
+        assertEquals(hexChecksum,
+                     properties.get(StorageProvider.PROPERTIES_CONTENT_CHECKSUM));
+        assertEquals(hexChecksum,
+                     properties.get(StorageProvider.PROPERTIES_CONTENT_MD5));
+        assertFalse(properties.containsKey(S3MultipartUploader.CONTENT_MD5_META));
     }
 
     @Test
@@ -571,7 +736,7 @@ public class S3StorageProviderTest {
     }
 
     @Test
-    public void testGetAllSpaceProperties() throws Exception {
+    public void testGetSpaceProperties() throws Exception {
         setupS3Client();
 
         addListBucketsMock();
@@ -593,7 +758,7 @@ public class S3StorageProviderTest {
         replay(s3Client, objectListing);
 
         S3StorageProvider provider = getProvider();
-        Map<String, String> spaceProps = provider.getAllSpaceProperties(spaceId);
+        Map<String, String> spaceProps = provider.getSpaceProperties(spaceId);
         Assert.assertNotNull(spaceProps);
         Assert.assertEquals("tag-one-value", spaceProps.get("tag-one"));
         Assert.assertEquals("tagtwo@test.com", spaceProps.get("tag-two"));
@@ -604,6 +769,35 @@ public class S3StorageProviderTest {
         verify(s3Client, objectListing);
     }
 
+    /*
+     * Reading space ACLs requires only the bucket tags, not a listing
+     */
+    @Test
+    public void testGetSpaceACLs() throws Exception {
+        setupS3Client();
+
+        addListBucketsMock();
+
+        Map<String, String> bucketTags = new HashMap<>();
+        bucketTags.put("acl-user-read", "user1:user2+test.com:");
+        BucketTaggingConfiguration tagConfig =
+            new BucketTaggingConfiguration().withTagSets(new TagSet(bucketTags));
+        expect(
+            s3Client.getBucketTaggingConfiguration(EasyMock.isA(String.class)))
+                .andReturn(tagConfig);
+
+        replay(s3Client);
+
+        S3StorageProvider provider = getProvider();
+        Map<String, AclType> acls = provider.getSpaceACLs(spaceId);
+        Assert.assertEquals(2, acls.size());
+        Assert.assertEquals(AclType.READ,
+                            acls.get(StorageProvider.PROPERTIES_SPACE_ACL + "user1"));
+        Assert.assertEquals(AclType.READ,
+                            acls.get(StorageProvider.PROPERTIES_SPACE_ACL +
+                                     "user2@test.com"));
+    }
+
     @Test
     public void testDoSetSpaceProperties() {
         setupS3Client();
@@ -672,7 +866,6 @@ public class S3StorageProviderTest {
 
         S3StorageProvider provider = getProvider();
         Bucket bucket = createMock(Bucket.class);
-        expect(bucket.getName()).andReturn(bucketName);
         expect(bucket.getCreationDate()).andReturn(new Date());
         expect(this.s3Client.createBucket(bucketName)).andReturn(bucket);
 
@@ -684,20 +877,14 @@ public class S3StorageProviderTest {
                                                  capture(lifecycleConfigCapture));
         EasyMock.expectLastCall().once();
 
-        expect(this.s3Client.listBuckets()).andReturn(Arrays.asList(bucket));
-
-        List<String> spaceIds2 = new LinkedList<>(spaceIds);
-        spaceIds2.add(spaceId);
-        addListBucketsMock(2, spaceIds2);
+        // The new bucket name is cached on creation, so no further bucket
+        // listings are needed to set space properties
         expect(s3Client.getBucketTaggingConfiguration(bucketName))
                 .andReturn(new BucketTaggingConfiguration());
         s3Client.setBucketTaggingConfiguration(eq(bucketName),
                                                EasyMock.isA(BucketTaggingConfiguration.class));
         EasyMock.expectLastCall().once();
 
-        expect(s3Client.listObjects(EasyMock.isA(ListObjectsRequest.class)))
-                .andReturn(new ObjectListing());
-
         replay(s3Client, bucket);
 
         provider.createSpace(spaceId);
@@ -711,6 +898,77 @@ public class S3StorageProviderTest {
         verify(s3Client, bucket);
     }
 
+    @Test
+    public void testGetBucketNameCached() {
+        setupS3Client();
+        addListBucketsMock(1, Arrays.asList(spaceId, "space.id"));
+        s3Client.deleteBucket(accessKey + "." + spaceId);
+        EasyMock.expectLastCall().once();
+        // Cache miss after the space is removed lists the buckets again
+        addListBucketsMock(1, Arrays.asList("space.id"));
+        replay(s3Client);
+
+        S3StorageProvider provider = getProvider();
+        assertEquals(accessKey + "." + spaceId, provider.getBucketName(spaceId));
+        assertEquals(accessKey + "." + spaceId, provider.getBucketName(spaceId));
+        assertEquals(accessKey + ".space.id", provider.getBucketName("space.id"));
+
+        provider.removeSpace(spaceId);
+        try {
+            provider.getBucketName(spaceId);
+            fail("Exception expected");
+        } catch (NotFoundException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBucketRemovedByAnotherNode() {
+        setupS3Client();
+        String bucketName = accessKey + "." + spaceId;
+        addListBucketsMock(1, Arrays.asList(spaceId));
+        AmazonS3Exception noSuchBucket = new AmazonS3Exception("No such bucket");
+        noSuchBucket.setErrorCode("NoSuchBucket");
+        expect(s3Client.listObjects(EasyMock.isA(ListObjectsRequest.class)))
+            .andThrow(noSuchBucket);
+        // The cached name is evicted and the buckets are listed once more
+        addListBucketsMock(1, Arrays.asList("space.id"));
+        replay(s3Client);
+
+        S3StorageProvider provider = getProvider();
+        assertEquals(bucketName, provider.getBucketName(spaceId));
+        try {
+            provider.getSpaceContentsChunked(spaceId, null, 10, null);
+            fail("Exception expected");
+        } catch (NotFoundException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCreateSpaceBucketRemovedByAnotherNode() {
+        setupS3Client();
+        String bucketName = accessKey + "." + spaceId;
+        addListBucketsMock(1, Arrays.asList(spaceId));
+        expect(s3Client.doesBucketExistV2(bucketName)).andReturn(false);
+        addListBucketsMock(1, Arrays.asList("space.id"));
+        AmazonS3Exception exists = new AmazonS3Exception("Bucket exists");
+        expect(s3Client.createBucket(bucketName)).andThrow(exists);
+        replay(s3Client);
+
+        // The cached bucket is found to be gone, so the space is created
+        S3StorageProvider provider = getProvider();
+        assertEquals(bucketName, provider.getBucketName(spaceId));
+        try {
+            provider.createSpace(spaceId);
+            fail("Exception expected");
+        } catch (SpaceAlreadyExistsException e) {
+            fail("The removed space was reported as existing");
+        } catch (StorageException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
     @Test
     public void testEncodeDecodeHeaderKey() throws Exception {
         String key = "key";
@@ -134,9 +134,23 @@ public class AuthorizationHelper {
         return false;
     }
 
+    /**
+     * Returns the ACLs of the given space. The ACLs are retrieved once per
+     * request, as the voters and advices which authorize a request each
+     * need them.
+     *
+     * @param storeId of the space
+     * @param spaceId of the space
+     * @return space ACLs, empty if the space does not exist
+     */
     public Map<String, AclType> getSpaceACLs(String storeId,
                                              String spaceId) {
+        String key = "acls:" + storeId + ":" + spaceId;
+        return RequestScopedCache.get(key, () -> loadSpaceACLs(storeId, spaceId));
+    }
 
+    private Map<String, AclType> loadSpaceACLs(String storeId,
+                                               String spaceId) {
         Map<String, AclType> emptyACLs = new HashMap<String, AclType>();
         if (null == spaceId) {
             return emptyACLs;
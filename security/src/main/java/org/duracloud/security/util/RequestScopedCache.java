@@ -0,0 +1,57 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.security.util;
+
+import java.util.function.Supplier;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Holds values for the remainder of the current request, as attributes of the
+ * request, so that values needed by several steps of handling a request (such
+ * as each of the security voters) are computed once. Outside of a request
+ * nothing is held, and values are computed on each call.
+ *
+ * @author agent
+ */
+public class RequestScopedCache {
+
+    private static final String PREFIX = RequestScopedCache.class.getName() + ".";
+
+    private RequestScopedCache() {
+        // Ensures no instances are made of this class, as there are only static members.
+    }
+
+    /**
+     * Returns the value held for the current request under the given key,
+     * computing and holding it if there is none.
+     *
+     * @param key    identifies the value
+     * @param loader computes the value, null values are not held
+     * @return value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String key, Supplier<T> loader) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (null == attributes) {
+            return loader.get();
+        }
+
+        String name = PREFIX + key;
+        T value = (T) attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+        if (null == value) {
+            value = loader.get();
+            if (null != value) {
+                attributes.setAttribute(name, value, RequestAttributes.SCOPE_REQUEST);
+            }
+        }
+        return value;
+    }
+
+}
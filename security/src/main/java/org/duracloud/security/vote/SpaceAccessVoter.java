@@ -16,6 +16,7 @@ import org.duracloud.common.model.AclType;
 import org.duracloud.security.domain.HttpVerb;
 import org.duracloud.security.impl.DuracloudUserDetails;
 import org.duracloud.security.util.AuthorizationHelper;
+import org.duracloud.security.util.RequestScopedCache;
 import org.duracloud.storage.util.StorageProviderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -184,6 +185,10 @@ public abstract class SpaceAccessVoter implements AccessDecisionVoter {
     }
 
     protected boolean isAdmin(String name) {
+        return RequestScopedCache.get("admin:" + name, () -> loadIsAdmin(name));
+    }
+
+    private boolean loadIsAdmin(String name) {
         UserDetails userDetails;
         try {
             userDetails = userDetailsService.loadUserByUsername(name);
@@ -0,0 +1,119 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.security.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.duracloud.common.model.AclType;
+import org.duracloud.storage.provider.StorageProvider;
+import org.duracloud.storage.util.StorageProviderFactory;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * @author agent
+ */
+public class RequestScopedCacheTest {
+
+    private static final String STORE_ID = "store-id";
+    private static final String SPACE_ID = "space-id";
+
+    private StorageProviderFactory storageProviderFactory;
+    private StorageProvider storageProvider;
+    private Map<String, AclType> acls;
+
+    @Before
+    public void setUp() throws Exception {
+        storageProviderFactory = EasyMock.createMock(StorageProviderFactory.class);
+        storageProvider = EasyMock.createMock(StorageProvider.class);
+        acls = new HashMap<>();
+        acls.put(StorageProvider.PROPERTIES_SPACE_ACL + "user", AclType.READ);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+        EasyMock.verify(storageProviderFactory, storageProvider);
+    }
+
+    private void replayMocks() {
+        EasyMock.replay(storageProviderFactory, storageProvider);
+    }
+
+    private void expectGetSpaceACLs(int times) {
+        EasyMock.expect(storageProviderFactory.getStorageProvider(STORE_ID))
+                .andReturn(storageProvider)
+                .times(times);
+        EasyMock.expect(storageProvider.getSpaceACLs(SPACE_ID))
+                .andReturn(acls)
+                .times(times);
+    }
+
+    @Test
+    public void testGetSpaceACLsOncePerRequest() {
+        expectGetSpaceACLs(2);
+        replayMocks();
+
+        // Within a request, the ACLs are retrieved once for all helpers
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        AuthorizationHelper helper = new AuthorizationHelper(storageProviderFactory);
+        assertSame(acls, helper.getSpaceACLs(STORE_ID, SPACE_ID));
+        assertSame(acls, helper.getSpaceACLs(STORE_ID, SPACE_ID));
+        assertSame(acls, new AuthorizationHelper(storageProviderFactory)
+            .getSpaceACLs(STORE_ID, SPACE_ID));
+
+        // A new request retrieves the ACLs again
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertSame(acls, helper.getSpaceACLs(STORE_ID, SPACE_ID));
+        assertSame(acls, helper.getSpaceACLs(STORE_ID, SPACE_ID));
+    }
+
+    @Test
+    public void testGetSpaceACLsOutsideRequest() {
+        expectGetSpaceACLs(2);
+        replayMocks();
+
+        AuthorizationHelper helper = new AuthorizationHelper(storageProviderFactory);
+        assertSame(acls, helper.getSpaceACLs(STORE_ID, SPACE_ID));
+        assertSame(acls, helper.getSpaceACLs(STORE_ID, SPACE_ID));
+    }
+
+    @Test
+    public void testGet() {
+        replayMocks();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        int[] loads = {0};
+        for (int i = 0; i < 3; i++) {
+            assertEquals("value", RequestScopedCache.get("key", () -> {
+                loads[0]++;
+                return "value";
+            }));
+        }
+        assertEquals(1, loads[0]);
+
+        // Null values are not held
+        for (int i = 0; i < 2; i++) {
+            RequestScopedCache.get("null", () -> {
+                loads[0]++;
+                return null;
+            });
+        }
+        assertEquals(3, loads[0]);
+    }
+
+}
@@ -8,16 +8,33 @@
 package org.duracloud.security.vote;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Collection;
+import java.util.Collections;
 
+import org.easymock.EasyMock;
+import org.junit.After;
 import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * @author Daniel Bernstein
  */
 public class SpaceAccessVoterTest {
+
+    @After
+    public void tearDown() throws Exception {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
     @Test
     public void testExtractSpaceIdFromPathInof() {
         String spaceId = "space-id";
@@ -41,4 +58,43 @@ public class SpaceAccessVoterTest {
             assertEquals(spaceId, voter.extractSpaceId(spid));
         }
     }
+
+    @Test
+    public void testIsAdminOncePerRequest() {
+        UserDetailsService userDetailsService =
+            EasyMock.createMock(UserDetailsService.class);
+        EasyMock.expect(userDetailsService.loadUserByUsername("admin"))
+                .andReturn(new User("admin", "password", Collections.singletonList(
+                    new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                .times(2);
+        EasyMock.expect(userDetailsService.loadUserByUsername("user"))
+                .andReturn(new User("user", "password", Collections.singletonList(
+                    new SimpleGrantedAuthority("ROLE_USER"))))
+                .times(1);
+        EasyMock.replay(userDetailsService);
+
+        SpaceAccessVoter voter = new SpaceAccessVoter(null, userDetailsService) {
+            @Override
+            public int vote(Authentication authentication,
+                            Object object,
+                            Collection attributes) {
+                return 0;
+            }
+        };
+
+        // Within a request, each user is loaded once
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertTrue(voter.isAdmin("admin"));
+        assertTrue(voter.isAdmin("admin"));
+        assertFalse(voter.isAdmin("user"));
+        assertFalse(voter.isAdmin("user"));
+
+        // A new request loads the user again
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertTrue(voter.isAdmin("admin"));
+
+        EasyMock.verify(userDetailsService);
+    }
 }
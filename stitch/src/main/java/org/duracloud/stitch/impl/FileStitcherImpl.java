@@ -45,9 +45,20 @@ public class FileStitcherImpl implements FileStitcher {
     private Logger log = LoggerFactory.getLogger(FileStitcherImpl.class);
 
     private DataSource dataSource;
+    private int chunkPrefetchCount;
 
     public FileStitcherImpl(DataSource dataSource) {
+        this(dataSource, 0);
+    }
+
+    /**
+     * @param dataSource         source of manifests and chunks
+     * @param chunkPrefetchCount the number of chunks to retrieve ahead of the
+     *                           chunk being read when stitching content
+     */
+    public FileStitcherImpl(DataSource dataSource, int chunkPrefetchCount) {
         this.dataSource = dataSource;
+        this.chunkPrefetchCount = chunkPrefetchCount;
     }
 
     @Override
@@ -153,7 +164,10 @@ public class FileStitcherImpl implements FileStitcher {
                 }
             };
 
-        return new MultiContentInputStream(dataSource, chunks, contentListener);
+        return new MultiContentInputStream(dataSource,
+                                           chunks,
+                                           contentListener,
+                                           chunkPrefetchCount);
     }
 
     private Map<String, String> getContentProperties(ChunksManifest manifest) {
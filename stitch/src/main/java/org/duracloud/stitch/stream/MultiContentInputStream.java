@@ -9,8 +9,17 @@ package org.duracloud.stitch.stream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.duracloud.common.model.ContentItem;
@@ -21,24 +30,65 @@ import org.duracloud.stitch.datasource.DataSource;
  * This class exposes a single InputStream composed of the sequence of content
  * streams read on-demand from the provided list of ContentItems.
  *
+ * When a prefetch count is provided, that number of content items beyond the
+ * one currently being read are retrieved in the background, each into a
+ * bounded buffer, so that retrieval of the next item is underway by the time
+ * the current item has been read. A prefetch which waits longer than the
+ * prefetch wait time for the reader to make room in its buffer, as happens
+ * when this stream is abandoned without being closed, gives up its buffer
+ * and connection. That item is then retrieved again if the reader reaches it.
+ *
  * @author Andrew Woods
  * Date: 9/8/11
  */
 public class MultiContentInputStream extends InputStream {
 
+    // Each prefetched item buffers at most PREFETCH_BLOCKS * PREFETCH_BLOCK_SIZE
+    // bytes (4 MB) ahead of the reader
+    private static final int PREFETCH_BLOCK_SIZE = 64 * 1024;
+    private static final int PREFETCH_BLOCKS = 64;
+    private static final long DEFAULT_PREFETCH_WAIT_MS = 2 * 60 * 1000;
+
+    private static final ExecutorService prefetchExecutor =
+        Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "multi-content-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
     private DataSource dataSource;
     private Iterator<ContentItem> contents;
     private InputStream currentStream;
     private MultiContentInputStreamListener listener;
     private ContentItem currentItem;
+    private int prefetchCount;
+    private Queue<PrefetchedContent> prefetched;
+    private long prefetchWaitMs = DEFAULT_PREFETCH_WAIT_MS;
 
+    /**
+     * @param dataSource    source of the content streams
+     * @param contentItems  the content items, in the order they are read
+     * @param listener      notified as each content item is read, may be null
+     * @param prefetchCount the number of content items to retrieve ahead of
+     *                      the item being read, 0 to retrieve each item only
+     *                      when it is reached
+     */
     public MultiContentInputStream(DataSource dataSource,
                                    List<ContentItem> contentItems,
-                                   MultiContentInputStreamListener listener) {
+                                   MultiContentInputStreamListener listener,
+                                   int prefetchCount) {
         this.dataSource = dataSource;
         this.contents = contentItems.iterator();
         this.currentStream = null;
         this.listener = listener;
+        this.prefetchCount = prefetchCount;
+        this.prefetched = new ArrayDeque<>();
+    }
+
+    public MultiContentInputStream(DataSource dataSource,
+                                   List<ContentItem> contentItems,
+                                   MultiContentInputStreamListener listener) {
+        this(dataSource, contentItems, listener, 0);
     }
 
     public MultiContentInputStream(DataSource dataSource,
@@ -46,11 +96,19 @@ public class MultiContentInputStream extends InputStream {
         this(dataSource, contentItems, null);
     }
 
+    /**
+     * @param prefetchWaitMs the longest time a prefetch waits for the reader
+     *                       to make room in its buffer before giving it up
+     */
+    void setPrefetchWaitMs(long prefetchWaitMs) {
+        this.prefetchWaitMs = prefetchWaitMs;
+    }
+
     @Override
     public int read() throws IOException {
         // initialize current stream
         if (null == currentStream) {
-            if (contents.hasNext()) {
+            if (hasNextItem()) {
                 currentStream = nextStream();
 
             } else {
@@ -60,7 +118,7 @@ public class MultiContentInputStream extends InputStream {
 
         int bite = currentStream.read();
         if (-1 == bite) {
-            if (contents.hasNext()) {
+            if (hasNextItem()) {
                 currentStream = nextStream();
                 bite = currentStream.read();
             } else {
@@ -71,13 +129,87 @@ public class MultiContentInputStream extends InputStream {
         return bite;
     }
 
+    /**
+     * Reads up to len bytes from the current content stream, moving on to
+     * the next stream when the current stream is exhausted. Fewer than len
+     * bytes may be returned when the end of a content stream is reached.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (true) {
+            if (null == currentStream) {
+                if (!hasNextItem()) {
+                    return -1;
+                }
+                currentStream = nextStream();
+            }
+
+            int read = currentStream.read(b, off, len);
+            if (-1 != read) {
+                return read;
+            }
+
+            if (hasNextItem()) {
+                currentStream = nextStream();
+            } else {
+                notifyContentIdRead();
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Closes the current content stream and stops retrieval of any
+     * prefetched content.
+     */
+    @Override
+    public void close() throws IOException {
+        if (null != currentStream) {
+            IOUtils.closeQuietly(currentStream);
+        }
+        for (PrefetchedContent content : prefetched) {
+            content.close();
+        }
+        prefetched.clear();
+    }
+
+    private boolean hasNextItem() {
+        return !prefetched.isEmpty() || contents.hasNext();
+    }
+
     private InputStream nextStream() {
         if (this.currentStream != null) {
             IOUtils.closeQuietly(this.currentStream);
             notifyContentIdRead();
         }
-        currentItem = contents.next();
-        return getStream(currentItem);
+
+        InputStream stream;
+        PrefetchedContent next = prefetched.poll();
+        if (null != next) {
+            currentItem = next.getContentItem();
+            stream = next;
+        } else {
+            currentItem = contents.next();
+            stream = getStream(currentItem);
+        }
+        startPrefetch();
+        return stream;
+    }
+
+    /*
+     * Starts retrieving the items which follow the current item, up to the
+     * prefetch count
+     */
+    private void startPrefetch() {
+        while (prefetched.size() < prefetchCount && contents.hasNext()) {
+            PrefetchedContent content = new PrefetchedContent(contents.next());
+            prefetchExecutor.execute(content);
+            prefetched.add(content);
+        }
     }
 
     protected void notifyContentIdRead() {
@@ -93,4 +225,166 @@ public class MultiContentInputStream extends InputStream {
         return content.getStream();
     }
 
+    /**
+     * A content item which is read in the background into a bounded queue
+     * of blocks, from which it is then read as a stream. Once the queue is
+     * full, retrieval waits for blocks to be read. If no block is read within
+     * the prefetch wait time, retrieval stops and the buffered blocks are
+     * dropped; the reader then retrieves the rest of the item itself.
+     */
+    private class PrefetchedContent extends InputStream implements Runnable {
+
+        private final byte[] endOfStream = new byte[0];
+        private final byte[] expired = new byte[0];
+
+        private final ContentItem contentItem;
+        private final BlockingQueue<byte[]> blocks;
+        private volatile boolean closed = false;
+        private volatile boolean expiring = false;
+        private volatile Exception error;
+        private byte[] block;
+        private int position;
+        private long bytesRead = 0;
+        private InputStream resumed;
+
+        PrefetchedContent(ContentItem contentItem) {
+            this.contentItem = contentItem;
+            this.blocks = new ArrayBlockingQueue<>(PREFETCH_BLOCKS);
+        }
+
+        ContentItem getContentItem() {
+            return contentItem;
+        }
+
+        @Override
+        public void run() {
+            try (InputStream stream = getStream(contentItem)) {
+                while (!closed && !expiring) {
+                    byte[] buffer = new byte[PREFETCH_BLOCK_SIZE];
+                    int read = IOUtils.read(stream, buffer);
+                    if (read == 0) {
+                        break;
+                    }
+                    if (read < buffer.length) {
+                        buffer = Arrays.copyOf(buffer, read);
+                    }
+                    putBlock(buffer);
+                }
+            } catch (Exception e) {
+                error = e;
+            } finally {
+                if (!expiring) {
+                    putBlock(endOfStream);
+                }
+                if (expiring) {
+                    blocks.clear();
+                    blocks.offer(expired);
+                }
+            }
+        }
+
+        /*
+         * Waits for the reader to make room for the block, until the reader
+         * closes the stream or the prefetch wait time passes
+         */
+        private void putBlock(byte[] buffer) {
+            long giveUpAt = System.currentTimeMillis() + prefetchWaitMs;
+            try {
+                while (!closed &&
+                       !blocks.offer(buffer, 100, TimeUnit.MILLISECONDS)) {
+                    if (System.currentTimeMillis() >= giveUpAt) {
+                        expiring = true;
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextBlock()) {
+                return -1;
+            }
+            if (null != resumed) {
+                return resumed.read();
+            }
+            bytesRead++;
+            return block[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextBlock()) {
+                return -1;
+            }
+            if (null != resumed) {
+                return resumed.read(b, off, len);
+            }
+            int read = Math.min(len, block.length - position);
+            System.arraycopy(block, position, b, off, read);
+            position += read;
+            bytesRead += read;
+            return read;
+        }
+
+        /*
+         * Ensures there are bytes available in the current block, waiting for
+         * the next block if needed, or that the item is being read directly
+         * because the prefetch expired. Returns false at the end of the stream.
+         */
+        private boolean nextBlock() throws IOException {
+            if (null != resumed ||
+                (null != block && position < block.length)) {
+                return true;
+            }
+            if (block == endOfStream) {
+                return false;
+            }
+
+            try {
+                block = blocks.take();
+                position = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " +
+                                                 contentItem.getContentId());
+            }
+
+            if (block == expired) {
+                // Retrieve the item again, continuing where the reader is
+                resumed = getStream(contentItem);
+                IOUtils.skipFully(resumed, bytesRead);
+                return true;
+            }
+
+            if (block == endOfStream) {
+                if (null != error) {
+                    if (error instanceof RuntimeException) {
+                        throw (RuntimeException) error;
+                    }
+                    throw new IOException("Error reading " +
+                                          contentItem.getContentId() + ": " +
+                                          error.getMessage(), error);
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            blocks.clear();
+            if (null != resumed) {
+                IOUtils.closeQuietly(resumed);
+            }
+        }
+    }
+
 }
@@ -90,6 +90,73 @@ public class MultiContentInputStreamTest {
         out.close();
     }
 
+    @Test
+    public void testReadWithPrefetch() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5; ++i) {
+            // Larger than a single prefetch block
+            text.append(createContentExpectation(i, 100 * 1024));
+        }
+        contentItems.stream().forEach(x -> {
+            listener.contentIdRead(x.getContentId());
+            EasyMock.expectLastCall().once();
+        });
+        replayMocks();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        multiStream =
+            new MultiContentInputStream(dataSource, contentItems, listener, 2);
+        IOUtil.copy(multiStream, out);
+        Assert.assertEquals(text.toString(), out.toString());
+        Assert.assertEquals(-1, multiStream.read());
+        multiStream.close();
+    }
+
+    @Test
+    public void testSingleByteReadWithPrefetch() throws Exception {
+        String text = createReadMocks();
+        replayMocks();
+
+        StringBuilder out = new StringBuilder();
+        multiStream = new MultiContentInputStream(dataSource, contentItems, null, 3);
+        int bite;
+        while ((bite = multiStream.read()) != -1) {
+            out.append((char) bite);
+        }
+        Assert.assertEquals(text, out.toString());
+        multiStream.close();
+    }
+
+    @Test
+    public void testExpiredPrefetch() throws Exception {
+        String text = createContentExpectation(0);
+        // Larger than the prefetch buffer, so the prefetch waits for the reader
+        String largeText = createContentExpectation(1, 5 * 1024 * 1024);
+        EasyMock.expect(dataSource.getContent("spaceId-1", "contentId-1"))
+                .andReturn(createContent(largeText));
+        replayMocks();
+
+        multiStream = new MultiContentInputStream(dataSource, contentItems, null, 1);
+        multiStream.setPrefetchWaitMs(200);
+
+        // Read into the prefetched item, then stop reading until the
+        // prefetch gives up waiting
+        byte[] start = new byte[text.length() + 100 * 1024];
+        int read = 0;
+        while (read < start.length) {
+            read += multiStream.read(start, read, start.length - read);
+        }
+        Thread.sleep(1000);
+
+        // The prefetched item is retrieved again, continuing where the
+        // reader left off
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(start);
+        IOUtil.copy(multiStream, out);
+        Assert.assertEquals(text + largeText, out.toString());
+        multiStream.close();
+    }
+
     private String createReadMocks() {
         StringBuilder text = new StringBuilder();
         for (int i = 0; i < 5; ++i) {
@@ -100,20 +167,32 @@ public class MultiContentInputStreamTest {
     }
 
     private String createContentExpectation(int i) {
+        return createContentExpectation(i, 0);
+    }
+
+    private String createContentExpectation(int i, int padding) {
         String spaceId = "spaceId-" + i;
         String contentId = "contentId-" + i;
         contentItems.add(new ContentItem(spaceId, contentId));
 
-        Content content = new Content();
-        String text = "text-" + i;
-        content.setStream(getStream(text));
+        StringBuilder textBuilder = new StringBuilder("text-" + i);
+        for (int p = 0; p < padding; ++p) {
+            textBuilder.append((char) ('a' + (p + i) % 26));
+        }
+        String text = textBuilder.toString();
 
         EasyMock.expect(dataSource.getContent(spaceId, contentId)).andReturn(
-            content);
+            createContent(text));
 
         return text;
     }
 
+    private Content createContent(String text) {
+        Content content = new Content();
+        content.setStream(getStream(text));
+        return content;
+    }
+
     private InputStream getStream(String text) {
         InputStream stream = new ByteArrayInputStream(text.getBytes());
         streams.add(stream);
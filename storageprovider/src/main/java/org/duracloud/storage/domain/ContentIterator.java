@@ -10,15 +10,31 @@ package org.duracloud.storage.domain;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.duracloud.storage.error.StorageException;
 import org.duracloud.storage.provider.StorageProvider;
 
 /**
+ * Iterates over the content IDs in a space, retrieving the listing from the
+ * storage provider one page at a time. When prefetch is enabled, the next
+ * page is retrieved in the background while the current page is consumed.
+ *
  * @author: Bill Branan
  * Date: Dec 22, 2009
  */
 public class ContentIterator implements Iterator<String> {
 
+    private static final ExecutorService prefetchExecutor =
+        Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "content-iterator-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
     private StorageProvider provider;
     private String spaceId;
     private String prefix;
@@ -26,6 +42,8 @@ public class ContentIterator implements Iterator<String> {
     private int index;
     private List<String> contentList;
     private long maxResults;
+    private boolean prefetch;
+    private Future<List<String>> nextList;
 
     public ContentIterator(StorageProvider provider,
                            String spaceId,
@@ -42,10 +60,20 @@ public class ContentIterator implements Iterator<String> {
         this.spaceId = spaceId;
         this.prefix = prefix;
         this.maxResults = maxResults;
-        contentList = provider.getSpaceContentsChunked(spaceId,
-                                                       prefix,
-                                                       maxResults,
-                                                       null);
+        contentList = buildContentList(null);
+    }
+
+    /**
+     * Enables or disables retrieval of the next page of content IDs in the
+     * background while the current page is being consumed.
+     *
+     * @param prefetch true to retrieve pages ahead of the caller
+     */
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+        if (prefetch) {
+            prefetchList();
+        }
     }
 
     public boolean hasNext() {
@@ -76,12 +104,55 @@ public class ContentIterator implements Iterator<String> {
     }
 
     private void updateList() {
-        String lastItem = contentList.get(contentList.size() - 1);
-        contentList = provider.getSpaceContentsChunked(spaceId,
-                                                       prefix,
-                                                       maxResults,
-                                                       lastItem);
+        if (null != nextList) {
+            contentList = takePrefetchedList();
+        } else {
+            contentList = buildContentList(contentList.get(contentList.size() - 1));
+        }
         index = 0;
+
+        if (prefetch) {
+            prefetchList();
+        }
+    }
+
+    private List<String> buildContentList(String lastItem) {
+        return provider.getSpaceContentsChunked(spaceId,
+                                                prefix,
+                                                maxResults,
+                                                lastItem);
+    }
+
+    /*
+     * Starts retrieval of the page which follows the current page, unless
+     * a retrieval is already pending or the listing is complete. A page
+     * shorter than the maximum is the last page, so nothing follows it.
+     */
+    private void prefetchList() {
+        if (null == nextList && contentList.size() > 0 &&
+            contentList.size() >= maxResults) {
+            String lastItem = contentList.get(contentList.size() - 1);
+            nextList = prefetchExecutor.submit(() -> buildContentList(lastItem));
+        }
+    }
+
+    private List<String> takePrefetchedList() {
+        Future<List<String>> pendingList = nextList;
+        nextList = null;
+        try {
+            return pendingList.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new StorageException("Unable to retrieve content listing for space " +
+                                       spaceId + ": " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Interrupted retrieving content listing " +
+                                       "for space " + spaceId, e);
+        }
     }
 
 }
@@ -25,6 +25,19 @@ public interface StorageAccount {
         CF_KEY_ID,
         CF_KEY_PATH,
         AWS_REGION,
+        BUCKET_CACHE_TTL_SECONDS,
+        MULTIPART_THRESHOLD_MB,
+        MULTIPART_PART_SIZE_MB,
+        MULTIPART_THREADS,
+        ADD_VERIFY_ATTEMPTS,
+        ADD_VERIFY_WAIT_MS,
+        ADD_VERIFY_LEGACY,
+        MAX_CONNECTIONS,
+        CONNECTION_TIMEOUT_MS,
+        SOCKET_TIMEOUT_MS,
+        REQUEST_TIMEOUT_MS,
+        TCP_KEEP_ALIVE,
+        MAX_ERROR_RETRY,
         // Swift
         SWIFT_S3_ENDPOINT,
         SWIFT_S3_SIGNER_TYPE,
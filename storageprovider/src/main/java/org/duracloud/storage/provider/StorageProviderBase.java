@@ -39,6 +39,13 @@ public abstract class StorageProviderBase implements StorageProvider {
 
     protected abstract void removeSpace(String spaceId);
 
+    /**
+     * Retrieves the properties stored with a space, including the ACLs.
+     * Calculated properties, such as the space count, are not included.
+     *
+     * @param spaceId - ID of the space
+     * @return map of stored space properties
+     */
     protected abstract Map<String, String> getAllSpaceProperties(String spaceId);
 
     protected abstract void doSetSpaceProperties(String spaceId,
@@ -51,6 +58,15 @@ public abstract class StorageProviderBase implements StorageProvider {
      * @return map of space properties
      */
     public Map<String, String> getSpaceProperties(String spaceId) {
+        Map<String, String> spaceProps = getStoredSpaceProperties(spaceId);
+        addCalculatedSpaceProperties(spaceId, spaceProps);
+        return spaceProps;
+    }
+
+    /*
+     * Retrieves the stored space properties, excluding the ACLs
+     */
+    private Map<String, String> getStoredSpaceProperties(String spaceId) {
         Map<String, String> spaceProps = new HashMap<String, String>();
         Map<String, String> allProps = getAllSpaceProperties(spaceId);
 
@@ -64,6 +80,20 @@ public abstract class StorageProviderBase implements StorageProvider {
         return spaceProps;
     }
 
+    /**
+     * Adds space properties which are calculated rather than stored, such
+     * as the space count. These are only needed when space properties are
+     * requested, so are not included when reading ACLs or updating
+     * properties.
+     *
+     * @param spaceId         - ID of the space
+     * @param spaceProperties - the stored space properties
+     */
+    protected void addCalculatedSpaceProperties(String spaceId,
+                                                Map<String, String> spaceProperties) {
+        // No calculated properties by default
+    }
+
     /**
      * Sets the properties on this space. Maintains the current ACL settings.
      *
@@ -174,7 +204,7 @@ public abstract class StorageProviderBase implements StorageProvider {
         Map<String, String> newProps = new HashMap<>();
 
         // get properties excluding ACLs
-        Map<String, String> spaceProps = getSpaceProperties(spaceId);
+        Map<String, String> spaceProps = getStoredSpaceProperties(spaceId);
         // add existing non ACLs properties
         newProps.putAll(spaceProps);
 
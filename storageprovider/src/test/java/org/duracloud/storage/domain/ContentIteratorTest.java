@@ -39,6 +39,22 @@ public class ContentIteratorTest {
         }
     }
 
+    @Test
+    public void testIteratorPrefetch() throws Exception {
+        for (int i = 0; i < 31; i++) {
+            StorageProvider testProvider = new MockProvider(i);
+            ContentIterator iterator =
+                new ContentIterator(testProvider, "spaceId", "prefix", 10);
+            iterator.setPrefetch(true);
+            int count = 0;
+            while (iterator.hasNext()) {
+                assertNotNull(iterator.next());
+                count++;
+            }
+            assertEquals(i, count);
+        }
+    }
+
     private class MockProvider extends MockStorageProvider {
 
         private long contentItems;
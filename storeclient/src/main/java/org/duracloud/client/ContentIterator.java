@@ -10,6 +10,10 @@ package org.duracloud.client;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.duracloud.common.retry.Retrier;
 import org.duracloud.error.ContentStoreException;
@@ -23,11 +27,22 @@ import org.slf4j.LoggerFactory;
  * call next() to iterate through the entire content listing, regardless
  * of its length.
  *
+ * When prefetch is enabled, the next page of content IDs is retrieved in
+ * the background while the current page is being consumed. At most one
+ * page is retrieved ahead of the caller.
+ *
  * @author: Bill Branan
  * Date: Dec 23, 2009
  */
 public class ContentIterator implements Iterator<String> {
 
+    private static final ExecutorService prefetchExecutor =
+        Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "content-iterator-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
     private ContentStore store;
     private String spaceId;
     private String prefix;
@@ -36,6 +51,8 @@ public class ContentIterator implements Iterator<String> {
     private List<String> contentList;
     private long maxResults;
     private int maxRetries;
+    private boolean prefetch;
+    private Future<List<String>> nextList;
 
     private final Logger log =
         LoggerFactory.getLogger(ContentIterator.class);
@@ -65,6 +82,34 @@ public class ContentIterator implements Iterator<String> {
         }
     }
 
+    /**
+     * Enables or disables retrieval of the next page of content IDs in the
+     * background while the current page is being consumed.
+     *
+     * @param prefetch true to retrieve pages ahead of the caller
+     */
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+        if (prefetch) {
+            prefetchList();
+        }
+    }
+
+    /**
+     * Enables prefetch on a content listing which is a ContentIterator, as
+     * returned by ContentStoreImpl.getSpaceContents(). Other listings are
+     * returned as they are.
+     *
+     * @param iterator content listing
+     * @return the same listing
+     */
+    public static Iterator<String> withPrefetch(Iterator<String> iterator) {
+        if (iterator instanceof ContentIterator) {
+            ((ContentIterator) iterator).setPrefetch(true);
+        }
+        return iterator;
+    }
+
     public boolean hasNext() {
         if (index < contentList.size()) {
             return true;
@@ -95,11 +140,49 @@ public class ContentIterator implements Iterator<String> {
     private void updateList() {
         String lastItem = contentList.get(contentList.size() - 1);
         try {
-            contentList = retryBuildContentList(lastItem);
+            if (null != nextList) {
+                contentList = takePrefetchedList();
+            } else {
+                contentList = retryBuildContentList(lastItem);
+            }
         } catch (ContentStoreException e) {
             throw new RuntimeException(e);
         }
         index = 0;
+
+        if (prefetch) {
+            prefetchList();
+        }
+    }
+
+    /*
+     * Starts retrieval of the page which follows the current page, unless
+     * a retrieval is already pending or the listing is complete. A page
+     * shorter than the maximum is the last page, so nothing follows it.
+     */
+    private void prefetchList() {
+        if (null == nextList && contentList.size() > 0 &&
+            contentList.size() >= maxResults) {
+            String lastItem = contentList.get(contentList.size() - 1);
+            nextList = prefetchExecutor.submit(() -> retryBuildContentList(lastItem));
+        }
+    }
+
+    private List<String> takePrefetchedList() throws ContentStoreException {
+        Future<List<String>> pendingList = nextList;
+        nextList = null;
+        try {
+            return pendingList.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ContentStoreException) {
+                throw (ContentStoreException) cause;
+            }
+            throw new ContentStoreException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContentStoreException(e);
+        }
     }
 
     private List<String> retryBuildContentList(String lastItem)
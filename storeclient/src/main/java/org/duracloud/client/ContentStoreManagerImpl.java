@@ -15,8 +15,10 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.http.HttpStatus;
+import org.apache.http.pool.PoolStats;
 import org.duracloud.common.model.Credential;
 import org.duracloud.common.model.Securable;
+import org.duracloud.common.web.HttpConnectionPoolConfig;
 import org.duracloud.common.web.RestHttpHelper;
 import org.duracloud.common.web.RestHttpHelper.HttpResponse;
 import org.duracloud.error.ContentStoreException;
@@ -44,6 +46,8 @@ public class ContentStoreManagerImpl implements ContentStoreManager, Securable {
 
     private int socketTimeoutMs;
 
+    private HttpConnectionPoolConfig poolConfig;
+
     /**
      * <p>Constructor for ContentStoreManagerImpl.</p>
      *
@@ -67,8 +71,27 @@ public class ContentStoreManagerImpl implements ContentStoreManager, Securable {
      * @param socketTimeoutMs The socket timeout in milliseconds. A value less than zero indicates no timeout.
      */
     public ContentStoreManagerImpl(String host, String port, String context, int socketTimeoutMs) {
+        this(host, port, context, socketTimeoutMs, new HttpConnectionPoolConfig());
+    }
+
+    /**
+     * <p>Constructor for ContentStoreManagerImpl.</p>
+     *
+     * @param host    the host name on which DuraStore can be accessed
+     * @param port    the port on which DuraStore can be accessed
+     * @param context the application context by which DuraStore can be accessed
+     * @param socketTimeoutMs The socket timeout in milliseconds. A value less than zero indicates no timeout.
+     * @param poolConfig settings for the pool of HTTP connections shared by
+     *                   all content stores created by this manager
+     */
+    public ContentStoreManagerImpl(String host,
+                                   String port,
+                                   String context,
+                                   int socketTimeoutMs,
+                                   HttpConnectionPoolConfig poolConfig) {
         init(host, port, context);
         this.socketTimeoutMs = socketTimeoutMs;
+        this.poolConfig = poolConfig;
     }
 
     private void init(String host, String port, String context) {
@@ -177,12 +200,12 @@ public class ContentStoreManagerImpl implements ContentStoreManager, Securable {
 
     public void login(Credential appCred) {
         log.debug("login: " + appCred.getUsername());
-        setRestHelper(new RestHttpHelper(appCred, socketTimeoutMs));
+        setRestHelper(getRestHelper().withCredential(appCred));
     }
 
     public void logout() {
         log.debug("logout");
-        setRestHelper(new RestHttpHelper());
+        setRestHelper(getRestHelper().withCredential(null));
     }
 
     private StorageAccountManager getStorageAccounts()
@@ -265,11 +288,19 @@ public class ContentStoreManagerImpl implements ContentStoreManager, Securable {
 
     protected RestHttpHelper getRestHelper() {
         if (null == restHelper) {
-            restHelper = new RestHttpHelper(this.socketTimeoutMs);
+            restHelper = new RestHttpHelper(null, socketTimeoutMs, poolConfig);
         }
         return restHelper;
     }
 
+    /**
+     * @return totals for the HTTP connections currently pooled for use by
+     * the content stores created by this manager
+     */
+    public PoolStats getConnectionPoolStats() {
+        return getRestHelper().getPoolStats();
+    }
+
     protected void setRestHelper(RestHttpHelper restHelper) {
         this.restHelper = restHelper;
     }
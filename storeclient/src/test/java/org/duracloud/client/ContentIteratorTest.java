@@ -10,7 +10,9 @@ package org.duracloud.client;
 import static junit.framework.Assert.assertNotNull;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.duracloud.domain.Space;
 import org.duracloud.error.ContentStoreException;
@@ -41,9 +43,56 @@ public class ContentIteratorTest {
         }
     }
 
+    @Test
+    public void testIteratorPrefetch() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            MockStore testStore = new MockStore(i);
+            ContentIterator iterator =
+                new ContentIterator(testStore, "spaceId", "prefix", 10);
+            iterator.setPrefetch(true);
+
+            List<String> items = new ArrayList<>();
+            while (iterator.hasNext()) {
+                items.add(iterator.next());
+            }
+            Assert.assertEquals(i, items.size());
+            for (int j = 0; j < i; j++) {
+                Assert.assertEquals("test" + j, items.get(j));
+            }
+
+            // No page is retrieved beyond those retrieved without prefetch
+            MockStore plainStore = new MockStore(i);
+            Iterator<String> plainIterator =
+                new ContentIterator(plainStore, "spaceId", "prefix", 10);
+            while (plainIterator.hasNext()) {
+                plainIterator.next();
+            }
+            Assert.assertEquals(plainStore.getListings(), testStore.getListings());
+        }
+    }
+
+    @Test
+    public void testWithPrefetch() throws Exception {
+        MockStore testStore = new MockStore(25);
+        Iterator<String> iterator =
+            new ContentIterator(testStore, "spaceId", "prefix", 10);
+        Assert.assertEquals(1, testStore.getListings());
+
+        // The second page is retrieved without waiting for the caller
+        Assert.assertSame(iterator, ContentIterator.withPrefetch(iterator));
+        for (int i = 0; i < 100 && testStore.getListings() < 2; i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(2, testStore.getListings());
+
+        Iterator<String> listing = new ArrayList<String>().iterator();
+        Assert.assertSame(listing, ContentIterator.withPrefetch(listing));
+    }
+
     private class MockStore extends ContentStoreImpl {
 
         private List<String> contentItems;
+        private AtomicInteger listings = new AtomicInteger(0);
 
         public MockStore(long numItems) {
             super(null, null, null, false, null);
@@ -75,8 +124,13 @@ public class ContentIteratorTest {
             Space space = new Space();
             space.setId(spaceId);
             space.setContentIds(items);
+            listings.incrementAndGet();
             return space;
         }
+
+        public int getListings() {
+            return listings.get();
+        }
     }
 
 }
\ No newline at end of file
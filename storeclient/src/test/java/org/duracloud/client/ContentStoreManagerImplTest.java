@@ -0,0 +1,63 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.InetSocketAddress;
+
+import com.sun.net.httpserver.HttpServer;
+import org.duracloud.common.model.Credential;
+import org.duracloud.common.web.RestHttpHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class ContentStoreManagerImplTest {
+
+    private HttpServer server;
+    private String url;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/durastore/";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testLoginKeepsConnectionPool() throws Exception {
+        ContentStoreManagerImpl storeManager =
+            new ContentStoreManagerImpl("localhost",
+                                        String.valueOf(server.getAddress().getPort()));
+        RestHttpHelper anonymous = storeManager.getRestHelper();
+        storeManager.login(new Credential("user", "pass"));
+        RestHttpHelper loggedIn = storeManager.getRestHelper();
+        storeManager.logout();
+
+        // Helpers held by content stores created before login and logout
+        // remain usable, and share one pool
+        assertEquals(200, anonymous.head(url).getStatusCode());
+        assertEquals(200, loggedIn.head(url).getStatusCode());
+        assertEquals(200, storeManager.getRestHelper().head(url).getStatusCode());
+        assertEquals(1, loggedIn.getPoolStats().getAvailable());
+    }
+
+}
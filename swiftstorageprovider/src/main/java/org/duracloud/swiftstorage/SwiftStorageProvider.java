@@ -14,7 +14,6 @@ import static org.duracloud.storage.provider.StorageProvider.PROPERTIES_CONTENT_
 import static org.duracloud.storage.provider.StorageProvider.PROPERTIES_CONTENT_MIMETYPE;
 import static org.duracloud.storage.provider.StorageProvider.PROPERTIES_CONTENT_MODIFIED;
 import static org.duracloud.storage.provider.StorageProvider.PROPERTIES_CONTENT_SIZE;
-import static org.duracloud.storage.provider.StorageProvider.PROPERTIES_SPACE_COUNT;
 import static org.duracloud.storage.provider.StorageProvider.PROPERTIES_SPACE_CREATED;
 
 import java.lang.reflect.Field;
@@ -76,6 +75,7 @@ public class SwiftStorageProvider extends S3StorageProvider {
         String bucketName = getNewBucketName(spaceId);
         try {
             Bucket bucket = s3Client.createBucket(bucketName);
+            cacheBucketName(spaceId, bucketName);
 
             // Swift has no concept of bucket lifecycle
 
@@ -95,6 +95,7 @@ public class SwiftStorageProvider extends S3StorageProvider {
 
         try {
             s3Client.deleteBucket(bucketName);
+            evictBucketName(spaceId);
         } catch (AmazonClientException e) {
             String err = "Could not delete Swift container with name " + bucketName
                          + " due to error: " + e.getMessage();
@@ -111,6 +112,7 @@ public class SwiftStorageProvider extends S3StorageProvider {
         String bucketName = getHiddenBucketName(spaceId);
         try {
             Bucket bucket = s3Client.createBucket(bucketName);
+            cacheBucketName(spaceId, bucketName);
             return spaceId;
         } catch (AmazonClientException e) {
             String err = "Could not create Swift container with name " + bucketName
@@ -141,7 +143,8 @@ public class SwiftStorageProvider extends S3StorageProvider {
     protected Map<String, String> getAllSpaceProperties(String spaceId) {
         log.debug("getAllSpaceProperties(" + spaceId + ")");
 
-        // Will throw if bucket does not exist
+        // Will throw if space or properties bucket does not exist
+        getBucketName(spaceId);
         String propsBucketName = getBucketName(PROPERTIES_BUCKET);
 
         Map<String, String> spaceProperties = new HashMap<>();
@@ -169,9 +172,6 @@ public class SwiftStorageProvider extends S3StorageProvider {
         // Handle @ symbol (change from +), to allow for email usernames in ACLs
         spaceProperties = replaceInMapValues(spaceProperties, "+", "@");
 
-        // Add space count
-        spaceProperties.put(PROPERTIES_SPACE_COUNT,
-                            getSpaceCount(spaceId, MAX_ITEM_COUNT));
         return spaceProperties;
     }
 
@@ -217,6 +217,16 @@ public class SwiftStorageProvider extends S3StorageProvider {
         s3Client.putObject(metadataBucketName, spaceId, spaceProperties.toString());
     }
 
+    /**
+     * Content is always added and copied in a single request, as the
+     * checksum of Swift content is taken from its ETag, which is not an MD5
+     * for content added as a multipart upload.
+     */
+    @Override
+    protected boolean useMultipart(long contentSize) {
+        return false;
+    }
+
     @Override
     protected void updateObjectProperties(String bucketName,
                                           String contentId,
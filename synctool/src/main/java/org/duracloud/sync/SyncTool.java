@@ -19,6 +19,7 @@ import org.duracloud.common.util.ApplicationConfig;
 import org.duracloud.sync.backup.SyncBackupManager;
 import org.duracloud.sync.config.SyncToolConfig;
 import org.duracloud.sync.config.SyncToolConfigParser;
+import org.duracloud.sync.endpoint.ChecksumCache;
 import org.duracloud.sync.endpoint.DuraStoreChunkSyncEndpoint;
 import org.duracloud.sync.endpoint.EndPointLogger;
 import org.duracloud.sync.endpoint.SyncEndpoint;
@@ -172,7 +173,7 @@ public class SyncTool {
                                           syncConfig.getPassword(),
                                           syncConfig.getStoreId());
 
-        syncEndpoint =
+        DuraStoreChunkSyncEndpoint chunkSyncEndpoint =
             new DuraStoreChunkSyncEndpoint(contentStore,
                                            syncConfig.getUsername(),
                                            syncConfig.getSpaceId(),
@@ -183,6 +184,10 @@ public class SyncTool {
                                            syncConfig.isJumpStart(),
                                            syncConfig.getUpdateSuffix(),
                                            syncConfig.getPrefix());
+        if (syncConfig.isManifestCheck()) {
+            chunkSyncEndpoint.loadSpaceManifest();
+        }
+        syncEndpoint = chunkSyncEndpoint;
 
         this.syncEndpoint.addEndPointListener(new EndPointLogger());
 
@@ -293,6 +298,7 @@ public class SyncTool {
         syncManager.endSync();
         dirMonitor.stopMonitor();
         ChangedList.getInstance().shutdown();
+        ChecksumCache.getInstance().shutdown();
 
         long inWork = StatusManager.getInstance().getInWork();
         if (inWork > 0) {
@@ -310,6 +316,7 @@ public class SyncTool {
 
         System.out.print("...");
         boolean restart = restartPossible();
+        loadChecksumCache();
         System.out.print("...");
 
         File backupDir = new File(syncConfig.getWorkDir(), "backup");
@@ -359,6 +366,23 @@ public class SyncTool {
         }
     }
 
+    /*
+     * When the checksum cache is enabled, checksums computed by earlier runs
+     * are reused for files which have not changed, unless a clean start was
+     * requested. Runs without the cache do not keep it up to date, so any
+     * cache file is discarded rather than left for a later run to reuse.
+     */
+    private void loadChecksumCache() {
+        File cacheFile = new File(syncConfig.getWorkDir(), "checksums");
+        if (syncConfig.isCleanStart() || !syncConfig.isChecksumCache()) {
+            cacheFile.delete();
+        }
+        if (syncConfig.isChecksumCache()) {
+            ChecksumCache.getInstance().load(cacheFile,
+                                             syncConfig.getBackupFrequency());
+        }
+    }
+
     private void startBackupsOnDirWalkerCompletion() {
         new Thread(new Runnable() {
             @Override
@@ -8,6 +8,7 @@
 package org.duracloud.sync.backup;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 
 import org.duracloud.sync.mgmt.ChangedList;
@@ -18,6 +19,12 @@ import org.slf4j.LoggerFactory;
 /**
  * Manages the backing up of the changed list on a consistent schedule.
  *
+ * Each backup is a snapshot of the changed list (named with the time it was
+ * written) along with a journal of the changes made since the snapshot. After
+ * the first snapshot, each backup appends recent changes to the journal. A new
+ * snapshot is written once the journal grows larger than its snapshot. If the
+ * most recent backup cannot be read, the backup before it is loaded instead.
+ *
  * @author: Bill Branan
  * Date: Mar 19, 2010
  */
@@ -27,6 +34,9 @@ public class ChangedListBackupManager implements Runnable {
         LoggerFactory.getLogger(ChangedListBackupManager.class);
 
     public static final int SAVED_BACKUPS = 3;
+    public static final String JOURNAL_SUFFIX = ".journal";
+    // Journals smaller than this are not compacted into a new snapshot
+    protected static final long MIN_COMPACT_SIZE = 1024 * 1024; // 1 MB
     protected static final int DEFAULT_SLEEP_TIME = 5000; // 5 seconds
     private File backupDir;
     private long backupFrequency;
@@ -35,6 +45,7 @@ public class ChangedListBackupManager implements Runnable {
     private long changedListVersion;
     private List<File> contentDirs;
     private boolean backingUp = false;
+    private File snapshotFile;
 
     public ChangedListBackupManager(ChangedList changedList,
                                     File backupDir,
@@ -51,29 +62,34 @@ public class ChangedListBackupManager implements Runnable {
     }
 
     /**
-     * Attempts to reload the changed list from a backup file. If there are
-     * no backup files or the backup file cannot be read, returns -1, otherwise
-     * the backup file is loaded and the time the backup file was written is
-     * returned.
+     * Attempts to reload the changed list from the most recent backup file
+     * which can be read. If there are no backup files or none can be read,
+     * returns -1, otherwise the backup file is loaded and the time the backup
+     * file was written is returned.
      *
      * @return the write time of the backup file, or -1 if no backup is available
      */
     public long loadBackup() {
-        long backupTime = -1;
-        File[] backupDirFiles = getSortedBackupDirFiles();
-        if (backupDirFiles.length > 0) {
-            File latestBackup = backupDirFiles[0];
+        for (File backup : getSortedBackupDirFiles()) {
+            File journal = getJournalFile(backup);
             try {
-                backupTime = Long.parseLong(latestBackup.getName());
-                changedList.restore(latestBackup, this.contentDirs);
+                long backupTime = Long.parseLong(backup.getName());
+                changedList.restore(backup, journal, this.contentDirs);
+                if (journal.exists()) {
+                    backupTime = Math.max(backupTime, journal.lastModified());
+                }
+                return backupTime;
             } catch (NumberFormatException e) {
                 logger.error("Unable to load changed list backup. File in " +
                              "changed list backup dir has invalid name: " +
-                             latestBackup.getName());
-                backupTime = -1;
+                             backup.getName());
+            } catch (RuntimeException e) {
+                logger.error("Unable to load changed list backup " +
+                             backup.getName() + ", trying the previous " +
+                             "backup: " + e.getMessage());
             }
         }
-        return backupTime;
+        return -1;
     }
 
     /**
@@ -84,11 +100,16 @@ public class ChangedListBackupManager implements Runnable {
     public void run() {
         while (continueBackup) {
             if (changedListVersion < changedList.getVersion()) {
-                cleanupBackupDir(SAVED_BACKUPS);
-                String filename = String.valueOf(System.currentTimeMillis());
-                File persistFile = new File(backupDir, filename);
                 backingUp = true;
-                changedListVersion = changedList.persist(persistFile);
+                if (isSnapshotNeeded()) {
+                    cleanupBackupDir(SAVED_BACKUPS);
+                    String filename = String.valueOf(System.currentTimeMillis());
+                    snapshotFile = new File(backupDir, filename);
+                    changedListVersion = changedList.persist(snapshotFile);
+                } else {
+                    changedListVersion =
+                        changedList.persistChanges(getJournalFile(snapshotFile));
+                }
                 backingUp = false;
             }
 
@@ -96,6 +117,25 @@ public class ChangedListBackupManager implements Runnable {
         }
     }
 
+    /*
+     * A new snapshot is needed when one has not yet been written (or it has
+     * been cleared), or when the journal has grown larger than the snapshot,
+     * at which point a restore would spend more time replaying the journal
+     * than reading the snapshot.
+     */
+    private boolean isSnapshotNeeded() {
+        if (null == snapshotFile || !snapshotFile.exists()) {
+            return true;
+        }
+        long journalSize = getJournalFile(snapshotFile).length();
+        return journalSize > Math.max(snapshotFile.length(), MIN_COMPACT_SIZE);
+    }
+
+    private File getJournalFile(File backupFile) {
+        return new File(backupFile.getParentFile(),
+                        backupFile.getName() + JOURNAL_SUFFIX);
+    }
+
     /*
      * Sleeps for a given amount of time, checking frequently
      * to see if the process should be continued. This allows
@@ -128,6 +168,7 @@ public class ChangedListBackupManager implements Runnable {
         if (backupDirFiles.length > keep) {
             for (int i = keep; i < backupDirFiles.length; i++) {
                 backupDirFiles[i].delete();
+                getJournalFile(backupDirFiles[i]).delete();
             }
         }
     }
@@ -143,8 +184,15 @@ public class ChangedListBackupManager implements Runnable {
 
     }
 
+    /*
+     * Lists snapshot files, most recent first. Journals and snapshots which
+     * are still being written are not included.
+     */
     private File[] getSortedBackupDirFiles() {
-        return DirectoryUtil.listFilesSortedByModDate(backupDir);
+        return Arrays.stream(DirectoryUtil.listFilesSortedByModDate(backupDir))
+                     .filter(file -> !file.getName().endsWith(JOURNAL_SUFFIX) &&
+                                     !file.getName().endsWith(ChangedList.TEMP_SUFFIX))
+                     .toArray(File[]::new);
     }
 
     public void endBackup() {
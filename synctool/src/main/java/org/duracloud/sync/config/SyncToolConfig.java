@@ -44,6 +44,8 @@ public class SyncToolConfig implements Serializable {
     private String updateSuffix = DEFAULT_UPDATE_SUFFIX;
     private String prefix;
     private boolean jumpStart = false;
+    private boolean manifestCheck = false;
+    private boolean checksumCache = false;
 
     public String getPrintableConfig() {
         StringBuilder config = new StringBuilder();
@@ -94,6 +96,10 @@ public class SyncToolConfig implements Serializable {
         config.append(isCleanStart()).append("\n");
         config.append("Jump Start Mode: ");
         config.append(isJumpStart()).append("\n");
+        config.append("Manifest Check Mode: ");
+        config.append(isManifestCheck()).append("\n");
+        config.append("Checksum Cache: ");
+        config.append(isChecksumCache()).append("\n");
         config.append("SyncTool Exit on Completion: ");
         config.append(exitOnCompletion()).append("\n");
         config.append("Sync Updates: ");
@@ -283,6 +289,22 @@ public class SyncToolConfig implements Serializable {
         this.jumpStart = jumpStart;
     }
 
+    public boolean isManifestCheck() {
+        return manifestCheck;
+    }
+
+    public void setManifestCheck(boolean manifestCheck) {
+        this.manifestCheck = manifestCheck;
+    }
+
+    public boolean isChecksumCache() {
+        return checksumCache;
+    }
+
+    public void setChecksumCache(boolean checksumCache) {
+        this.checksumCache = checksumCache;
+    }
+
     public long getBackupFrequency() {
         return backupFrequency;
     }
@@ -196,6 +196,31 @@ public class SyncToolConfigParser {
         jumpStart.setRequired(false);
         cmdOptions.addOption(jumpStart);
 
+        Option manifestCheck =
+            new Option("k", "manifest-check", false,
+                       "indicates that the sync tool should retrieve the " +
+                       "manifest of the DuraCloud space when it starts and " +
+                       "use it to determine which files are already in " +
+                       "DuraCloud, rather than checking each file " +
+                       "individually. Files which do not match the manifest " +
+                       "are still checked individually. This option is best " +
+                       "used when re-syncing a large data set. " +
+                       "(optional, not set by default)");
+        manifestCheck.setRequired(false);
+        cmdOptions.addOption(manifestCheck);
+
+        Option checksumCache =
+            new Option("b", "checksum-cache", false,
+                       "indicates that the sync tool should keep the " +
+                       "checksums of local files in its work directory and " +
+                       "reuse them across runs for files whose size and " +
+                       "last modified time have not changed, rather than " +
+                       "reading those files again. A file changed without " +
+                       "altering either value will not be detected. " +
+                       "(optional, not set by default)");
+        checksumCache.setRequired(false);
+        cmdOptions.addOption(checksumCache);
+
         Option exitOnCompletion =
             new Option("x", "exit-on-completion", false,
                        "indicates that the sync tool should exit once it has " +
@@ -456,6 +481,18 @@ public class SyncToolConfigParser {
             config.setJumpStart(false);
         }
 
+        if (cmd.hasOption("k")) {
+            config.setManifestCheck(true);
+        } else {
+            config.setManifestCheck(false);
+        }
+
+        if (cmd.hasOption("b")) {
+            config.setChecksumCache(true);
+        } else {
+            config.setChecksumCache(false);
+        }
+
         if (cmd.hasOption("x")) {
             config.setExitOnCompletion(true);
         } else {
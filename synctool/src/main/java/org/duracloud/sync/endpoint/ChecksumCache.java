@@ -0,0 +1,290 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.sync.endpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.duracloud.common.util.ChecksumUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of the MD5 checksums of local files, so that files which have not
+ * changed since their checksum was computed do not need to be read again.
+ *
+ * A cached checksum is used only while the size, last modified time and
+ * file key (the inode, where the file system provides one) of the file
+ * match the values recorded when the checksum was computed. The checksum of
+ * a file modified shortly before it was read is not cached: on file systems
+ * which record modification times coarsely, a later write of the same size
+ * could otherwise leave the recorded attributes unchanged. The cache is
+ * not used until it has been loaded, and is written back to its file
+ * periodically and on shutdown.
+ *
+ * @author agent
+ */
+public class ChecksumCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ChecksumCache.class);
+
+    // Marks a file written by persist()
+    private static final int CACHE_FORMAT = 0x44434331;
+    private static final int MD5_LENGTH = 16;
+
+    // Files modified within this time before their checksum is computed are
+    // not cached, as a further change may not alter the modification time
+    protected static final long RECENT_CHANGE_MS = 5000;
+
+    private static ChecksumCache instance;
+
+    private Map<String, CacheEntry> entries;
+    private AtomicLong cacheVersion;
+    private long persistedVersion;
+    private volatile File cacheFile;
+    private ScheduledExecutorService executorService;
+
+    public static synchronized ChecksumCache getInstance() {
+        if (instance == null) {
+            instance = new ChecksumCache();
+        }
+        return instance;
+    }
+
+    protected ChecksumCache() {
+        entries = new ConcurrentHashMap<>();
+        cacheVersion = new AtomicLong(0);
+        persistedVersion = 0;
+    }
+
+    /**
+     * Enables the cache, reading any checksums previously written to the
+     * cache file. If the cache file cannot be read the cache starts out
+     * empty.
+     *
+     * @param cacheFile        the file in which checksums are stored
+     * @param persistFrequency how often (in ms) changes to the cache are
+     *                         written to the cache file, or 0 to only write
+     *                         them on shutdown
+     */
+    public synchronized void load(File cacheFile, long persistFrequency) {
+        this.cacheFile = cacheFile;
+        entries.clear();
+        if (cacheFile.exists()) {
+            try {
+                readEntries(cacheFile);
+                log.info("Loaded {} cached checksums from {}",
+                         entries.size(), cacheFile.getAbsolutePath());
+            } catch (IOException e) {
+                log.warn("Unable to read checksum cache file " +
+                         cacheFile.getAbsolutePath() + ", all checksums " +
+                         "will be computed: " + e.getMessage());
+                entries.clear();
+            }
+        }
+        persistedVersion = cacheVersion.get();
+
+        if (persistFrequency > 0 && null == executorService) {
+            executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "checksum-cache-persist");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executorService.scheduleWithFixedDelay(this::persist,
+                                                   persistFrequency,
+                                                   persistFrequency,
+                                                   TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Retrieves the checksum of a file. If the cache is enabled and holds a
+     * checksum for the file which is still current, that checksum is
+     * returned. Otherwise the checksum is computed, and cached if the file
+     * did not change while it was being read.
+     *
+     * @param file             the file
+     * @param checksumFunction computes the checksum of the file
+     * @return the MD5 checksum of the file
+     */
+    public String getChecksum(File file, Function<File, String> checksumFunction) {
+        if (null == cacheFile) {
+            return checksumFunction.apply(file);
+        }
+
+        String path = file.getAbsolutePath();
+        CacheEntry before = readAttributes(file);
+        if (null != before) {
+            CacheEntry cached = entries.get(path);
+            if (null != cached && cached.matches(before)) {
+                return ChecksumUtil.checksumBytesToString(cached.md5);
+            }
+        }
+
+        long computedAt = System.currentTimeMillis();
+        String checksum = checksumFunction.apply(file);
+
+        CacheEntry after = readAttributes(file);
+        if (null != before && null != after && after.matches(before) &&
+            computedAt - after.lastModified >= RECENT_CHANGE_MS &&
+            isMd5(checksum)) {
+            after.md5 = ChecksumUtil.hexStringToByteArray(checksum);
+            entries.put(path, after);
+            cacheVersion.incrementAndGet();
+        } else if (null != entries.remove(path)) {
+            cacheVersion.incrementAndGet();
+        }
+        return checksum;
+    }
+
+    /**
+     * Removes the cached checksum of a file, such as when the file has
+     * been deleted or its checksum was not accepted on upload.
+     *
+     * @param file the file
+     */
+    public void remove(File file) {
+        if (null != entries.remove(file.getAbsolutePath())) {
+            cacheVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the cache to the cache file, if it has changed since it was
+     * last written. The file is replaced only once it has been fully
+     * written, so an interrupted write leaves the previous cache in place.
+     */
+    public synchronized void persist() {
+        long version = cacheVersion.get();
+        if (null == cacheFile || version == persistedVersion) {
+            return;
+        }
+
+        File tempFile = new File(cacheFile.getParentFile(),
+                                 cacheFile.getName() + ".tmp");
+        try {
+            writeEntries(tempFile);
+            Files.move(tempFile.toPath(), cacheFile.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            persistedVersion = version;
+        } catch (IOException e) {
+            log.warn("Unable to write checksum cache file " +
+                     cacheFile.getAbsolutePath() + ": " + e.getMessage());
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Writes any outstanding changes and stops periodic writes.
+     */
+    public synchronized void shutdown() {
+        if (null != executorService) {
+            executorService.shutdown();
+            executorService = null;
+        }
+        persist();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /*
+     * Each entry is: path, size, last modified time, file key, MD5 bytes
+     */
+    private void writeEntries(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(CACHE_FORMAT);
+            for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+                CacheEntry value = entry.getValue();
+                out.writeBoolean(true);
+                out.writeUTF(entry.getKey());
+                out.writeLong(value.size);
+                out.writeLong(value.lastModified);
+                out.writeUTF(value.fileKey);
+                out.write(value.md5);
+            }
+            out.writeBoolean(false);
+        }
+    }
+
+    private void readEntries(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != CACHE_FORMAT) {
+                throw new IOException("unrecognized format");
+            }
+            while (in.readBoolean()) {
+                String path = in.readUTF();
+                CacheEntry entry =
+                    new CacheEntry(in.readLong(), in.readLong(), in.readUTF());
+                entry.md5 = new byte[MD5_LENGTH];
+                in.readFully(entry.md5);
+                entries.put(path, entry);
+            }
+        }
+    }
+
+    private CacheEntry readAttributes(File file) {
+        try {
+            BasicFileAttributes attributes =
+                Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            Object fileKey = attributes.fileKey();
+            return new CacheEntry(attributes.size(),
+                                  attributes.lastModifiedTime().toMillis(),
+                                  null == fileKey ? "" : fileKey.toString());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean isMd5(String checksum) {
+        return null != checksum && checksum.length() == MD5_LENGTH * 2;
+    }
+
+    private static class CacheEntry {
+        private final long size;
+        private final long lastModified;
+        private final String fileKey;
+        private byte[] md5;
+
+        CacheEntry(long size, long lastModified, String fileKey) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+        }
+
+        boolean matches(CacheEntry other) {
+            return size == other.size &&
+                   lastModified == other.lastModified &&
+                   fileKey.equals(other.fileKey);
+        }
+    }
+
+}
@@ -17,6 +17,7 @@ import java.util.Iterator;
 import java.util.Map;
 
 import org.apache.commons.lang3.event.EventListenerSupport;
+import org.duracloud.client.ContentIterator;
 import org.duracloud.client.ContentStore;
 import org.duracloud.common.util.ContentIdUtil;
 import org.duracloud.common.util.DateUtil;
@@ -48,6 +49,7 @@ public class DuraStoreSyncEndpoint implements SyncEndpoint {
     private String updateSuffix;
     private String storeId;
     private String prefix;
+    private volatile SpaceManifestIndex manifestIndex;
     EventListenerSupport<EndPointListener> listenerList;
 
     public DuraStoreSyncEndpoint(ContentStore contentStore,
@@ -96,6 +98,24 @@ public class DuraStoreSyncEndpoint implements SyncEndpoint {
              null);
     }
 
+    /**
+     * Retrieves the manifest of the space, which is then used to determine
+     * which local files are already in DuraCloud without checking with
+     * DuraCloud for each file. If the manifest cannot be retrieved, each
+     * file continues to be checked individually.
+     */
+    public void loadSpaceManifest() {
+        SpaceManifestIndex index = new SpaceManifestIndex();
+        try {
+            index.load(contentStore, spaceId);
+            this.manifestIndex = index;
+        } catch (ContentStoreException | IOException e) {
+            logger.warn("Unable to load manifest of space " + spaceId +
+                        ", each file will be checked individually: " +
+                        e.getMessage());
+        }
+    }
+
     protected String getUsername() {
         return this.username;
     }
@@ -171,6 +191,14 @@ public class DuraStoreSyncEndpoint implements SyncEndpoint {
                 }
             }
 
+            SpaceManifestIndex index = this.manifestIndex;
+            if (null != index && syncFile.exists() &&
+                index.isInSync(contentId, syncFile.getChecksum())) {
+                logger.debug("Checksum for local file {} matches space " +
+                             "manifest, no update needed.", absPath);
+                return result;
+            }
+
             Map<String, String> contentProperties =
                 getContentProperties(spaceId, contentId);
             boolean dcFileExists = (null != contentProperties);
@@ -231,6 +259,7 @@ public class DuraStoreSyncEndpoint implements SyncEndpoint {
                     result = SyncResultType.ADDED;
                 }
             } else { // File was deleted (does not exist locally)
+                ChecksumCache.getInstance().remove(syncFile.getFile());
                 if (syncDeletes) {
                     if (dcFileExists) {
                         result = deleteContent(spaceId, contentId, absPath);
@@ -298,7 +327,14 @@ public class DuraStoreSyncEndpoint implements SyncEndpoint {
         throws ContentStoreException {
         logger.info("Adding local file {} to DuraCloud space {}" +
                     " with content ID {}", absPath, spaceId, contentId);
-        addUpdateContent(contentId, syncFile);
+        try {
+            addUpdateContent(contentId, syncFile);
+        } catch (ContentStoreException | RuntimeException e) {
+            // The upload may have failed because the checksum did not match
+            // the file, so the checksum is computed again on the next attempt
+            syncFile.resetChecksum();
+            throw e;
+        }
     }
 
     protected void addUpdateContent(String contentId, MonitoredFile syncFile)
@@ -350,7 +386,9 @@ public class DuraStoreSyncEndpoint implements SyncEndpoint {
     public Iterator<String> getFilesList() {
         Iterator<String> spaceContents;
         try {
-            spaceContents = contentStore.getSpaceContents(spaceId);
+            // The full listing is read, so pages are retrieved ahead
+            spaceContents = ContentIterator.withPrefetch(
+                contentStore.getSpaceContents(spaceId));
         } catch (ContentStoreException e) {
             throw new RuntimeException("Unable to get list of files from " +
                                        "DuraStore due to: " + e.getMessage());
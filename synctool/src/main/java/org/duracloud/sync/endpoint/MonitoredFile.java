@@ -25,9 +25,15 @@ public class MonitoredFile {
     private MonitoredInputStream stream;
     private String checksum;
     private String mimetype;
+    private ChecksumCache checksumCache;
 
     public MonitoredFile(File file) {
+        this(file, ChecksumCache.getInstance());
+    }
+
+    protected MonitoredFile(File file, ChecksumCache checksumCache) {
         this.file = file;
+        this.checksumCache = checksumCache;
         this.stream = null;
         this.checksum = null;
         this.mimetype = null;
@@ -79,11 +85,20 @@ public class MonitoredFile {
 
     public String getChecksum() {
         if (null == checksum) {
-            checksum = computeChecksum(file);
+            checksum = checksumCache.getChecksum(file, this::computeChecksum);
         }
         return checksum;
     }
 
+    /**
+     * Discards the checksum of this file, including any cached checksum, so
+     * that it is computed from the file when it is next needed.
+     */
+    public void resetChecksum() {
+        checksum = null;
+        checksumCache.remove(file);
+    }
+
     /*
      * Computes the checksum of a local file
      */
@@ -0,0 +1,97 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.sync.endpoint;
+
+import static org.duracloud.common.util.bulk.ManifestVerifier.DELIM;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.duracloud.client.ContentStore;
+import org.duracloud.common.constant.ManifestFormat;
+import org.duracloud.error.ContentStoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The checksums of the content items in a DuraCloud space, as listed in the
+ * space manifest. Allows the sync tool to determine that a local file is
+ * already in DuraCloud without making a request for each file.
+ *
+ * The space manifest is updated in the background as content changes, so it
+ * may not include the most recent changes in the space. A checksum which
+ * matches the local file is taken to mean the file is in sync; in all other
+ * cases the sync tool should check with DuraCloud.
+ *
+ * @author agent
+ */
+public class SpaceManifestIndex {
+
+    private final Logger log = LoggerFactory.getLogger(SpaceManifestIndex.class);
+
+    private Map<String, String> checksums = new ConcurrentHashMap<>();
+
+    /**
+     * Reads the manifest of the given space into the index. The manifest
+     * is streamed, only the content IDs and checksums are retained.
+     *
+     * @param contentStore the store containing the space
+     * @param spaceId      the space whose manifest is read
+     * @throws ContentStoreException if the manifest cannot be retrieved
+     * @throws IOException           if the manifest cannot be read
+     */
+    public void load(ContentStore contentStore, String spaceId)
+        throws ContentStoreException, IOException {
+        log.info("Loading manifest of space {}", spaceId);
+        InputStream manifest = contentStore.getManifest(spaceId, ManifestFormat.TSV);
+        try (BufferedReader reader =
+                 new BufferedReader(new InputStreamReader(manifest, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Lines are: space ID, content ID, checksum
+                int first = line.indexOf(DELIM);
+                int last = line.lastIndexOf(DELIM);
+                if (first > 0 && last > first + 1 &&
+                    line.substring(0, first).equals(spaceId)) {
+                    checksums.put(line.substring(first + 1, last),
+                                  line.substring(last + 1));
+                }
+            }
+        }
+        log.info("Loaded {} items from manifest of space {}", checksums.size(), spaceId);
+    }
+
+    /**
+     * Determines if the manifest lists the content item with the given
+     * checksum. Each content item is only resolved once; the item is removed
+     * from the index by this call, so later changes to the local file are
+     * always checked with DuraCloud.
+     *
+     * @param contentId the ID of the content item
+     * @param checksum  the checksum of the local file
+     * @return true if the manifest lists the item with a matching checksum
+     */
+    public boolean isInSync(String contentId, String checksum) {
+        String manifestChecksum = checksums.remove(contentId);
+        return null != manifestChecksum && manifestChecksum.equals(checksum);
+    }
+
+    /**
+     * @return the number of content items in the index which have not yet
+     * been resolved
+     */
+    public int size() {
+        return checksums.size();
+    }
+
+}
@@ -7,6 +7,8 @@
  */
 package org.duracloud.sync.mgmt;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author: Bill Branan
  * Date: Mar 17, 2010
@@ -21,4 +23,18 @@ public interface ChangeHandler {
      */
     public boolean handleChangedFile(ChangedFile changedFile);
 
+    /**
+     * Waits until the handler is able to accept a changed file. Handlers
+     * which are always able to accept files need not override this method.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if the handler is ready, false if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public default boolean awaitReady(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return true;
+    }
+
 }
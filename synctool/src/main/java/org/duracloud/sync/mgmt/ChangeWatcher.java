@@ -7,11 +7,14 @@
  */
 package org.duracloud.sync.mgmt;
 
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Watches for new items on the ChangedList.
+ * Watches for new items on the ChangedList, passing each to the ChangeHandler
+ * as soon as the handler is ready to accept it.
  *
  * @author: Bill Branan
  * Date: Mar 17, 2010
@@ -20,7 +23,7 @@ public class ChangeWatcher implements Runnable {
 
     private final Logger logger = LoggerFactory.getLogger(ChangeWatcher.class);
 
-    private boolean continueWatch;
+    private volatile boolean continueWatch;
     private ChangedList changedList;
     private ChangeHandler handler;
     private long watchFrequency;
@@ -32,7 +35,8 @@ public class ChangeWatcher implements Runnable {
      *
      * @param changedList    the ChangedList to watch
      * @param handler        the ChangeHandler to notify
-     * @param watchFrequency how often to check for changes
+     * @param watchFrequency the longest time to wait for a change before
+     *                       checking whether the watch has ended
      */
     public ChangeWatcher(ChangedList changedList,
                          ChangeHandler handler,
@@ -46,29 +50,31 @@ public class ChangeWatcher implements Runnable {
 
     public void run() {
         while (continueWatch) {
-            ChangedFile changedFile = changedList.reserve();
-            if (changedFile != null) {
-                boolean success = handler.handleChangedFile(changedFile);
-                if (success) {
-                    status.startingWork();
-                } else {
+            try {
+                // Only reserve a file once the handler can take it on
+                if (!handler.awaitReady(watchFrequency, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+
+                ChangedFile changedFile =
+                    changedList.reserve(watchFrequency, TimeUnit.MILLISECONDS);
+                if (changedFile != null && !continueWatch) {
+                    // The watch ended while waiting for this file
                     changedFile.unreserve();
+                } else if (changedFile != null) {
+                    boolean success = handler.handleChangedFile(changedFile);
+                    if (success) {
+                        status.startingWork();
+                    } else {
+                        changedFile.unreserve();
+                    }
                 }
-            } else {
-                // List is empty or handler not ready, wait before next check
-                sleep(watchFrequency);
+            } catch (InterruptedException e) {
+                logger.warn("ChangeWatcher thread interrupted");
             }
         }
     }
 
-    private void sleep(long time) {
-        try {
-            Thread.sleep(time);
-        } catch (InterruptedException e) {
-            logger.warn("ChangeWatcher thread interrupted");
-        }
-    }
-
     public void endWatch() {
         continueWatch = false;
     }
@@ -19,8 +19,12 @@ public class ChangedFile implements Serializable {
     private int syncAttempts;
 
     public ChangedFile(File changedFile) {
+        this(changedFile, 0);
+    }
+
+    ChangedFile(File changedFile, int syncAttempts) {
         this.changedFile = changedFile;
-        syncAttempts = 0;
+        this.syncAttempts = syncAttempts;
     }
 
     public File getFile() {
@@ -7,21 +7,39 @@
  */
 package org.duracloud.sync.mgmt;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.ExecutorService;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang3.event.EventListenerSupport;
 import org.slf4j.Logger;
@@ -30,17 +48,63 @@ import org.slf4j.LoggerFactory;
 /**
  * The list of files which have been changed.
  *
+ * Changed files are indexed by path, so that only the most recent change
+ * to any given file is held, and are handed out for processing in the order
+ * in which they were first added. Files are added and reserved without
+ * locking, so the threads which discover changes do not contend with the
+ * threads which process them. Threads waiting for files to process are woken
+ * as files are added. Listeners are notified asynchronously, shortly after
+ * a file is added or reserved, with all changes made in the meantime being
+ * covered by a single notification.
+ *
+ * The list is persisted as a snapshot of all files followed by a journal of
+ * the files added and removed since the snapshot was written, so that each
+ * backup only needs to write the changes made since the previous backup.
+ * A snapshot ends with a record of its length, so that a snapshot which was
+ * not fully written is not mistaken for the full list.
+ *
  * @author: Bill Branan
  * Date: Mar 15, 2010
  */
 public class ChangedList implements Serializable {
 
     private static final Logger log = LoggerFactory.getLogger(ChangedList.class);
-    private LinkedHashMap<String, ChangedFile> fileList;
-    private LinkedHashMap<String, ChangedFile> reservedFiles;
-    private ExecutorService executorService;
-    private long listVersion;
-    private boolean shutdown = false;
+
+    // Delay before listeners are notified of changes, changes made during
+    // the delay are reported by the same notification
+    private static final long CHANGED_EVENT_DELAY_MS = 50;
+
+    // Suffix of the file a snapshot is written to before it replaces the
+    // snapshot file
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    // Marks a snapshot written by persist(), files written by earlier
+    // versions are serialized maps
+    private static final int SNAPSHOT_FORMAT = 0x44434c31;
+
+    private static final byte RECORD_ADD = 1;
+    private static final byte RECORD_REMOVE = 2;
+    // Last record of a snapshot, holding the number of records before it
+    private static final byte RECORD_END = 3;
+
+    // Files waiting to be processed, indexed by path
+    private ConcurrentMap<String, ChangedFile> fileList;
+    // Paths in the order they are to be processed. May include paths which
+    // are no longer in fileList, these are skipped.
+    private Queue<String> fileQueue;
+    private ConcurrentMap<String, ChangedFile> reservedFiles;
+    // Changes which have not yet been written by persistChanges(). Only
+    // collected once the list has been persisted.
+    private Queue<JournalRecord> journal;
+    private volatile boolean journaling = false;
+    private ScheduledExecutorService executorService;
+    private AtomicLong listVersion;
+    private AtomicBoolean changedEventPending;
+    // Used only by threads waiting on an empty list, and to wake them
+    private ReentrantLock waitLock;
+    private Condition filesAdded;
+    private AtomicInteger waitingThreads;
+    private volatile boolean shutdown = false;
 
     private static ChangedList instance;
 
@@ -55,13 +119,19 @@ public class ChangedList implements Serializable {
     }
 
     private ChangedList() {
-        fileList = new LinkedHashMap<String, ChangedFile>();
-        reservedFiles = new LinkedHashMap<String, ChangedFile>();
+        fileList = new ConcurrentHashMap<>();
+        fileQueue = new ConcurrentLinkedQueue<>();
+        reservedFiles = new ConcurrentHashMap<>();
+        journal = new ConcurrentLinkedQueue<>();
         this.fileExclusionManager = new FileExclusionManager();
-        listVersion = 0;
+        listVersion = new AtomicLong(0);
+        changedEventPending = new AtomicBoolean(false);
+        waitLock = new ReentrantLock();
+        filesAdded = waitLock.newCondition();
+        waitingThreads = new AtomicInteger(0);
         listeners =
             new EventListenerSupport<ChangedListListener>(ChangedListListener.class);
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
     }
 
     public void setFileExclusionManager(FileExclusionManager fileExclusionManager) {
@@ -109,14 +179,24 @@ public class ChangedList implements Serializable {
         return fileList.size() + reservedFiles.size();
     }
 
-    synchronized boolean addChangedFile(ChangedFile changedFile) {
+    boolean addChangedFile(ChangedFile changedFile) {
         File file = changedFile.getFile();
         if (fileExclusionManager.isExcluded(file)) {
             return false;
         }
-        fileList.put(file.getAbsolutePath(), changedFile);
+        String key = getKey(changedFile);
+        boolean[] newFile = new boolean[1];
+        fileList.compute(key, (path, pendingFile) -> {
+            newFile[0] = null == pendingFile;
+            addJournalRecord(RECORD_ADD, path, changedFile);
+            return changedFile;
+        });
+        if (newFile[0]) {
+            fileQueue.offer(key);
+            signalFilesAdded(false);
+        }
         incrementVersion();
-        fireChangedEvent();
+        fireChangedEventAsync();
         return true;
     }
 
@@ -124,13 +204,29 @@ public class ChangedList implements Serializable {
         listeners.fire().listChanged(this);
     }
 
+    /*
+     * Notifies listeners of a change on the event thread. Only one
+     * notification is scheduled at a time; further changes made before it
+     * is delivered are covered by that notification.
+     */
     protected void fireChangedEventAsync() {
-        this.executorService.execute(new Runnable() {
-            @Override
-            public void run() {
-                fireChangedEvent();
-            }
-        });
+        if (shutdown || changedEventPending.get() ||
+            !changedEventPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            this.executorService.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    changedEventPending.set(false);
+                    fireChangedEvent();
+                }
+            }, CHANGED_EVENT_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The list has been shut down, there is no one left to notify
+            changedEventPending.set(false);
+        }
     }
 
     public void addListener(ChangedListListener listener) {
@@ -142,11 +238,23 @@ public class ChangedList implements Serializable {
     }
 
     /**
-     * Removes all files from the changed list.
+     * Removes all files from the changed list. Each path is removed from the
+     * file list after it is taken from the queue, so a file added while the
+     * list is being cleared is either removed or remains queued, and is
+     * never left in the file list without a place in the queue.
      */
-    public synchronized void clear() {
-        fileList.clear();
-        reservedFiles.clear();
+    public void clear() {
+        String key;
+        while ((key = fileQueue.poll()) != null) {
+            fileList.computeIfPresent(key, (path, changedFile) -> {
+                addJournalRecord(RECORD_REMOVE, path, null);
+                return null;
+            });
+        }
+        for (String reservedKey : reservedFiles.keySet()) {
+            removeReserved(reservedKey);
+        }
+        incrementVersion();
         fireChangedEvent();
     }
 
@@ -156,115 +264,375 @@ public class ChangedList implements Serializable {
      *
      * @return a file which has changed on the file system
      */
-    public synchronized ChangedFile reserve() {
-        if (fileList.isEmpty() || shutdown) {
+    public ChangedFile reserve() {
+        if (shutdown) {
             return null;
         }
 
-        String key = fileList.keySet().iterator().next();
-        ChangedFile changedFile = fileList.remove(key);
-        reservedFiles.put(key, changedFile);
-        incrementVersion();
-        fireChangedEventAsync();
+        ChangedFile changedFile = reserveNext();
+        if (null != changedFile) {
+            incrementVersion();
+            fireChangedEventAsync();
+        }
         return changedFile;
     }
 
-    private void incrementVersion() {
-        if (listVersion < Long.MAX_VALUE) {
-            listVersion++;
-        } else {
-            listVersion = 0;
+    /**
+     * Retrieves a changed file for processing and removes it from the list
+     * of unreserved files, waiting up to the given time for a file to be
+     * added if the list is empty.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return a file which has changed on the file system, or null if no file
+     * was added before the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public ChangedFile reserve(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        ChangedFile changedFile = reserve();
+        if (null != changedFile || shutdown) {
+            return changedFile;
+        }
+
+        long remaining = unit.toNanos(timeout);
+        waitLock.lock();
+        waitingThreads.incrementAndGet();
+        try {
+            // Checking again after registering as a waiting thread ensures
+            // that a file added since the check above is not missed
+            changedFile = reserve();
+            while (null == changedFile && !shutdown && remaining > 0) {
+                remaining = filesAdded.awaitNanos(remaining);
+                changedFile = reserve();
+            }
+            return changedFile;
+        } finally {
+            waitingThreads.decrementAndGet();
+            waitLock.unlock();
         }
     }
 
+    /*
+     * Wakes threads waiting in reserve(timeout, unit), if there are any
+     */
+    private void signalFilesAdded(boolean all) {
+        if (waitingThreads.get() > 0) {
+            waitLock.lock();
+            try {
+                if (all) {
+                    filesAdded.signalAll();
+                } else {
+                    filesAdded.signal();
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Retrieves up to maxFiles changed files for processing and removes them
+     * from the list of unreserved files. Returns an empty list if there are
+     * no changed files in the list.
+     *
+     * @param maxFiles the maximum number of files to reserve
+     * @return files which have changed on the file system, in list order
+     */
+    public List<ChangedFile> reserve(int maxFiles) {
+        List<ChangedFile> changedFiles = new ArrayList<>();
+        if (shutdown) {
+            return changedFiles;
+        }
+
+        while (changedFiles.size() < maxFiles) {
+            ChangedFile changedFile = reserveNext();
+            if (null == changedFile) {
+                break;
+            }
+            changedFiles.add(changedFile);
+        }
+
+        if (!changedFiles.isEmpty()) {
+            incrementVersion();
+            fireChangedEventAsync();
+        }
+        return changedFiles;
+    }
+
+    /*
+     * Moves the file at the head of the queue to the reserved list. The file
+     * is added to the reserved list before it is removed from the file list,
+     * so it is always counted in getListSizeIncludingReservedFiles().
+     */
+    private ChangedFile reserveNext() {
+        String key;
+        while ((key = fileQueue.poll()) != null) {
+            ChangedFile[] reserved = new ChangedFile[1];
+            fileList.computeIfPresent(key, (path, changedFile) -> {
+                reservedFiles.put(path, changedFile);
+                reserved[0] = changedFile;
+                return null;
+            });
+            if (null != reserved[0]) {
+                return reserved[0];
+            }
+        }
+        return null;
+    }
+
+    private void incrementVersion() {
+        listVersion.updateAndGet(version -> version < Long.MAX_VALUE ? version + 1 : 0);
+    }
+
     public long getVersion() {
-        return listVersion;
+        return listVersion.get();
     }
 
     /**
      * Writes out the current state of the ChangeList to the given file.
+     * Changes made from this point on are collected so that they can be
+     * written to a journal using persistChanges(). The file is replaced
+     * only once it has been fully written.
      *
      * @param persistFile file to write state to
      * @return the version ID of the ChangedList which was persisted
      */
     public long persist(File persistFile) {
+        // Changes made while the snapshot is written may or may not be
+        // included in it, they are also included in the following journal
+        journaling = true;
+        journal.clear();
+        long persistVersion = getVersion();
+
+        File tempFile = new File(persistFile.getParentFile(),
+                                 persistFile.getName() + TEMP_SUFFIX);
         try {
-            FileOutputStream fileStream = new FileOutputStream(persistFile);
-            ObjectOutputStream oStream = new ObjectOutputStream((fileStream));
-
-            long persistVersion;
-            Map<String, ChangedFile> fileListCopy;
-            synchronized (this) {
-                fileListCopy = (Map<String, ChangedFile>) fileList.clone();
-                fileListCopy.putAll(reservedFiles);
-                persistVersion = listVersion;
+            try (DataOutputStream out = openOutput(tempFile, false)) {
+                out.writeInt(SNAPSHOT_FORMAT);
+                int records = 0;
+                for (String key : fileQueue) {
+                    ChangedFile changedFile = fileList.get(key);
+                    if (null != changedFile) {
+                        writeRecord(out, RECORD_ADD, key, changedFile.getSyncAttempts());
+                        records++;
+                    }
+                }
+                for (Entry<String, ChangedFile> reserved : reservedFiles.entrySet()) {
+                    writeRecord(out, RECORD_ADD, reserved.getKey(),
+                                reserved.getValue().getSyncAttempts());
+                    records++;
+                }
+                writeRecord(out, RECORD_END, null, records);
             }
-
-            oStream.writeObject(fileListCopy);
-            oStream.close();
+            Files.move(tempFile.toPath(), persistFile.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
             return persistVersion;
         } catch (IOException e) {
+            tempFile.delete();
             throw new RuntimeException("Unable to persist File Changed List:" +
                                        e.getMessage(), e);
         }
     }
 
+    /**
+     * Appends the changes made since the last call to persist() or
+     * persistChanges() to the given journal file.
+     *
+     * @param journalFile journal of the snapshot last written by persist()
+     * @return the version ID of the ChangedList which was persisted
+     */
+    public long persistChanges(File journalFile) {
+        if (!journaling) {
+            throw new IllegalStateException(
+                "Changes can only be persisted after the list is persisted");
+        }
+
+        long persistVersion = getVersion();
+        try (DataOutputStream out = openOutput(journalFile, true)) {
+            JournalRecord record;
+            while ((record = journal.poll()) != null) {
+                writeRecord(out, record.type, record.path, record.syncAttempts);
+            }
+            return persistVersion;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to persist File Changed List " +
+                                       "changes:" + e.getMessage(), e);
+        }
+    }
+
     /**
      * Restores the state of the ChangedList using the given backup file
      *
      * @param persistFile file containing previous state
      * @param contentDirs content directories currently configured.
      */
-    public synchronized void restore(File persistFile, List<File> contentDirs) {
+    public void restore(File persistFile, List<File> contentDirs) {
+        restore(persistFile, null, contentDirs);
+    }
+
+    /**
+     * Restores the state of the ChangedList using the given backup file and
+     * the journal of changes made after the backup file was written. The list
+     * is left as it is if the backup file cannot be read in full.
+     *
+     * @param persistFile file containing previous state
+     * @param journalFile changes made after the state was written, may be null
+     * @param contentDirs content directories currently configured.
+     */
+    public synchronized void restore(File persistFile,
+                                     File journalFile,
+                                     List<File> contentDirs) {
         try {
-            FileInputStream fileStream = new FileInputStream(persistFile);
-            ObjectInputStream oStream = new ObjectInputStream(fileStream);
             log.info("Restoring changed list from backup: {}", persistFile.getAbsolutePath());
-            synchronized (this) {
-                LinkedHashMap<String, ChangedFile> fileListFromDisk =
-                    (LinkedHashMap<String, ChangedFile>) oStream.readObject();
-
-                //remove files in change list that are not in the content dir list.
-                if (contentDirs != null && !contentDirs.isEmpty()) {
-
-                    Iterator<Entry<String, ChangedFile>> entries =
-                        fileListFromDisk.entrySet().iterator();
-                    while (entries.hasNext()) {
-                        Entry<String, ChangedFile> entry = entries.next();
-                        ChangedFile file = entry.getValue();
-                        boolean watched = false;
-                        for (File contentDir : contentDirs) {
-                            if (file.getFile()
-                                    .getAbsolutePath()
-                                    .startsWith(contentDir.getAbsolutePath()) &&
-                                !this.fileExclusionManager.isExcluded(file.getFile())) {
-                                watched = true;
-                                break;
-                            }
-                        }
+            LinkedHashMap<String, ChangedFile> fileListFromDisk = readSnapshot(persistFile);
+            if (null != journalFile && journalFile.exists()) {
+                log.info("Applying changed list journal: {}", journalFile.getAbsolutePath());
+                try (DataInputStream in = openInput(journalFile)) {
+                    readRecords(in, fileListFromDisk);
+                }
+            }
 
-                        if (!watched) {
-                            entries.remove();
+            //remove files in change list that are not in the content dir list.
+            if (contentDirs != null && !contentDirs.isEmpty()) {
+
+                Iterator<Entry<String, ChangedFile>> entries =
+                    fileListFromDisk.entrySet().iterator();
+                while (entries.hasNext()) {
+                    Entry<String, ChangedFile> entry = entries.next();
+                    ChangedFile file = entry.getValue();
+                    boolean watched = false;
+                    for (File contentDir : contentDirs) {
+                        if (file.getFile()
+                                .getAbsolutePath()
+                                .startsWith(contentDir.getAbsolutePath()) &&
+                            !this.fileExclusionManager.isExcluded(file.getFile())) {
+                            watched = true;
+                            break;
                         }
                     }
+
+                    if (!watched) {
+                        entries.remove();
+                    }
                 }
+            }
 
-                this.fileList = fileListFromDisk;
+            fileList.clear();
+            fileQueue.clear();
+            for (Entry<String, ChangedFile> entry : fileListFromDisk.entrySet()) {
+                if (null == fileList.put(entry.getKey(), entry.getValue())) {
+                    fileQueue.offer(entry.getKey());
+                }
             }
-            oStream.close();
+            // The restored state must be persisted in full before changes
+            // can be journaled against it
+            journaling = false;
+            journal.clear();
+            signalFilesAdded(true);
         } catch (Exception e) {
             throw new RuntimeException("Unable to restore File Changed List:" +
                                        e.getMessage(), e);
         }
     }
 
-    public synchronized List<File> peek(int maxFiles) {
+    /*
+     * Reads a snapshot written by persist(), or the serialized map written
+     * by earlier versions of the sync tool.
+     */
+    private LinkedHashMap<String, ChangedFile> readSnapshot(File persistFile)
+        throws IOException, ClassNotFoundException {
+        LinkedHashMap<String, ChangedFile> files = new LinkedHashMap<>();
+        try (DataInputStream in = openInput(persistFile)) {
+            in.mark(Integer.BYTES);
+            if (in.readInt() == SNAPSHOT_FORMAT) {
+                if (!readRecords(in, files)) {
+                    throw new IOException("Changed list backup is incomplete: " +
+                                          persistFile.getAbsolutePath());
+                }
+                return files;
+            }
+            in.reset();
+            try (ObjectInputStream oStream = new ObjectInputStream(in)) {
+                files.putAll((Map<String, ChangedFile>) oStream.readObject());
+            }
+        }
+        return files;
+    }
+
+    /*
+     * Applies the records in the stream to the given files. Returns true if
+     * the records end with an end record which matches the number of records
+     * read, as a snapshot does. A partial record at the end of a journal (as
+     * left by an interrupted write) is ignored.
+     */
+    private boolean readRecords(DataInputStream in,
+                                LinkedHashMap<String, ChangedFile> files)
+        throws IOException {
+        int records = 0;
+        try {
+            while (true) {
+                byte type = in.readByte();
+                String path = in.readUTF();
+                int syncAttempts = in.readInt();
+                if (RECORD_ADD == type) {
+                    files.put(path, new ChangedFile(new File(path), syncAttempts));
+                } else if (RECORD_REMOVE == type) {
+                    files.remove(path);
+                } else if (RECORD_END == type) {
+                    return syncAttempts == records;
+                } else {
+                    throw new IOException("Unknown changed list record type: " + type);
+                }
+                records++;
+            }
+        } catch (EOFException e) {
+            // End of records
+            return false;
+        }
+    }
+
+    private void writeRecord(DataOutputStream out,
+                             byte type,
+                             String path,
+                             int syncAttempts) throws IOException {
+        out.writeByte(type);
+        out.writeUTF(null == path ? "" : path);
+        out.writeInt(syncAttempts);
+    }
+
+    private DataOutputStream openOutput(File file, boolean append) throws IOException {
+        return new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file, append)));
+    }
+
+    private DataInputStream openInput(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    private void addJournalRecord(byte type, String path, ChangedFile changedFile) {
+        if (journaling) {
+            int syncAttempts = null == changedFile ? 0 : changedFile.getSyncAttempts();
+            journal.offer(new JournalRecord(type, path, syncAttempts));
+        }
+    }
+
+    /**
+     * Returns up to maxFiles of the files waiting to be processed, in list
+     * order, without reserving them. Only the head of the list is read.
+     *
+     * @param maxFiles the maximum number of files to return
+     * @return files waiting to be processed
+     */
+    public List<File> peek(int maxFiles) {
         List<File> files = new LinkedList<File>();
-        Iterator<Entry<String, ChangedFile>> it = this.fileList.entrySet().iterator();
-        int count = 0;
-        while (it.hasNext() && count < maxFiles) {
-            files.add(it.next().getValue().getFile());
-            count++;
+        Iterator<String> keys = fileQueue.iterator();
+        while (keys.hasNext() && files.size() < maxFiles) {
+            ChangedFile changedFile = fileList.get(keys.next());
+            if (null != changedFile) {
+                files.add(changedFile.getFile());
+            }
         }
         return files;
     }
@@ -279,8 +647,20 @@ public class ChangedList implements Serializable {
      *
      * @param changedFile
      */
-    synchronized void remove(ChangedFile changedFile) {
-        this.reservedFiles.remove(getKey(changedFile));
+    void remove(ChangedFile changedFile) {
+        removeReserved(getKey(changedFile));
+    }
+
+    private void removeReserved(String key) {
+        if (null != this.reservedFiles.remove(key) && journaling) {
+            // Only journal the removal if the file has not been re-added
+            fileList.compute(key, (path, pendingFile) -> {
+                if (null == pendingFile) {
+                    addJournalRecord(RECORD_REMOVE, path, null);
+                }
+                return pendingFile;
+            });
+        }
     }
 
     /**
@@ -289,10 +669,16 @@ public class ChangedList implements Serializable {
      *
      * @param changedFile
      */
-    synchronized void unreserve(ChangedFile changedFile) {
-        ChangedFile removedFile = this.reservedFiles.remove(getKey(changedFile));
-        if (removedFile != null && !this.fileList.containsKey(getKey(removedFile))) {
-            addChangedFile(removedFile);
+    void unreserve(ChangedFile changedFile) {
+        String key = getKey(changedFile);
+        ChangedFile removedFile = this.reservedFiles.remove(key);
+        if (removedFile != null &&
+            !fileExclusionManager.isExcluded(removedFile.getFile()) &&
+            null == this.fileList.putIfAbsent(key, removedFile)) {
+            fileQueue.offer(key);
+            signalFilesAdded(false);
+            incrementVersion();
+            fireChangedEventAsync();
         }
     }
 
@@ -303,7 +689,23 @@ public class ChangedList implements Serializable {
     public void shutdown() {
         executorService.shutdown();
         shutdown = true;
+        signalFilesAdded(true);
         ChangedList.instance = null;
     }
 
+    /*
+     * A change to the list which is to be written to the journal
+     */
+    private static class JournalRecord {
+        private final byte type;
+        private final String path;
+        private final int syncAttempts;
+
+        JournalRecord(byte type, String path, int syncAttempts) {
+            this.type = type;
+            this.path = path;
+            this.syncAttempts = syncAttempts;
+        }
+    }
+
 }
@@ -12,8 +12,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -38,6 +39,8 @@ public class SyncManager implements ChangeHandler {
     private SyncEndpoint endpoint;
     private ExecutorService watcherPool;
     private ThreadPoolExecutor workerPool;
+    // One permit for each worker thread which is not currently syncing a file
+    private Semaphore idleWorkers;
     private ArrayList<SyncWorker> workerList;
 
     /**
@@ -61,14 +64,17 @@ public class SyncManager implements ChangeHandler {
 
         // Create thread pool for changeWatcher
         watcherPool = Executors.newFixedThreadPool(1);
-        // Create thread pool for workers
+        // Create thread pool for workers. Files are only handed to the pool
+        // when a worker is idle, so the queue never holds more than the
+        // few tasks submitted while workers are returning to the pool.
         workerPool =
             new ThreadPoolExecutor(threads,
                                    threads,
                                    Long.MAX_VALUE,
                                    TimeUnit.NANOSECONDS,
-                                   new SynchronousQueue(),
+                                   new LinkedBlockingQueue<>(),
                                    new ThreadPoolExecutor.AbortPolicy());
+        idleWorkers = new Semaphore(threads);
         workerList = new ArrayList<SyncWorker>();
     }
 
@@ -97,6 +103,25 @@ public class SyncManager implements ChangeHandler {
         workerPool.shutdownNow();
     }
 
+    /**
+     * Waits for a worker to become available to sync a changed file
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if a worker is available, false otherwise
+     */
+    @Override
+    public boolean awaitReady(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        // Only the change watcher submits work, so a worker which is idle
+        // now will still be idle when the next file is handled
+        if (idleWorkers.tryAcquire(timeout, unit)) {
+            idleWorkers.release();
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Notifies the SyncManager that a file has changed
      *
@@ -104,15 +129,26 @@ public class SyncManager implements ChangeHandler {
      * @returns true if file accepted for processing, false otherwise
      */
     public synchronized boolean handleChangedFile(ChangedFile changedFile) {
+        if (!idleWorkers.tryAcquire()) {
+            return false;
+        }
+
         File watchDir = getWatchDir(changedFile.getFile());
         SyncWorker worker = new SyncWorker(changedFile, watchDir, endpoint);
 
         try {
             addToWorkerList(worker);
-            workerPool.execute(worker);
+            workerPool.execute(() -> {
+                try {
+                    worker.run();
+                } finally {
+                    idleWorkers.release();
+                }
+            });
             return true;
         } catch (RejectedExecutionException e) {
             workerList.remove(worker);
+            idleWorkers.release();
             return false;
         }
     }
@@ -13,6 +13,7 @@ import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
 import java.io.File;
+import java.io.RandomAccessFile;
 import java.util.LinkedList;
 
 import org.apache.commons.io.FileUtils;
@@ -70,4 +71,36 @@ public class ChangedListBackupManagerTest extends SyncTestBase {
         assertEquals(testFileName, changedFile.getFile().getName());
         assertNull(changedList.reserve());
     }
+
+    @Test
+    public void testLoadBackupIncomplete() throws Exception {
+        ChangedListBackupManager bkMan =
+            new ChangedListBackupManager(changedList, tempDir, 100, new LinkedList<File>());
+        File backupDir = new File(tempDir, "changeList");
+        File file1 = new File(tempDir, "testfile-1");
+        File file2 = new File(tempDir, "testfile-2");
+
+        changedList.addChangedFile(file1);
+        File previous = new File(backupDir, "1000");
+        changedList.persist(previous);
+        previous.setLastModified(1000);
+
+        changedList.addChangedFile(file2);
+        File latest = new File(backupDir, "2000");
+        changedList.persist(latest);
+        latest.setLastModified(2000);
+        // Leaves the latest backup without its last record
+        try (RandomAccessFile out = new RandomAccessFile(latest, "rw")) {
+            out.setLength(latest.length() - 1);
+        }
+        latest.setLastModified(2000);
+        changedList.clear();
+
+        // The previous backup is loaded
+        assertEquals(1000, bkMan.loadBackup());
+        ChangedFile changedFile = changedList.reserve();
+        assertEquals(file1.getAbsolutePath(),
+                     changedFile.getFile().getAbsolutePath());
+        assertNull(changedList.reserve());
+    }
 }
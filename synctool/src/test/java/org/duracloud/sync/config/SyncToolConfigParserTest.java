@@ -96,6 +96,7 @@ public class SyncToolConfigParserTest {
         argsMap.remove("-n");
         argsMap.remove("-o");
         argsMap.remove("-j");
+        argsMap.remove("-b");
 
         // Process configs, make sure optional params are set to defaults
         syncConfig =
@@ -119,6 +120,7 @@ public class SyncToolConfigParserTest {
         assertFalse(syncConfig.isRenameUpdates());
         assertTrue(syncConfig.isSyncUpdates());
         assertFalse(syncConfig.isJumpStart());
+        assertFalse(syncConfig.isChecksumCache());
 
         // Make sure error is thrown on missing required params
         for (String arg : argsMap.keySet()) {
@@ -158,6 +160,7 @@ public class SyncToolConfigParserTest {
         argsMap.put("-x", "");
         argsMap.put("-a", "prefix/");
         argsMap.put("-j", "");
+        argsMap.put("-b", "");
         return argsMap;
     }
 
@@ -184,6 +187,7 @@ public class SyncToolConfigParserTest {
         assertEquals(true, syncConfig.syncDeletes());
         assertEquals(true, syncConfig.isCleanStart());
         assertEquals(true, syncConfig.exitOnCompletion());
+        assertEquals(true, syncConfig.isChecksumCache());
     }
 
     private String[] mapToArray(HashMap<String, String> map) {
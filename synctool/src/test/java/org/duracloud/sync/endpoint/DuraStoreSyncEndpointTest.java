@@ -7,8 +7,10 @@
  */
 package org.duracloud.sync.endpoint;
 
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -16,7 +18,9 @@ import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.duracloud.client.ContentStore;
+import org.duracloud.common.constant.ManifestFormat;
 import org.duracloud.common.util.ChecksumUtil;
+import org.duracloud.error.NotFoundException;
 import org.easymock.Capture;
 import org.easymock.CaptureType;
 import org.easymock.EasyMock;
@@ -120,4 +124,50 @@ public class DuraStoreSyncEndpointTest {
         endpoint.syncFile(monitoredFile, contentFile.getParentFile());
     }
 
+    @Test
+    public void testSyncManifestCheck() throws Exception {
+        FileUtils.writeStringToFile(contentFile, "content-file");
+        File otherFile = File.createTempFile("other", "file.txt");
+        otherFile.deleteOnExit();
+        FileUtils.writeStringToFile(otherFile, "other-file");
+
+        ChecksumUtil checksumUtil =
+            new ChecksumUtil(ChecksumUtil.Algorithm.MD5);
+        String checksum = checksumUtil.generateChecksum(contentFile);
+        String contentId = contentFile.getName();
+        String otherId = otherFile.getName();
+
+        String manifest = "space-id\tcontent-id\tMD5\n" +
+                          spaceId + "\t" + contentId + "\t" + checksum + "\n" +
+                          spaceId + "\t" + otherId + "\tnot-a-match\n";
+        EasyMock.expect(contentStore.getManifest(spaceId, ManifestFormat.TSV))
+                .andReturn(new ByteArrayInputStream(manifest.getBytes("UTF-8")));
+
+        // Only the file which does not match the manifest is checked
+        EasyMock.expect(contentStore.getContentProperties(spaceId, otherId))
+                .andThrow(new NotFoundException("not found"));
+        EasyMock.expect(contentStore.addContent(EasyMock.eq(spaceId),
+                                                EasyMock.eq(otherId),
+                                                EasyMock.isA(InputStream.class),
+                                                EasyMock.eq(otherFile.length()),
+                                                EasyMock.eq("text/plain"),
+                                                EasyMock.isA(String.class),
+                                                EasyMock.isA(Map.class)))
+                .andReturn("");
+
+        replayMocks();
+        setEndpoint(null, false);
+        endpoint.loadSpaceManifest();
+
+        File watchDir = contentFile.getParentFile();
+        assertEquals(SyncResultType.ALREADY_IN_SYNC,
+                     endpoint.syncFileAndReturnDetailedResult(
+                         new MonitoredFile(contentFile), watchDir));
+        assertEquals(SyncResultType.ADDED,
+                     endpoint.syncFileAndReturnDetailedResult(
+                         new MonitoredFile(otherFile), watchDir));
+
+        FileUtils.deleteQuietly(otherFile);
+    }
+
 }
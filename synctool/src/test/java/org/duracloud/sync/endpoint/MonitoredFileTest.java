@@ -8,7 +8,9 @@
 package org.duracloud.sync.endpoint;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 
@@ -35,6 +37,11 @@ public class MonitoredFileTest {
         assertEquals(file.exists(), mFile.exists());
 
         FileUtils.writeStringToFile(file, "This file is used to execute tests");
+        setModifiedAgo(file, 60000);
+    }
+
+    private void setModifiedAgo(File file, long millis) {
+        file.setLastModified(System.currentTimeMillis() - millis);
     }
 
     @After
@@ -64,4 +71,79 @@ public class MonitoredFileTest {
         assertEquals(1, mFile.getStreamBytesRead());
     }
 
+    @Test
+    public void testChecksumCache() throws Exception {
+        File cacheFile = File.createTempFile("checksum", "cache");
+        cacheFile.delete();
+        try {
+            ChecksumCache cache = new ChecksumCache();
+            cache.load(cacheFile, 0);
+
+            ChecksumUtil cksumUtil =
+                new ChecksumUtil(ChecksumUtil.Algorithm.MD5);
+            String checksum = cksumUtil.generateChecksum(file);
+            assertEquals(checksum, new MonitoredFile(file, cache).getChecksum());
+            assertEquals(1, cache.size());
+
+            // Unchanged file is not read again
+            assertEquals(checksum, cache.getChecksum(file, f -> {
+                fail("Checksum should be cached");
+                return null;
+            }));
+
+            // Cache is available after a restart
+            cache.shutdown();
+            ChecksumCache reloaded = new ChecksumCache();
+            reloaded.load(cacheFile, 0);
+            assertEquals(1, reloaded.size());
+            assertEquals(checksum, new MonitoredFile(file, reloaded).getChecksum());
+
+            // Changed file is read again, and not cached as it was just changed
+            FileUtils.writeStringToFile(file, "Updated content", true);
+            String updated = cksumUtil.generateChecksum(file);
+            assertEquals(updated, new MonitoredFile(file, reloaded).getChecksum());
+            assertEquals(0, reloaded.size());
+
+            // Once the change is no longer recent the checksum is cached
+            setModifiedAgo(file, ChecksumCache.RECENT_CHANGE_MS + 1000);
+            assertEquals(updated, new MonitoredFile(file, reloaded).getChecksum());
+            assertEquals(1, reloaded.size());
+
+            reloaded.remove(file);
+            assertEquals(0, reloaded.size());
+        } finally {
+            FileUtils.deleteQuietly(cacheFile);
+        }
+    }
+
+    @Test
+    public void testResetChecksum() throws Exception {
+        File cacheFile = File.createTempFile("checksum", "cache");
+        cacheFile.delete();
+        try {
+            ChecksumCache cache = new ChecksumCache();
+            cache.load(cacheFile, 0);
+
+            MonitoredFile monitoredFile = new MonitoredFile(file, cache);
+            String checksum = monitoredFile.getChecksum();
+            assertEquals(1, cache.size());
+
+            // A same size change which keeps the modification time is not
+            // seen by the cache, until the checksum is reset
+            long lastModified = file.lastModified();
+            FileUtils.writeStringToFile(file, "This file is used to execute TESTS");
+            file.setLastModified(lastModified);
+            assertEquals(checksum, monitoredFile.getChecksum());
+
+            monitoredFile.resetChecksum();
+            assertEquals(0, cache.size());
+            String updated = monitoredFile.getChecksum();
+            assertNotEquals(checksum, updated);
+            assertEquals(new ChecksumUtil(ChecksumUtil.Algorithm.MD5).generateChecksum(file),
+                         updated);
+        } finally {
+            FileUtils.deleteQuietly(cacheFile);
+        }
+    }
+
 }
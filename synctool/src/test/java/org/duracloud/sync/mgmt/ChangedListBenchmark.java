@@ -0,0 +1,132 @@
+/*
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ *     http://duracloud.org/license/
+ */
+package org.duracloud.sync.mgmt;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of the ChangedList when files are added by
+ * several producer threads (as with the DirWalker and DirectoryListener)
+ * while being reserved and removed by several consumer threads (as with
+ * the ChangeWatcher and SyncWorkers).
+ *
+ * This is not run as part of the test suite. To run:
+ * java -cp [test classpath] org.duracloud.sync.mgmt.ChangedListBenchmark
+ * [file count] [producer threads] [consumer threads] [reserve batch size]
+ *
+ * @author agent
+ */
+public class ChangedListBenchmark {
+
+    private static final int RUNS = 5;
+
+    private ChangedListBenchmark() {
+        // Run via main()
+    }
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int consumers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        // The first run warms up the JVM and is not reported
+        for (int run = 0; run <= RUNS; run++) {
+            long elapsed = runOnce(fileCount, producers, consumers, batchSize);
+            if (run > 0) {
+                System.out.println("Run " + run + ": " + fileCount + " files, " +
+                                   producers + " producers, " + consumers +
+                                   " consumers, batch size " + batchSize +
+                                   ": " + elapsed + " ms (" +
+                                   (fileCount * 1000L / Math.max(elapsed, 1)) +
+                                   " files/s)");
+            }
+        }
+        ChangedList.getInstance().shutdown();
+    }
+
+    private static long runOnce(int fileCount,
+                                int producers,
+                                int consumers,
+                                int batchSize) throws InterruptedException {
+        ChangedList changedList = ChangedList.getInstance();
+        changedList.clear();
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch producersDone = new CountDownLatch(producers);
+        AtomicInteger consumed = new AtomicInteger(0);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = producer; i < fileCount; i += producers) {
+                    changedList.addChangedFile(new File("/benchmark/dir-" +
+                                                        (i % 1000) + "/file-" + i));
+                }
+                producersDone.countDown();
+            }));
+        }
+
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                while (consumed.get() < fileCount) {
+                    List<ChangedFile> changedFiles = reserve(changedList, batchSize);
+                    if (!changedFiles.isEmpty()) {
+                        for (ChangedFile changedFile : changedFiles) {
+                            changedFile.remove();
+                        }
+                        consumed.addAndGet(changedFiles.size());
+                    } else if (producersDone.getCount() == 0 &&
+                               changedList.getListSize() == 0) {
+                        break;
+                    } else {
+                        // Nothing to reserve yet, let the producers run
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long startTime = System.currentTimeMillis();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private static List<ChangedFile> reserve(ChangedList changedList,
+                                             int batchSize) {
+        if (batchSize > 1) {
+            return changedList.reserve(batchSize);
+        }
+        ChangedFile changedFile = changedList.reserve();
+        return null == changedFile ? Collections.emptyList() :
+               Collections.singletonList(changedFile);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -8,13 +8,19 @@
 package org.duracloud.sync.mgmt;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 import org.duracloud.sync.SyncTestBase;
@@ -78,6 +84,111 @@ public class ChangedListTest extends SyncTestBase {
         persistFile.delete();
     }
 
+    @Test
+    public void testRestoreIncompleteSnapshot() throws Exception {
+        File parentDir = changedFile.getParentFile();
+        File file1 = new File(parentDir, "changedListTest-1.tmp");
+        File file2 = new File(parentDir, "changedListTest-2.tmp");
+        changedList.addChangedFile(file1);
+        changedList.addChangedFile(file2);
+
+        File persistFile = File.createTempFile("persist", "file");
+        try {
+            changedList.persist(persistFile);
+            byte[] snapshot = Files.readAllBytes(persistFile.toPath());
+
+            // A snapshot missing its last record is not restored
+            try (FileOutputStream out = new FileOutputStream(persistFile)) {
+                out.write(snapshot, 0, snapshot.length - 1);
+            }
+            changedList.clear();
+            changedList.addChangedFile(changedFile);
+            try {
+                changedList.restore(persistFile, null);
+                Assert.fail("Exception expected");
+            } catch (RuntimeException e) {
+                // Expected
+            }
+            assertEquals(1, changedList.getListSize());
+            assertEquals(changedFile, changedList.peek(1).get(0));
+        } finally {
+            persistFile.delete();
+        }
+    }
+
+    @Test
+    public void testChangedListPersistChanges() throws Exception {
+        File parentDir = changedFile.getParentFile();
+        File file1 = new File(parentDir, "changedListTest-1.tmp");
+        File file2 = new File(parentDir, "changedListTest-2.tmp");
+        File file3 = new File(parentDir, "changedListTest-3.tmp");
+        changedList.addChangedFile(file1);
+        changedList.addChangedFile(file2);
+
+        File persistFile = File.createTempFile("persist", "file");
+        File journalFile = File.createTempFile("persist", "journal");
+        try {
+            changedList.persist(persistFile);
+
+            // file1 is synced, file3 is added, file2 fails and is re-added
+            ChangedFile reserved1 = changedList.reserve();
+            reserved1.remove();
+            changedList.addChangedFile(file3);
+            ChangedFile reserved2 = changedList.reserve();
+            reserved2.incrementSyncAttempts();
+            changedList.addChangedFile(reserved2);
+            reserved2.remove();
+
+            long version = changedList.getVersion();
+            assertEquals(version, changedList.persistChanges(journalFile));
+            long journalSize = journalFile.length();
+            assertTrue(journalSize > 0);
+
+            // Nothing further to write
+            changedList.persistChanges(journalFile);
+            assertEquals(journalSize, journalFile.length());
+
+            changedList.clear();
+            changedList.restore(persistFile, journalFile,
+                                Arrays.asList(parentDir));
+            assertEquals(2, changedList.getListSize());
+            ChangedFile restored = changedList.reserve();
+            assertEquals(file2.getAbsolutePath(),
+                         restored.getFile().getAbsolutePath());
+            assertEquals(1, restored.getSyncAttempts());
+            assertEquals(file3.getAbsolutePath(),
+                         changedList.reserve().getFile().getAbsolutePath());
+        } finally {
+            persistFile.delete();
+            journalFile.delete();
+        }
+    }
+
+    @Test
+    public void testRestoreIgnoresPartialJournalRecord() throws Exception {
+        File persistFile = File.createTempFile("persist", "file");
+        File journalFile = File.createTempFile("persist", "journal");
+        try {
+            changedList.persist(persistFile);
+            changedList.addChangedFile(changedFile);
+            changedList.persistChanges(journalFile);
+
+            // Simulate an interrupted write of a following record
+            try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+                out.write(new byte[] {1, 0, 100, 'x'});
+            }
+
+            changedList.clear();
+            changedList.restore(persistFile, journalFile, null);
+            assertEquals(1, changedList.getListSize());
+            assertEquals(changedFile.getAbsolutePath(),
+                         changedList.reserve().getFile().getAbsolutePath());
+        } finally {
+            persistFile.delete();
+            journalFile.delete();
+        }
+    }
+
     @Test
     public void testReserveRestoreBeforeRemove() throws Exception {
         changedList.addChangedFile(changedFile);
@@ -183,10 +294,113 @@ public class ChangedListTest extends SyncTestBase {
 
         List<File> peekedFiles = changedList.peek(fileCount - 1);
 
+        Assert.assertEquals(fileCount - 1, peekedFiles.size());
         for (int i = 0; i < peekedFiles.size(); i++) {
             Assert.assertEquals(files.get(i), peekedFiles.get(i));
         }
 
+        // Reserved files are skipped
+        changedList.reserve(2);
+        Assert.assertEquals(files.subList(2, 5), changedList.peek(3));
+    }
+
+    @Test
+    public void testReserveMultiple() throws Exception {
+        int fileCount = 10;
+        List<File> files = new ArrayList<File>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            File f = new File("changedListTest-" + i + ".tmp");
+            files.add(f);
+            changedList.addChangedFile(f);
+        }
+        // Re-adding a file does not change its position in the list
+        changedList.addChangedFile(new File(files.get(0).getPath()));
+
+        long version = changedList.getVersion();
+        List<ChangedFile> reserved = changedList.reserve(4);
+        assertEquals(version + 1, changedList.getVersion());
+        assertEquals(4, reserved.size());
+        for (int i = 0; i < reserved.size(); i++) {
+            assertEquals(files.get(i).getAbsolutePath(),
+                         reserved.get(i).getFile().getAbsolutePath());
+        }
+        assertEquals(fileCount - 4, changedList.getListSize());
+        assertEquals(fileCount, changedList.getListSizeIncludingReservedFiles());
+
+        reserved.get(0).unreserve();
+        reserved = changedList.reserve(fileCount);
+        assertEquals(fileCount - 3, reserved.size());
+        assertEquals(files.get(0).getAbsolutePath(),
+                     reserved.get(reserved.size() - 1).getFile().getAbsolutePath());
+        assertEquals(0, changedList.reserve(fileCount).size());
+    }
+
+    @Test
+    public void testReserveWaitsForAdd() throws Exception {
+        long start = System.currentTimeMillis();
+        assertNull(changedList.reserve(100, TimeUnit.MILLISECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 100);
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                // Add immediately
+            }
+            changedList.addChangedFile(changedFile);
+        });
+        producer.start();
+
+        ChangedFile reserved = changedList.reserve(5, TimeUnit.SECONDS);
+        assertNotNull(reserved);
+        assertEquals(changedFile.getAbsolutePath(),
+                     reserved.getFile().getAbsolutePath());
+        producer.join();
+    }
+
+    @Test
+    public void testListenerNotified() throws Exception {
+        CountDownLatch notified = new CountDownLatch(1);
+        ChangedListListener listener = list -> {
+            if (list.getListSize() == 0) {
+                notified.countDown();
+            }
+        };
+        changedList.addListener(listener);
+        try {
+            changedList.addChangedFile(changedFile);
+            changedList.reserve().remove();
+            assertTrue(notified.await(5, TimeUnit.SECONDS));
+        } finally {
+            changedList.removeListener(listener);
+        }
+    }
+
+    @Test
+    public void testListenerNotificationsCoalesced() throws Exception {
+        int fileCount = 1000;
+        AtomicInteger notifications = new AtomicInteger(0);
+        CountDownLatch notified = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        ChangedListListener listener = list -> {
+            if (Thread.currentThread() != caller) {
+                notifications.incrementAndGet();
+            }
+            if (list.getListSize() == fileCount) {
+                notified.countDown();
+            }
+        };
+        changedList.addListener(listener);
+        try {
+            for (int i = 0; i < fileCount; i++) {
+                changedList.addChangedFile(new File("changedListTest-" + i + ".tmp"));
+            }
+            assertTrue(notified.await(5, TimeUnit.SECONDS));
+            assertTrue(notifications.get() >= 1);
+            assertTrue(notifications.get() < fileCount);
+        } finally {
+            changedList.removeListener(listener);
+        }
     }
 
     @Test
@@ -205,4 +419,23 @@ public class ChangedListTest extends SyncTestBase {
         Assert.assertEquals(0, changedList.getListSize());
     }
 
+    @Test
+    public void testClearWhileAdding() throws Exception {
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                changedList.addChangedFile(new File("changedListTest-" + (i % 500)));
+            }
+        });
+        producer.start();
+        while (producer.isAlive()) {
+            changedList.clear();
+        }
+        producer.join();
+
+        // Every file left in the list can still be reserved
+        int listSize = changedList.getListSize();
+        assertEquals(listSize, changedList.reserve(Integer.MAX_VALUE).size());
+        assertEquals(0, changedList.getListSize());
+    }
+
 }